@@ -0,0 +1,74 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.model.UserMeta;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recipes shaped like the ones in production: 8 ingredients, 6 steps and as many reviews as asked for.
+ */
+public class BenchmarkData {
+
+    public static Recipe recipe(int reviewCount) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ingredients.add(Ingredient.builder().id((long) i).name("ingredient " + i).amount(i + " cups").state("dry").build());
+        }
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            steps.add(Step.builder().id(i).stepNumber(i + 1).description("do the thing in step " + (i + 1) + " until it is done").build());
+        }
+        List<Review> reviews = new ArrayList<>(reviewCount);
+        long ratingSum = 0;
+        for (int i = 0; i < reviewCount; i++) {
+            int rating = 1 + i % 10;
+            ratingSum += rating;
+            reviews.add(review(i, rating));
+        }
+        Recipe recipe = Recipe.builder()
+                .id(1)
+                .name("benchmark recipe")
+                .user(user(1))
+                .minutesToMake(30)
+                .difficultyRating(5)
+                .ratingSum(ratingSum)
+                .ratingCount(reviewCount)
+                .version(1)
+                .lastModified(Instant.now())
+                .ingredients(ingredients)
+                .steps(steps)
+                .reviews(reviews)
+                .build();
+        recipe.recalculateAverageReviewRating();
+        return recipe;
+    }
+
+    public static Review review(long id, int rating) {
+        return Review.builder()
+                .id(id)
+                .description("review number " + id)
+                .rating(rating)
+                .user(user(100 + id % 50))
+                .version(1)
+                .lastModified(Instant.now())
+                .build();
+    }
+
+    public static CustomUserDetails user(long id) {
+        return CustomUserDetails.builder()
+                .id(id)
+                .username("user" + id)
+                .password("$2a$10$abcdefghijklmnopqrstuvCjR4Uq0k3xHk5B9dB0p6sDxN8QUGu2")
+                .userMeta(UserMeta.builder().name("User " + id).email("user" + id + "@email.com").build())
+                .authorities(List.of(new Role(Role.Roles.ROLE_USER)))
+                .build();
+    }
+}
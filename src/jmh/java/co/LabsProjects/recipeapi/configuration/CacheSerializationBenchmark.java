@@ -0,0 +1,95 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import co.LabsProjects.recipeapi.BenchmarkData;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.Recipe;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache value's round trip through the grid: the Java-serialized entity the caches used to hold against the
+ * Compact-serialized CachedRecipe they hold now, serialized by a standalone member configured like the
+ * application's. CacheSerializationBenchmarkTests asserts the size difference, this measures time and allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    int reviews;
+
+    HazelcastInstance member;
+
+    SerializationService serialization;
+
+    Recipe recipe;
+
+    CachedRecipe cachedRecipe;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setClusterName("jmh-serialization");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        CachingConfiguration.addCompactSerializers(config.getSerializationConfig().getCompactSerializationConfig());
+        member = Hazelcast.newHazelcastInstance(config);
+        serialization = ((SerializationServiceSupport) member).getSerializationService();
+        recipe = BenchmarkData.recipe(reviews);
+        cachedRecipe = CachedRecipe.from(recipe);
+    }
+
+    @TearDown
+    public void tearDown() {
+        member.shutdown();
+    }
+
+    @Benchmark
+    public Object javaSerializedEntity() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(recipe);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Object hazelcastSerializedEntity() {
+        Data data = serialization.toData(recipe);
+        return serialization.toObject(data);
+    }
+
+    @Benchmark
+    public Object compactCachedRecipe() {
+        Data data = serialization.toData(cachedRecipe);
+        return serialization.toObject(data);
+    }
+}
@@ -0,0 +1,92 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import co.LabsProjects.recipeapi.BenchmarkData;
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The @PreAuthorize check in front of every PATCH and DELETE. Owners are answered from the ownership index; an id
+ * missing from it falls back to the repository, mocked here so the figure is the evaluator's own overhead. An id
+ * the repository does not know is never cached, so unknownRecipe goes to the repository on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionEvaluatorBenchmark {
+
+    static final long INDEXED = 1;
+
+    static final long UNKNOWN = 2;
+
+    CustomPermissionEvaluator evaluator;
+
+    Authentication owner;
+
+    Authentication admin;
+
+    @Setup
+    public void setUp() {
+        RecipeRepo recipeRepo = Mockito.mock(RecipeRepo.class);
+        ReviewRepo reviewRepo = Mockito.mock(ReviewRepo.class);
+        Mockito.when(recipeRepo.findOwnerIdById(UNKNOWN)).thenReturn(Optional.empty());
+
+        OwnershipIndex ownershipIndex = new OwnershipIndex();
+        ReflectionTestUtils.setField(ownershipIndex, "recipeRepo", recipeRepo);
+        ReflectionTestUtils.setField(ownershipIndex, "reviewRepo", reviewRepo);
+        ownershipIndex.index(BenchmarkData.recipe(0));
+        ownershipIndex.putReviewOwner(INDEXED, 1);
+
+        evaluator = new CustomPermissionEvaluator();
+        evaluator.ownershipIndex = ownershipIndex;
+
+        CustomUserDetails user = BenchmarkData.user(1);
+        owner = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        CustomUserDetails administrator = BenchmarkData.user(2);
+        administrator.setAuthorities(List.of(new Role(Role.Roles.ROLE_USER), new Role(Role.Roles.ROLE_ADMIN)));
+        admin = new UsernamePasswordAuthenticationToken(administrator, null, administrator.getAuthorities());
+    }
+
+    @Benchmark
+    public boolean indexedRecipe() {
+        return evaluator.hasPermission(owner, INDEXED, "Recipe", "edit");
+    }
+
+    @Benchmark
+    public boolean indexedReview() {
+        return evaluator.hasPermission(owner, INDEXED, "Review", "delete");
+    }
+
+    @Benchmark
+    public boolean unknownRecipe() {
+        return evaluator.hasPermission(owner, UNKNOWN, "Recipe", "edit");
+    }
+
+    @Benchmark
+    public boolean admin() {
+        return evaluator.hasPermission(admin, INDEXED, "Recipe", "edit");
+    }
+}
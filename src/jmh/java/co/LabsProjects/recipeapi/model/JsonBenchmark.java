@@ -0,0 +1,74 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.BenchmarkData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of what the controllers return, with an ObjectMapper configured the way Spring Boot
+ * configures the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"10", "1000"})
+    int reviews;
+
+    ObjectMapper objectMapper;
+
+    Recipe recipe;
+
+    CachedRecipe cachedRecipe;
+
+    Review review;
+
+    String recipeJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        recipe = BenchmarkData.recipe(reviews);
+        cachedRecipe = CachedRecipe.from(recipe);
+        review = BenchmarkData.review(1, 7);
+        recipeJson = objectMapper.writeValueAsString(cachedRecipe);
+    }
+
+    @Benchmark
+    public byte[] writeRecipeEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(recipe);
+    }
+
+    @Benchmark
+    public byte[] writeCachedRecipe() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cachedRecipe);
+    }
+
+    @Benchmark
+    public byte[] writeReview() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public Recipe readRecipe() throws JsonProcessingException {
+        return objectMapper.readValue(recipeJson, Recipe.class);
+    }
+}
@@ -0,0 +1,82 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.BenchmarkData;
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work on a recipe that does not touch the database. The average rating is kept from counters, so
+ * recalculating it should not depend on the number of reviews; building the cache value and its ETag walks every
+ * review and should grow linearly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int reviews;
+
+    Recipe recipe;
+
+    @Setup
+    public void setUp() {
+        recipe = BenchmarkData.recipe(reviews);
+        //generateLocationURI reads the current request, as it does inside a controller
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/recipes")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Recipe validate() throws InvalidArgumentException {
+        recipe.validate();
+        return recipe;
+    }
+
+    @Benchmark
+    public double recalculateAverageReviewRating() {
+        recipe.recalculateAverageReviewRating();
+        return recipe.getAverageReviewRating();
+    }
+
+    @Benchmark
+    public URI generateLocationURI() {
+        recipe.generateLocationURI();
+        return recipe.getLocationURI();
+    }
+
+    @Benchmark
+    public CachedRecipe toCacheValue() {
+        return CachedRecipe.from(recipe);
+    }
+
+    @Benchmark
+    public String etag() {
+        return CachedReview.etagOf(CachedRecipe.from(recipe).getReviews());
+    }
+}
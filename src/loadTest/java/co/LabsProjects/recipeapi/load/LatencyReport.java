@@ -0,0 +1,128 @@
+package co.LabsProjects.recipeapi.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//latency histograms in microseconds and error counts per operation, plus a line for all of them
+class LatencyReport {
+
+	//status recorded for requests that got no response at all
+	static final int NO_RESPONSE = -1;
+
+	private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private static final String TOTAL = "total";
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private long elapsedNanos;
+
+	void record(Operation operation, long latencyNanos, int status) {
+		boolean error = !operation.expectedStatuses.contains(status);
+		endpoint(operation.name).record(latencyNanos, error, status);
+		endpoint(TOTAL).record(latencyNanos, error, status);
+	}
+
+	//an open loop request that was never sent because too many were outstanding
+	void drop() {
+		dropped.increment();
+	}
+
+	void finish(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	long getRequests() {
+		return endpoint(TOTAL).histogram.getTotalCount();
+	}
+
+	long getErrors() {
+		return endpoint(TOTAL).errors.sum();
+	}
+
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	String describe() {
+		StringBuilder out = new StringBuilder(String.format("%-20s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+				"operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		sorted().forEach((name, endpoint) -> {
+			Histogram histogram = endpoint.histogram;
+			out.append(String.format("%-20s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+					name, histogram.getTotalCount(), perSecond(histogram.getTotalCount()), endpoint.errors.sum(),
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+					millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+					millis(histogram.getMaxValue())));
+			if (!endpoint.unexpected.isEmpty()) {
+				out.append(String.format("%-20s unexpected statuses %s%n", "", new TreeMap<>(endpoint.unexpected)));
+			}
+		});
+		if (getDropped() > 0) {
+			out.append(String.format("%d requests dropped, the application fell behind the offered rate%n", getDropped()));
+		}
+		return out.toString();
+	}
+
+	void writeCsv(Path file) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+			out.println("operation,requests,requests_per_second,errors,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+			sorted().forEach((name, endpoint) -> {
+				Histogram histogram = endpoint.histogram;
+				out.printf("%s,%d,%.1f,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+						name, histogram.getTotalCount(), perSecond(histogram.getTotalCount()), endpoint.errors.sum(),
+						millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+						millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+						millis(histogram.getMaxValue()));
+			});
+		}
+	}
+
+	//operations by name, the total last
+	private Map<String, Endpoint> sorted() {
+		Map<String, Endpoint> sorted = new TreeMap<>((a, b) -> a.equals(TOTAL) ? 1 : b.equals(TOTAL) ? -1 : a.compareTo(b));
+		sorted.putAll(endpoints);
+		return sorted;
+	}
+
+	private Endpoint endpoint(String name) {
+		return endpoints.computeIfAbsent(name, n -> new Endpoint());
+	}
+
+	private double perSecond(long count) {
+		return count / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static class Endpoint {
+
+		private final Histogram histogram = new ConcurrentHistogram(MAX_MICROS, 3);
+
+		private final LongAdder errors = new LongAdder();
+
+		private final Map<Integer, LongAdder> unexpected = new ConcurrentHashMap<>();
+
+		void record(long latencyNanos, boolean error, int status) {
+			histogram.recordValue(Math.min(MAX_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos))));
+			if (error) {
+				errors.increment();
+				unexpected.computeIfAbsent(status, s -> new LongAdder()).increment();
+			}
+		}
+	}
+}
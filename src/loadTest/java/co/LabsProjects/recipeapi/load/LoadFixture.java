@@ -0,0 +1,188 @@
+package co.LabsProjects.recipeapi.load;
+
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//accounts, tokens, recipes and reviews for the workload, created over HTTP before anything is measured
+class LoadFixture {
+
+	static final String[] WORDS = {"smoky", "tomato", "garlic", "lemon", "chili", "roast", "honey", "ginger",
+			"basil", "curry", "mushroom", "potato", "chocolate", "coconut", "pepper", "onion"};
+
+	private static final String PASSWORD = "load-password";
+
+	final URI baseUri;
+
+	//bearer tokens by account index
+	final List<String> tokens = new ArrayList<>();
+
+	final List<SeedRecipe> recipes = new ArrayList<>();
+
+	private final HttpClient client;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	LoadFixture(URI baseUri, HttpClient client) {
+		this.baseUri = baseUri;
+		this.client = client;
+	}
+
+	void create(LoadSettings settings, RecipeRepo recipeRepo) throws IOException, InterruptedException {
+		for (int i = 0; i < settings.accounts; i++) {
+			tokens.add(createAccount(username(i)));
+		}
+
+		//recipes are shared out evenly between the accounts, one bulk import each
+		for (int account = 0; account < settings.accounts; account++) {
+			StringBuilder lines = new StringBuilder();
+			for (int i = account; i < settings.recipes; i += settings.accounts) {
+				lines.append(objectMapper.writeValueAsString(recipeBody(null, recipeName(i), i))).append('\n');
+			}
+			bulk("/recipes/bulk", account, lines.toString());
+		}
+
+		Map<String, Integer> accounts = new HashMap<>();
+		for (int i = 0; i < settings.accounts; i++) {
+			accounts.put(username(i), i);
+		}
+		List<Long> ids = recipeRepo.findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+		for (Object[] row : recipeRepo.findAuthorUsernamesByIdIn(ids)) {
+			Integer owner = accounts.get((String) row[1]);
+			if (owner != null) {
+				recipes.add(new SeedRecipe((Long) row[0], owner));
+			}
+		}
+		recipes.sort((a, b) -> Long.compare(a.id, b.id));
+
+		//every recipe is reviewed by the accounts after its owner's
+		for (int reviewer = 0; reviewer < settings.accounts; reviewer++) {
+			StringBuilder lines = new StringBuilder();
+			for (SeedRecipe recipe : recipes) {
+				int distance = Math.floorMod(reviewer - recipe.owner, settings.accounts);
+				if (distance >= 1 && distance <= settings.reviewsPerRecipe) {
+					ObjectNode review = reviewBody(1 + (int) ((recipe.id + reviewer) % 10));
+					review.put("recipeId", recipe.id);
+					lines.append(objectMapper.writeValueAsString(review)).append('\n');
+				}
+			}
+			if (lines.length() > 0) {
+				bulk("/review/bulk", reviewer, lines.toString());
+			}
+		}
+	}
+
+	HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(baseUri.resolve(path));
+	}
+
+	HttpRequest.Builder authenticated(String path, int account) {
+		return request(path).header("Authorization", "Bearer " + tokens.get(account));
+	}
+
+	//also the full body a PATCH needs, names stay within the vocabulary so searches keep finding patched recipes
+	ObjectNode recipeBody(Long id, String name, int seed) {
+		ObjectNode recipe = objectMapper.createObjectNode();
+		if (id != null) {
+			recipe.put("id", id);
+		}
+		recipe.put("name", name);
+		recipe.put("minutesToMake", 5 + seed % 120);
+		recipe.put("difficultyRating", seed % 11);
+		ArrayNode ingredients = recipe.putArray("ingredients");
+		for (int i = 0; i < 6; i++) {
+			ingredients.addObject()
+					.put("name", WORDS[(seed + i * 3) % WORDS.length])
+					.put("amount", (i + 1) + " cups")
+					.put("state", i % 2 == 0 ? "dry" : "wet");
+		}
+		ArrayNode steps = recipe.putArray("steps");
+		for (int i = 0; i < 4; i++) {
+			steps.addObject()
+					.put("stepNumber", i + 1)
+					.put("description", "step " + (i + 1) + " of " + name);
+		}
+		return recipe;
+	}
+
+	ObjectNode reviewBody(int rating) {
+		return objectMapper.createObjectNode()
+				.put("description", "reviewed under load")
+				.put("rating", rating);
+	}
+
+	String json(Object body) {
+		try {
+			return objectMapper.writeValueAsString(body);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static String recipeName(int i) {
+		return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+	}
+
+	private static String username(int account) {
+		return "load-user-" + account;
+	}
+
+	private String createAccount(String username) throws IOException, InterruptedException {
+		ObjectNode user = objectMapper.createObjectNode()
+				.put("username", username)
+				.put("password", PASSWORD);
+		user.putObject("userMeta").put("name", username).put("email", username + "@load.test");
+		send(request("/user")
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json(user))));
+
+		//the only BCrypt check per account, every later request carries the token
+		String basic = Base64.getEncoder().encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+		String body = send(request("/token")
+				.header("Authorization", "Basic " + basic)
+				.POST(HttpRequest.BodyPublishers.noBody()));
+		return objectMapper.readTree(body).get("accessToken").asText();
+	}
+
+	private void bulk(String path, int account, String ndjson) throws IOException, InterruptedException {
+		send(authenticated(path, account)
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofString(ndjson)));
+	}
+
+	private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() >= 300) {
+			throw new IllegalStateException(response.request().method() + " " + response.uri() + " returned "
+					+ response.statusCode() + ": " + response.body());
+		}
+		return response.body();
+	}
+
+	static class SeedRecipe {
+
+		final long id;
+
+		//index of the account that wrote it
+		final int owner;
+
+		SeedRecipe(long id, int owner) {
+			this.id = id;
+			this.owner = owner;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package co.LabsProjects.recipeapi.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//sends the workload for a given time, closed loop with load.users users or open loop at load.rate per second,
+//measuring open loop latency from when a request was due
+class LoadGenerator {
+
+	private final HttpClient client;
+
+	private final Workload workload;
+
+	private final LoadSettings settings;
+
+	LoadGenerator(HttpClient client, Workload workload, LoadSettings settings) {
+		this.client = client;
+		this.workload = workload;
+		this.settings = settings;
+	}
+
+	LatencyReport run(Duration duration) throws InterruptedException {
+		return settings.openLoop ? openLoop(duration) : closedLoop(duration);
+	}
+
+	private LatencyReport closedLoop(Duration duration) throws InterruptedException {
+		LatencyReport report = new LatencyReport();
+		ExecutorService users = Executors.newFixedThreadPool(settings.users);
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		for (int i = 0; i < settings.users; i++) {
+			users.execute(() -> {
+				while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+					Operation operation = workload.next();
+					long sent = System.nanoTime();
+					int status;
+					try {
+						status = client.send(operation.request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+					} catch (IOException e) {
+						status = LatencyReport.NO_RESPONSE;
+					} catch (InterruptedException e) {
+						return;
+					}
+					report.record(operation, System.nanoTime() - sent, status);
+					if (!settings.thinkTime.isZero()) {
+						LockSupport.parkNanos(settings.thinkTime.toNanos());
+					}
+				}
+			});
+		}
+		users.shutdown();
+		if (!users.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+			users.shutdownNow();
+		}
+		report.finish(System.nanoTime() - start);
+		return report;
+	}
+
+	private LatencyReport openLoop(Duration duration) throws InterruptedException {
+		LatencyReport report = new LatencyReport();
+		AtomicInteger outstanding = new AtomicInteger();
+		long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate;
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		for (long due = start; due < end; due += interval) {
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			if (outstanding.get() >= settings.maxOutstanding) {
+				report.drop();
+				continue;
+			}
+			Operation operation = workload.next();
+			long intended = due;
+			outstanding.incrementAndGet();
+			client.sendAsync(operation.request(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+				report.record(operation, System.nanoTime() - intended, error == null ? response.statusCode() : LatencyReport.NO_RESPONSE);
+				outstanding.decrementAndGet();
+			});
+		}
+		//requests still in flight are waited for so their latency is counted
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		report.finish(System.nanoTime() - start);
+		return report;
+	}
+}
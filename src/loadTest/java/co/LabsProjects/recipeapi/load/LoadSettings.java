@@ -0,0 +1,59 @@
+package co.LabsProjects.recipeapi.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//load test settings from the load.* system properties
+class LoadSettings {
+
+	//closed: load.users users each send a request, wait for it and think; open: load.rate requests per second
+	//whatever the response times are
+	final boolean openLoop = "open".equalsIgnoreCase(System.getProperty("load.mode", "closed"));
+
+	final int users = Integer.getInteger("load.users", 32);
+
+	final int rate = Integer.getInteger("load.rate", 500);
+
+	//open loop only, requests due while this many are outstanding are dropped and counted
+	final int maxOutstanding = Integer.getInteger("load.max-outstanding", 2000);
+
+	final Duration thinkTime = Duration.ofMillis(Long.getLong("load.think-ms", 0));
+
+	final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+
+	final Duration duration = Duration.ofSeconds(Long.getLong("load.duration-seconds", 30));
+
+	final int accounts = Integer.getInteger("load.accounts", 20);
+
+	final int recipes = Integer.getInteger("load.recipes", 2000);
+
+	final int reviewsPerRecipe = Integer.getInteger("load.reviews-per-recipe", 3);
+
+	//operation name=weight, see Workload for the operations
+	final Map<String, Integer> mix = parseMix(System.getProperty("load.mix",
+			"browse=25,search=15,recipe=25,recipeAuthenticated=10,reviews=10,postReview=10,patchRecipe=5"));
+
+	//CSV of the measured run, nothing is written when empty
+	final String reportFile = System.getProperty("load.report", "");
+
+	String describe() {
+		String shape = openLoop
+				? String.format("open loop at %d req/s (at most %d outstanding)", rate, maxOutstanding)
+				: String.format("closed loop with %d users, %d ms think time", users, thinkTime.toMillis());
+		return String.format("%s, %d s after %d s warmup, %d recipes by %d accounts, mix %s",
+				shape, duration.toSeconds(), warmup.toSeconds(), recipes, accounts, mix);
+	}
+
+	private static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("load.mix entries must be name=weight, not " + entry);
+			}
+			weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+}
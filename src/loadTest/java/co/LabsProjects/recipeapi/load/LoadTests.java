@@ -0,0 +1,57 @@
+package co.LabsProjects.recipeapi.load;
+
+import co.LabsProjects.recipeapi.RecipeApiApplication;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//boots the application on H2 with its own Hazelcast member and reports throughput and latency per operation
+class LoadTests {
+
+	private final LoadSettings settings = new LoadSettings();
+
+	@Test
+	void mixedWorkload() throws Exception {
+		try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+				new SpringApplicationBuilder(RecipeApiApplication.class)
+						.profiles("loadtest")
+						.properties("server.port=0")
+						.run()) {
+			ExecutorService clientThreads = Executors.newFixedThreadPool(16);
+			HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.connectTimeout(Duration.ofSeconds(10))
+					.executor(clientThreads)
+					.build();
+			try {
+				LoadFixture fixture = new LoadFixture(URI.create("http://localhost:" + context.getWebServer().getPort()), client);
+				fixture.create(settings, context.getBean(RecipeRepo.class));
+				LoadGenerator generator = new LoadGenerator(client, new Workload(fixture, settings.mix), settings);
+
+				//warms up the JIT, the connection pools, the caches and the indexes, and is thrown away
+				generator.run(settings.warmup);
+				LatencyReport report = generator.run(settings.duration);
+
+				System.out.println(settings.describe());
+				System.out.print(report.describe());
+				if (!settings.reportFile.isEmpty()) {
+					report.writeCsv(Path.of(settings.reportFile));
+				}
+				assertThat(report.getRequests()).isPositive();
+				assertThat(report.getErrors()).as("requests answered with an unexpected status").isZero();
+			} finally {
+				clientThreads.shutdownNow();
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package co.LabsProjects.recipeapi.load;
+
+import java.net.http.HttpRequest;
+import java.util.Set;
+import java.util.function.Supplier;
+
+//one kind of request in the workload, request() builds a fresh one each call
+class Operation {
+
+	final String name;
+
+	final int weight;
+
+	//anything else counts as an error
+	final Set<Integer> expectedStatuses;
+
+	private final Supplier<HttpRequest> requests;
+
+	Operation(String name, int weight, Set<Integer> expectedStatuses, Supplier<HttpRequest> requests) {
+		this.name = name;
+		this.weight = weight;
+		this.expectedStatuses = expectedStatuses;
+		this.requests = requests;
+	}
+
+	HttpRequest request() {
+		return requests.get();
+	}
+}
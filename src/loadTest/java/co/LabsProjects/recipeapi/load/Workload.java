@@ -0,0 +1,103 @@
+package co.LabsProjects.recipeapi.load;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+//the operations of the mix and their weights, writes made by an account allowed to make them
+class Workload {
+
+	private final List<Operation> operations = new ArrayList<>();
+
+	private final int totalWeight;
+
+	Workload(LoadFixture fixture, Map<String, Integer> mix) {
+		mix.forEach((name, weight) -> operations.add(new Operation(name, weight, expectedStatuses(name), requests(name, fixture))));
+		totalWeight = operations.stream().mapToInt(operation -> operation.weight).sum();
+		if (totalWeight <= 0) {
+			throw new IllegalArgumentException("load.mix needs at least one operation with a positive weight");
+		}
+	}
+
+	Operation next() {
+		int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Operation operation : operations) {
+			pick -= operation.weight;
+			if (pick < 0) {
+				return operation;
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	private static Set<Integer> expectedStatuses(String name) {
+		switch (name) {
+			case "search":
+				//a search that matches nothing is a 404
+				return Set.of(200, 404);
+			case "postReview":
+				return Set.of(201);
+			case "patchRecipe":
+				//two patches of the same recipe can still collide once retries are exhausted
+				return Set.of(200, 409);
+			default:
+				return Set.of(200);
+		}
+	}
+
+	private static Supplier<HttpRequest> requests(String name, LoadFixture fixture) {
+		List<LoadFixture.SeedRecipe> recipes = fixture.recipes;
+		int accounts = fixture.tokens.size();
+		switch (name) {
+			case "browse":
+				return () -> {
+					String sort = new String[]{"id", "averageReviewRating", "minutesToMake"}[random().nextInt(3)];
+					return fixture.request("/recipes?sort=" + sort + "&direction=" + (random().nextBoolean() ? "asc" : "desc"))
+							.GET().build();
+				};
+			case "search":
+				return () -> fixture.request("/recipes/search?q=" + LoadFixture.WORDS[random().nextInt(LoadFixture.WORDS.length)]
+						+ "+" + LoadFixture.WORDS[random().nextInt(LoadFixture.WORDS.length)]).GET().build();
+			case "recipe":
+				return () -> fixture.request("/recipes/" + pick(recipes).id).GET().build();
+			case "recipeAuthenticated":
+				return () -> fixture.authenticated("/recipes/" + pick(recipes).id, random().nextInt(accounts)).GET().build();
+			case "reviews":
+				return () -> fixture.request("/review/recipe/" + pick(recipes).id).GET().build();
+			case "postReview":
+				return () -> {
+					LoadFixture.SeedRecipe recipe = pick(recipes);
+					int reviewer = (recipe.owner + 1 + random().nextInt(accounts - 1)) % accounts;
+					return fixture.authenticated("/review/" + recipe.id, reviewer)
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofString(fixture.json(fixture.reviewBody(1 + random().nextInt(10)))))
+							.build();
+				};
+			case "patchRecipe":
+				return () -> {
+					LoadFixture.SeedRecipe recipe = pick(recipes);
+					int seed = random().nextInt(100_000);
+					return fixture.authenticated("/recipes", recipe.owner)
+							.header("Content-Type", "application/json")
+							.method("PATCH", HttpRequest.BodyPublishers.ofString(
+									fixture.json(fixture.recipeBody(recipe.id, LoadFixture.recipeName(seed), seed))))
+							.build();
+				};
+			default:
+				throw new IllegalArgumentException("Unknown load.mix operation " + name + ", expected one of browse, search, " +
+						"recipe, recipeAuthenticated, reviews, postReview, patchRecipe");
+		}
+	}
+
+	private static LoadFixture.SeedRecipe pick(List<LoadFixture.SeedRecipe> recipes) {
+		return recipes.get(random().nextInt(recipes.size()));
+	}
+
+	private static ThreadLocalRandom random() {
+		return ThreadLocalRandom.current();
+	}
+}
@@ -2,6 +2,7 @@ package co.LabsProjects.recipeapi;
 
 import co.LabsProjects.recipeapi.model.*;
 import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
 import co.LabsProjects.recipeapi.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -20,6 +21,9 @@ public class RecipeMainTest implements CommandLineRunner {
     @Autowired
     RecipeRepo recipeRepo;
 
+    @Autowired
+    ReviewRepo reviewRepo;
+
     @Autowired
     PasswordEncoder encoder;
 
@@ -29,7 +33,7 @@ public class RecipeMainTest implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         System.out.println("STARTING WITH TEST DATABASE SETUP");
-        if (recipeRepo.findAll().isEmpty()) {
+        if (recipeRepo.count() == 0) {
 
             UserMeta user1Meta = UserMeta.builder().name("user1").email("user1@email.com").build();
             CustomUserDetails user1 = CustomUserDetails.builder()
@@ -55,19 +59,20 @@ public class RecipeMainTest implements CommandLineRunner {
             Step step1 = Step.builder().description("put flour in bowl").stepNumber(1).build();
             Step step2 = Step.builder().description("eat it?").stepNumber(2).build();
 
-            Review review = Review.builder().description("tasted pretty bad").rating(2).user(user1).build();
-
             Recipe recipe1 = Recipe.builder()
                     .name("test recipe")
                     .difficultyRating(10)
                     .minutesToMake(2)
                     .ingredients(Set.of(ingredient))
                     .steps(Set.of(step1, step2))
-                    .reviews(Set.of(review))
                     .user(user2)
+                    .ratingSum(2)
+                    .ratingCount(1)
+                    .averageReviewRating(2)
                     .build();
 
             recipeRepo.save(recipe1);
+            reviewRepo.save(Review.builder().description("tasted pretty bad").rating(2).user(user1).recipe(recipe1).build());
 
             ingredient.setId(null);
             Recipe recipe2 = Recipe.builder()
@@ -100,13 +105,14 @@ public class RecipeMainTest implements CommandLineRunner {
                             Ingredient.builder().name("chocolate").amount("1 bar").build()))
                     .steps(Set.of(
                             Step.builder().stepNumber(1).description("eat both items together").build()))
-                    .reviews(Set.of(
-                            Review.builder().user(user2).rating(10).description("this stuff is so good").build()
-                    ))
                     .user(user1)
+                    .ratingSum(10)
+                    .ratingCount(1)
+                    .averageReviewRating(10)
                     .build();
 
             recipeRepo.save(recipe4);
+            reviewRepo.save(Review.builder().user(user2).rating(10).description("this stuff is so good").recipe(recipe4).build());
             System.out.println("FINISHED TEST DATABASE SETUP");
         }
     }
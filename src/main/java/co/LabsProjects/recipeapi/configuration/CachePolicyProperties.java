@@ -0,0 +1,73 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//eviction, expiry and backup policy of every cluster map, bound from recipe-api.cache.policies.<map name>.*
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "recipe-api.cache")
+public class CachePolicyProperties {
+
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+
+        //per node, set either this or maxHeapMb
+        private int maxEntries;
+
+        //per node, set either this or maxEntries
+        private int maxHeapMb;
+
+        private EvictionPolicy eviction = EvictionPolicy.LRU;
+
+        //0 means entries never expire
+        private int ttlSeconds;
+
+        private int maxIdleSeconds;
+
+        private int backupCount = 1;
+
+        private int asyncBackupCount;
+
+        public MapConfig toMapConfig(String name) {
+            if (maxEntries > 0 && maxHeapMb > 0) {
+                throw new IllegalStateException("Cache " + name + " can be limited by max-entries or max-heap-mb, not both.");
+            }
+            MapConfig config = new MapConfig(name)
+                    .setTimeToLiveSeconds(ttlSeconds)
+                    .setMaxIdleSeconds(maxIdleSeconds)
+                    .setBackupCount(backupCount)
+                    .setAsyncBackupCount(asyncBackupCount);
+            if (maxHeapMb > 0) {
+                config.getEvictionConfig()
+                        .setEvictionPolicy(eviction)
+                        .setMaxSizePolicy(MaxSizePolicy.USED_HEAP_SIZE)
+                        .setSize(maxHeapMb);
+            } else if (maxEntries > 0) {
+                config.getEvictionConfig()
+                        .setEvictionPolicy(eviction)
+                        .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
+                        .setSize(maxEntries);
+            }
+            return config;
+        }
+
+        public String describe() {
+            String limit = maxHeapMb > 0 ? maxHeapMb + " MB heap"
+                    : maxEntries > 0 ? maxEntries + " entries" : "unbounded";
+            return limit + " per node, " + (maxHeapMb > 0 || maxEntries > 0 ? eviction : "no eviction")
+                    + ", ttl " + ttlSeconds + "s, max idle " + maxIdleSeconds + "s, "
+                    + backupCount + " sync/" + asyncBackupCount + " async backups";
+        }
+    }
+}
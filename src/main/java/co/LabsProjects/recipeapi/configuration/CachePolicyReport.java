@@ -0,0 +1,76 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.LocalMapStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//the effective policy of every cache with what its entries cost on this member, projected from the average
+//entry size, so only as good as the sample
+@Component
+public class CachePolicyReport {
+
+    private static final Logger log = LoggerFactory.getLogger(CachePolicyReport.class);
+
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    CachePolicyProperties cachePolicies;
+
+    //the member, because only the member knows what its own partitions cost
+    @Autowired
+    @Qualifier("hazelcastInstance")
+    HazelcastInstance member;
+
+    //after the indexes are loaded, so caches warmed during startup are part of the sample
+    @EventListener(ApplicationReadyEvent.class)
+    @Order
+    public void logReport() {
+        for (Map<String, Object> cache : report()) {
+            log.info("Cache {}: {}; {} entries using {} bytes on this member, about {} bytes each; projected {} MB at the limit, {} MB at 10x entries",
+                    cache.get("name"), cache.get("policy"), cache.get("entries"), cache.get("ownedBytes"),
+                    cache.get("averageEntryBytes"), cache.get("projectedMbAtLimit"), cache.get("projectedMbAt10x"));
+        }
+    }
+
+    public List<Map<String, Object>> report() {
+        List<Map<String, Object>> report = new ArrayList<>();
+        cachePolicies.getPolicies().forEach((name, policy) -> {
+            LocalMapStats stats = member.getMap(name).getLocalMapStats();
+            long entries = stats.getOwnedEntryCount();
+            long ownedBytes = stats.getOwnedEntryMemoryCost();
+            long averageEntryBytes = entries == 0 ? 0 : ownedBytes / entries;
+            //every entry is held once as owner and once more per backup
+            int copies = 1 + policy.getBackupCount() + policy.getAsyncBackupCount();
+
+            Map<String, Object> cache = new LinkedHashMap<>();
+            cache.put("name", name);
+            cache.put("policy", policy.describe());
+            cache.put("entries", entries);
+            cache.put("ownedBytes", ownedBytes);
+            cache.put("backupBytes", stats.getBackupEntryMemoryCost());
+            cache.put("averageEntryBytes", averageEntryBytes);
+            if (policy.getMaxHeapMb() > 0) {
+                cache.put("projectedMbAtLimit", (long) policy.getMaxHeapMb() * copies);
+            } else if (policy.getMaxEntries() > 0 && entries > 0) {
+                cache.put("projectedMbAtLimit", averageEntryBytes * policy.getMaxEntries() * copies / MB);
+            } else {
+                cache.put("projectedMbAtLimit", "unknown");
+            }
+            cache.put("projectedMbAt10x", ownedBytes * 10 * copies / MB);
+            report.add(cache);
+        });
+        return report;
+    }
+}
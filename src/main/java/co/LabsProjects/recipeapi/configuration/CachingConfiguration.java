@@ -3,33 +3,138 @@ package co.LabsProjects.recipeapi.configuration;
 
 import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.client.config.ClientConfig;
+import co.LabsProjects.recipeapi.model.CachedIngredient;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.CachedResponse;
+import co.LabsProjects.recipeapi.model.CachedReview;
+import co.LabsProjects.recipeapi.model.CachedStep;
+import com.hazelcast.config.CompactSerializationConfig;
 import com.hazelcast.config.Config;
-import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class CachingConfiguration extends CachingConfigurerSupport {
 
+    @Value("${recipe-api.hazelcast.cluster-name:dev}")
+    String clusterName;
+
+    //members to join over TCP/IP, multicast discovery is used when empty
+    @Value("${recipe-api.hazelcast.members:}")
+    List<String> members;
+
+    //maps that get a near cache in every node, in front of the cluster
+    @Value("${recipe-api.near-cache.caches:recipes,reviews,responses}")
+    List<String> nearCaches;
+
+    @Value("${recipe-api.near-cache.max-size:10000}")
+    int nearCacheMaxSize;
+
+    @Value("${recipe-api.near-cache.ttl-seconds:600}")
+    int nearCacheTtlSeconds;
+
+    @Value("${recipe-api.near-cache.max-idle-seconds:0}")
+    int nearCacheMaxIdleSeconds;
+
+    //LFU keeps the most read keys local once the near cache is full
+    @Value("${recipe-api.near-cache.eviction-policy:LFU}")
+    EvictionPolicy nearCacheEvictionPolicy;
+
+    @Value("${recipe-api.cache.tombstone-ttl-seconds:300}")
+    long tombstoneTtlSeconds;
+
     @Bean
-    Config config() {
+    Config config(CachePolicyProperties cachePolicies) {
         Config config = new Config();
-        config.getMapConfigs().put("myCacheName", new MapConfig());
+        config.setClusterName(clusterName);
+        if (!members.isEmpty()) {
+            JoinConfig join = config.getNetworkConfig().getJoin();
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true).setMembers(members);
+        }
+        cachePolicies.getPolicies().forEach((name, policy) -> config.addMapConfig(policy.toMapConfig(name)));
+        addCompactSerializers(config.getSerializationConfig().getCompactSerializationConfig());
         return config;
     }
 
-    @Bean
-    public CacheManager cacheManager() {
+    //the cluster member this node runs, declared here because the client below replaces Boot's auto-configured instance
+    @Bean(destroyMethod = "shutdown")
+    public HazelcastInstance hazelcastInstance(Config config) {
+        return Hazelcast.newHazelcastInstance(config);
+    }
+
+    //everything the application reads or writes in the grid goes through this client
+    @Bean(destroyMethod = "shutdown")
+    @DependsOn("hazelcastInstance")
+    public HazelcastInstance hazelcastClient() {
         ClientConfig config = new ClientConfig();
-        HazelcastInstance client = HazelcastClient.newHazelcastClient(config);
-        return new com.hazelcast.spring.cache.HazelcastCacheManager(client);
+        config.setClusterName(clusterName);
+        nearCaches.forEach(name -> config.addNearCacheConfig(nearCacheConfig(name)));
+        addCompactSerializers(config.getSerializationConfig().getCompactSerializationConfig());
+        return HazelcastClient.newHazelcastClient(config);
+    }
+
+    @Bean
+    public CacheManager cacheManager(@Qualifier("hazelcastClient") HazelcastInstance client) {
+        return new HazelcastCacheManager(client) {
+
+            private final Map<String, CountingCache> caches = new ConcurrentHashMap<>();
+
+            @Override
+            public Cache getCache(String name) {
+                return caches.computeIfAbsent(name,
+                        n -> new CountingCache(new GuardedCache(super.getCache(n), tombstoneTtlSeconds)));
+            }
+        };
+    }
+
+    //members and clients both need the serializers of the cached value types
+    static void addCompactSerializers(CompactSerializationConfig config) {
+        config.addSerializer(new CachedRecipe.Serializer())
+                .addSerializer(new CachedReview.Serializer())
+                .addSerializer(new CachedIngredient.Serializer())
+                .addSerializer(new CachedStep.Serializer())
+                .addSerializer(new CachedResponse.Serializer())
+                .addSerializer(new Tombstone.Serializer());
+    }
+
+    private NearCacheConfig nearCacheConfig(String name) {
+        EvictionConfig eviction = new EvictionConfig()
+                .setEvictionPolicy(nearCacheEvictionPolicy)
+                .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                .setSize(nearCacheMaxSize);
+        //OBJECT format hands out the stored instance without deserializing it, which is safe as cached values are immutable
+        return new NearCacheConfig(name)
+                .setInMemoryFormat(InMemoryFormat.OBJECT)
+                .setInvalidateOnChange(true)
+                .setTimeToLiveSeconds(nearCacheTtlSeconds)
+                .setMaxIdleSeconds(nearCacheMaxIdleSeconds)
+                .setEvictionConfig(eviction);
     }
     @Bean
     public KeyGenerator keyGenerator() {
         return null;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,8 @@
 package co.LabsProjects.recipeapi.configuration;
 
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
 import co.LabsProjects.recipeapi.model.CustomUserDetails;
-import co.LabsProjects.recipeapi.model.Recipe;
-import co.LabsProjects.recipeapi.model.Review;
 import co.LabsProjects.recipeapi.model.Role;
-import co.LabsProjects.recipeapi.repo.RecipeRepo;
-import co.LabsProjects.recipeapi.repo.ReviewRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
@@ -20,10 +17,7 @@ import java.util.Optional;
 public class CustomPermissionEvaluator implements PermissionEvaluator {
 
     @Autowired
-    RecipeRepo recipeRepo;
-
-    @Autowired
-    ReviewRepo reviewRepo;
+    OwnershipIndex ownershipIndex;
 
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
@@ -44,24 +38,26 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
             //otherwise, the user must be the owner of the object to edit it.
             CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
 
+            long id = Long.parseLong(targetId.toString());
+
             if (targetType.equalsIgnoreCase("recipe")) {
-                Optional<Recipe> recipe = recipeRepo.findById(Long.parseLong(targetId.toString()));
-                if (recipe.isEmpty()) {
+                Optional<Long> owner = ownershipIndex.getRecipeOwner(id);
+                if (owner.isEmpty()) {
                     // no recipe with id exists, return true so the method can continue ultimately throwing an exception
                     return true;
                 }
 
                 //if the author of the entity matches the current user they are the owner of the recipe and should be allowed access
-                return recipe.get().getAuthor().equals(userDetails.getUsername());
+                return owner.get().equals(userDetails.getId());
 
             } else if (targetType.equalsIgnoreCase("review")) {
-                Optional<Review> review = reviewRepo.findById(Long.parseLong(targetId.toString()));
-                if (review.isEmpty()) {
+                Optional<Long> owner = ownershipIndex.getReviewOwner(id);
+                if (owner.isEmpty()) {
                     throw new EntityNotFoundException("The review you are trying to access does not exist");
                 }
 
                 //if the author of the entity matches the current user they are the owner of the review and should be allowed access
-                return review.get().getAuthor().equals(userDetails.getUsername());
+                return owner.get().equals(userDetails.getId());
             }
         }
         return true;
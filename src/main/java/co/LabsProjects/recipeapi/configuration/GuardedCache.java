@@ -0,0 +1,153 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import com.hazelcast.map.IMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+//keeps a read that loaded before a write committed from caching after the write's eviction: evictions leave a
+//tombstone in place of the entry, and the put that follows a miss only goes in over what the miss saw
+public class GuardedCache implements Cache {
+
+    private final Cache delegate;
+
+    private final IMap<Object, Object> map;
+
+    //must outlast the slowest load, a read that missed before the tombstone expired can cache what it loaded
+    private final long tombstoneTtlSeconds;
+
+    //the last miss of this cache on each thread
+    private final ThreadLocal<Miss> missed = new ThreadLocal<>();
+
+    @SuppressWarnings("unchecked")
+    public GuardedCache(Cache delegate, long tombstoneTtlSeconds) {
+        this.delegate = delegate;
+        this.map = (IMap<Object, Object>) delegate.getNativeCache();
+        this.tombstoneTtlSeconds = tombstoneTtlSeconds;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return map;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        if (value == null || value.get() instanceof Tombstone) {
+            missed.set(new Miss(key, value == null ? null : value.get()));
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (type != null && value.get() != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: "
+                    + value.get());
+        }
+        return (T) value.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Miss miss = takeMiss(key);
+        if (miss == null) {
+            delegate.put(key, value);
+        } else if (miss.seen == null) {
+            map.putIfAbsent(key, toStoreValue(value));
+        } else {
+            map.replace(key, miss.seen, toStoreValue(value));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Miss miss = takeMiss(key);
+        Object existing = miss == null || miss.seen == null
+                ? map.putIfAbsent(key, toStoreValue(value))
+                : map.replace(key, miss.seen, toStoreValue(value)) ? null : map.get(key);
+        if (existing == null || existing instanceof Tombstone) {
+            return null;
+        }
+        return new SimpleValueWrapper(existing == NullValue.INSTANCE ? null : existing);
+    }
+
+    @Override
+    public void evict(Object key) {
+        map.set(key, Tombstone.next(), tombstoneTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        Object previous = map.put(key, Tombstone.next(), tombstoneTtlSeconds, TimeUnit.SECONDS);
+        return previous != null && !(previous instanceof Tombstone);
+    }
+
+    //a read that missed an absent key can still put after this, which is why bulk removals are repeated
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    //a put that does not follow a miss of its key on this thread is not guarded
+    private Miss takeMiss(Object key) {
+        Miss miss = missed.get();
+        missed.remove();
+        return miss != null && miss.key.equals(key) ? miss : null;
+    }
+
+    //as the delegate stores a null
+    private static Object toStoreValue(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static final class Miss {
+
+        final Object key;
+
+        //the tombstone the miss found, null when there was no entry
+        final Object seen;
+
+        Miss(Object key, Object seen) {
+            this.key = key;
+            this.seen = seen;
+        }
+    }
+}
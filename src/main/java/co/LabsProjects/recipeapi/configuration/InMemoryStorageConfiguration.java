@@ -0,0 +1,19 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import co.LabsProjects.recipeapi.repo.memory.InMemoryStore;
+import co.LabsProjects.recipeapi.repo.memory.InMemoryTransactionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+//runs the application without MySQL, the repo.memory repositories and this transaction manager replace JPA
+@Configuration
+@Profile("in-memory")
+public class InMemoryStorageConfiguration {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(InMemoryStore store) {
+        return new InMemoryTransactionManager(store);
+    }
+}
@@ -0,0 +1,66 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//retries @RetryOnConflict methods with exponential back-off and full jitter, each attempt in its own transaction
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryOnConflictAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+
+    @Value("${recipe-api.retry.max-attempts:5}")
+    int maxAttempts;
+
+    @Value("${recipe-api.retry.base-backoff-ms:5}")
+    long baseBackoffMs;
+
+    @Value("${recipe-api.retry.max-backoff-ms:200}")
+    long maxBackoffMs;
+
+    private final LongAdder retries = new LongAdder();
+
+    @Around("@annotation(co.LabsProjects.recipeapi.service.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint call) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            //the conflict rolls back the caller's whole transaction, so only the caller can retry it
+            return call.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.proceed();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                long backoff = backoff(attempt);
+                log.debug("{} conflicted on attempt {}, retrying in {} ms", call.getSignature().toShortString(), attempt, backoff);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
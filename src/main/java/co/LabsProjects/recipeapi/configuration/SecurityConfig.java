@@ -1,5 +1,8 @@
 package co.LabsProjects.recipeapi.configuration;
 
+import co.LabsProjects.recipeapi.service.AccessTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,11 +12,15 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity(debug = true)
 public class SecurityConfig {
 
+    @Autowired
+    AccessTokenService accessTokenService;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -24,17 +31,23 @@ public class SecurityConfig {
                         .antMatchers("/css", "/js").permitAll()
                         //allow all requests to read recipes and reviews
                         .antMatchers(HttpMethod.GET, "/recipes/**", "/reviews").permitAll()
+                        //health checks are open, metrics describe the whole node and are for admins
+                        .antMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .antMatchers(HttpMethod.GET, "/actuator/prometheus").hasRole("ADMIN")
                         //allow creation of new recipes and reviews
                         .antMatchers(HttpMethod.POST, "/recipes", "/reviews", "/user").permitAll()
                         //all other requests should be authenticated
                         .anyRequest().authenticated())
                 //users should log in with HTTP Basic.
-                .httpBasic(Customizer.withDefaults());
+                .httpBasic(Customizer.withDefaults())
+                //or with an access token obtained from POST /token, which skips the password check.
+                //not a bean on purpose, Boot would otherwise register it a second time outside this chain
+                .addFilterBefore(new TokenAuthenticationFilter(accessTokenService), BasicAuthenticationFilter.class);
         return http.build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 }
@@ -0,0 +1,87 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+//counts the JDBC statements each request prepared, per endpoint, as http.server.requests.statements. Work
+//handed to other threads is not included
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class StatementMetricsFilter extends OncePerRequestFilter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    //null outside a request, so statements of scheduled and background work are not counted
+    private static final ThreadLocal<int[]> statements = new ThreadLocal<>();
+
+    //looked up per request, the registry must not be created while Hibernate is still being configured
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    private StatementInspector delegate;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        delegate = toInspector(hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR));
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = statements.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return delegate == null ? sql : delegate.inspect(sql);
+    }
+
+    //the setting may be an inspector, its class or its class name, as Hibernate accepts
+    private static StatementInspector toInspector(Object setting) {
+        if (setting == null || setting instanceof StatementInspector) {
+            return (StatementInspector) setting;
+        }
+        try {
+            Class<?> type = setting instanceof Class
+                    ? (Class<?>) setting
+                    : ClassUtils.forName(setting.toString(), StatementMetricsFilter.class.getClassLoader());
+            return (StatementInspector) BeanUtils.instantiateClass(type);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unknown statement inspector " + setting, e);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int[] count = new int[1];
+        statements.set(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements.remove();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .register(meterRegistry.getObject())
+                    .record(count[0]);
+        }
+    }
+}
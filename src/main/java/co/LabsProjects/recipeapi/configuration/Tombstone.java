@@ -0,0 +1,55 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+//what an evicted entry is replaced with for a while, each eviction leaves a different one (see GuardedCache)
+public final class Tombstone implements Serializable {
+
+    private final long id;
+
+    private Tombstone(long id) {
+        this.id = id;
+    }
+
+    public static Tombstone next() {
+        return new Tombstone(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Tombstone && ((Tombstone) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    public static class Serializer implements CompactSerializer<Tombstone> {
+
+        @Override
+        public Tombstone read(CompactReader in) {
+            return new Tombstone(in.readInt64("id"));
+        }
+
+        @Override
+        public void write(CompactWriter out, Tombstone tombstone) {
+            out.writeInt64("id", tombstone.id);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "tombstone";
+        }
+
+        @Override
+        public Class<Tombstone> getCompactClass() {
+            return Tombstone.class;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//runs Tomcat, @Async and async MVC on virtual threads when recipe-api.virtual-threads.enabled is set. The build
+//targets Java 11, so the executor is looked up reflectively and ignored with a warning before Java 21
+@Configuration
+@ConditionalOnProperty(name = "recipe-api.virtual-threads.enabled", havingValue = "true")
+@Conditional(VirtualThreadConfiguration.VirtualThreadsAvailable.class)
+public class VirtualThreadConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Requests and application tasks run on virtual threads");
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    //replaces Tomcat's worker pool, server.tomcat.threads.* no longer apply
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    //replaces the auto-configured pool used by @Async and by streaming responses such as GET /recipes/export
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    //19 and 20 have the method as a preview API, which throws unless the JVM runs with --enable-preview
+    public static boolean isAvailable() {
+        if (Runtime.version().feature() < 21) {
+            return false;
+        }
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available on Java " + Runtime.version(), e);
+        }
+    }
+
+    //evaluated after the property condition, so the warning only shows when virtual threads were asked for
+    static class VirtualThreadsAvailable implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (isAvailable()) {
+                return true;
+            }
+            log.warn("recipe-api.virtual-threads.enabled is set but Java {} has no virtual threads, " +
+                    "using platform threads", Runtime.version());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package co.LabsProjects.recipeapi.controller;
+
+import co.LabsProjects.recipeapi.configuration.CachePolicyReport;
+import co.LabsProjects.recipeapi.service.CacheStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class CacheController {
+
+    @Autowired
+    CacheStatsService cacheStatsService;
+
+    @Autowired
+    CachePolicyReport cachePolicyReport;
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getCacheStats() {
+        return cacheStatsService.getStats();
+    }
+
+    @GetMapping("/cache/policies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<Map<String, Object>> getCachePolicies() {
+        return cachePolicyReport.report();
+    }
+}
@@ -1,30 +1,64 @@
 package co.LabsProjects.recipeapi.controller;
 
+import co.LabsProjects.recipeapi.event.ChangeFeed;
 import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
 import co.LabsProjects.recipeapi.exception.NoSuchRecipeException;
+import co.LabsProjects.recipeapi.exception.PreconditionFailedException;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.CursorPage;
 import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.RatingRangeQuery;
 import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeRanking;
+import co.LabsProjects.recipeapi.model.RecipeSortField;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import co.LabsProjects.recipeapi.service.BulkImportService;
+import co.LabsProjects.recipeapi.service.RecipeExportService;
 import co.LabsProjects.recipeapi.service.RecipeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/recipes")
 public class RecipeController {
 
+    static final String EXPORT_WATERMARK = "X-Export-Watermark";
+
     @Autowired
     RecipeService recipeService;
 
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Autowired
+    RecipeExportService recipeExportService;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
     @Autowired
     CacheManager cacheManager;
 
+    @Autowired
+    ResponseCache responseCache;
+
     @PostMapping
     public ResponseEntity<?> createNewRecipe(@RequestBody Recipe recipe, Authentication authentication  ) {
         try {
@@ -36,63 +70,286 @@ public class RecipeController {
         }
     }
 
+    //newline delimited JSON, one recipe per line, answered with a report of what was imported and what failed
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importRecipes(InputStream body, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(bulkImportService.importRecipes(body, (CustomUserDetails) authentication.getPrincipal()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read the request body: " + e.getMessage());
+        }
+    }
+
+    //streams every recipe as NDJSON, or with updatedSince those changed and a delete line for those deleted since
+    //then; X-Export-Watermark carries the updatedSince for the next export
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRecipes(@RequestParam(value = "updatedSince", required = false) Instant updatedSince,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = ResponseCache.acceptsGzip(acceptEncoding);
+        Instant watermark = recipeExportService.watermark();
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream zipped = new GZIPOutputStream(out, true)) {
+                    recipeExportService.exportRecipes(updatedSince, zipped);
+                }
+            } else {
+                recipeExportService.exportRecipes(updatedSince, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(EXPORT_WATERMARK, watermark.toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    //Server-Sent Events, named recipe, review or resync (reload everything), for every recipe
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        try {
+            return ResponseEntity.ok(changeFeed.subscribe(null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRecipeChanges(@PathVariable("id") Long id) {
+        try {
+            recipeService.getRecipeAuthor(id);
+            return ResponseEntity.ok(changeFeed.subscribe(id));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getRecipeById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> getRecipeById(@PathVariable("id") Long id,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                           @RequestHeader HttpHeaders headers) {
         try {
-            Recipe recipe = recipeService.getRecipeById(id);
-            return ResponseEntity.ok(recipe);
+            ResponseEntity<byte[]> cached = responseCache.find(ResponseCache.recipeKey(id), acceptEncoding);
+            if (cached != null) {
+                return cached;
+            }
+            //a revalidation that still matches is answered before the recipe is loaded or rendered
+            if (ResponseCache.isConditional(headers)) {
+                ResponseEntity<byte[]> notModified = responseCache.notModified(headers, recipeService.getRecipeTag(id),
+                        ResponseCache.recipeSurrogateKey(id));
+                if (notModified != null) {
+                    return notModified;
+                }
+            }
+            CachedRecipe recipe = recipeService.getRecipeById(id);
+            return responseCache.store(ResponseCache.recipeKey(id), recipe, recipe.getEtag(), recipe.getLastModified(),
+                    ResponseCache.recipeSurrogateKey(id), acceptEncoding);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllRecipes() {
+    public ResponseEntity<?> getAllRecipes(@RequestParam(value = "sort", defaultValue = "id") String sort,
+                                           @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                           @RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            RecipeQuery query = page(sort, direction, after, limit).build();
+            return ResponseEntity.ok(recipeService.getAllRecipes(query));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchRecipes(@RequestParam("q") String query,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            return ResponseEntity.ok(recipeService.getAllRecipes());
+            List<RecipeSummary> recipes = recipeService.searchRecipes(query, limit);
+            return ResponseEntity.ok(recipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //any combination of optional filters, sorted and paged like GET /recipes, facets on the first page
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterRecipes(@RequestParam(value = "name", required = false) String name,
+                                           @RequestParam(value = "minDifficulty", required = false) Integer minDifficulty,
+                                           @RequestParam(value = "maxDifficulty", required = false) Integer maxDifficulty,
+                                           @RequestParam(value = "minMinutes", required = false) Integer minMinutes,
+                                           @RequestParam(value = "maxMinutes", required = false) Integer maxMinutes,
+                                           @RequestParam(value = "minRating", required = false) Double minRating,
+                                           @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                           @RequestParam(value = "author", required = false) String author,
+                                           @RequestParam(value = "ingredient", required = false) String ingredient,
+                                           @RequestParam(value = "facets", defaultValue = "true") boolean facets,
+                                           @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                           @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                           @RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            RecipeQuery query = page(sort, direction, after, limit)
+                    .name(name)
+                    .minDifficulty(minDifficulty)
+                    .maxDifficulty(maxDifficulty)
+                    .minMinutes(minMinutes)
+                    .maxMinutes(maxMinutes)
+                    .minRating(minRating)
+                    .maxRating(maxRating)
+                    .username(author)
+                    .ingredient(ingredient)
+                    .build();
+            return ResponseEntity.ok(recipeService.filterRecipes(query, facets));
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //comma separated ingredient names, matched by whole name or by any word of it
+    @GetMapping("/search/ingredients")
+    public ResponseEntity<?> searchByIngredients(@RequestParam(value = "include", defaultValue = "") List<String> include,
+                                                 @RequestParam(value = "any", defaultValue = "") List<String> any,
+                                                 @RequestParam(value = "exclude", defaultValue = "") List<String> exclude,
+                                                 @RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(recipeService.searchByIngredients(include, any, exclude, after, limit));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/search/ingredients/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildIngredientIndex() {
+        try {
+            return ResponseEntity.ok("Indexed the ingredients of " + recipeService.rebuildIngredientIndex() + " recipes.");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("The rebuild was interrupted.");
         }
     }
 
     @GetMapping("/search/name/{name}")
-    public ResponseEntity<?> getRecipesByName(@PathVariable("name") String name) {
+    public ResponseEntity<?> getRecipesByName(@PathVariable("name") String name,
+                                              @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                              @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                              @RequestParam(value = "after", required = false) String after,
+                                              @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<Recipe> matchingRecipes = recipeService.getRecipesByName(name);
+            RecipeQuery query = page(sort, direction, after, limit).name(name).build();
+            CursorPage<RecipeSummary> matchingRecipes = recipeService.getRecipesByName(query);
             return ResponseEntity.ok(matchingRecipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("search/rating/{rating}")
-    public ResponseEntity<?> getRecipesByAverageRatingGreaterThan(@PathVariable Double rating) {
+    public ResponseEntity<?> getRecipesByAverageRatingGreaterThan(@PathVariable Double rating,
+                                                                  @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                                  @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                                  @RequestParam(value = "after", required = false) String after,
+                                                                  @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<Recipe> recipes = recipeService.getRecipesByRatingGreaterThan(rating);
+            RecipeQuery query = page(sort, direction, after, limit).minRating(rating).build();
+            CursorPage<RecipeSummary> recipes = recipeService.getRecipesByRatingGreaterThan(query);
             return ResponseEntity.ok(recipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //the n best rated recipes, ranked by average, bayesian or wilson score
+    @GetMapping("/top")
+    public ResponseEntity<?> getTopRecipes(@RequestParam(value = "n", defaultValue = "10") int n,
+                                           @RequestParam(value = "rank", defaultValue = "average") String rank) {
+        try {
+            return ResponseEntity.ok(recipeService.getTopRecipes(RecipeRanking.fromParameter(rank), n));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //recipes scoring between min and max, both inclusive and optional, best first unless direction is asc
+    @GetMapping("/rating")
+    public ResponseEntity<?> getRecipesByRatingRange(@RequestParam(value = "min", required = false) Double min,
+                                                     @RequestParam(value = "max", required = false) Double max,
+                                                     @RequestParam(value = "rank", defaultValue = "average") String rank,
+                                                     @RequestParam(value = "direction", defaultValue = "desc") String direction,
+                                                     @RequestParam(value = "after", required = false) String after,
+                                                     @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+                throw new InvalidArgumentException("Direction must be asc or desc");
+            }
+            RatingRangeQuery query = RatingRangeQuery.builder()
+                    .ranking(RecipeRanking.fromParameter(rank))
+                    .min(min)
+                    .max(max)
+                    .descending(direction.equalsIgnoreCase("desc"))
+                    .after(after)
+                    .limit(limit)
+                    .build();
+            return ResponseEntity.ok(recipeService.getRecipesByRatingRange(query));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("search/name/{name}/max-difficulty/{difficulty}")
     public ResponseEntity<?> getRecipesByNameAndMaxDifficulty(@PathVariable String name,
-                                                              @PathVariable int difficultyRating) {
+                                                              @PathVariable("difficulty") int difficultyRating,
+                                                              @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                              @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                              @RequestParam(value = "after", required = false) String after,
+                                                              @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<Recipe> recipes = recipeService.getRecipesByNameWithMaxDifficulty(name, difficultyRating);
+            RecipeQuery query = page(sort, direction, after, limit).name(name).maxDifficulty(difficultyRating).build();
+            CursorPage<RecipeSummary> recipes = recipeService.getRecipesByNameWithMaxDifficulty(query);
             return ResponseEntity.ok(recipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("search/username/{username}")
-    public ResponseEntity<?> getRecipesByUsername(@PathVariable String username) {
+    public ResponseEntity<?> getRecipesByUsername(@PathVariable String username,
+                                                  @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                  @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                  @RequestParam(value = "after", required = false) String after,
+                                                  @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<Recipe> recipes = recipeService.getRecipesByUsername(username);
+            RecipeQuery query = page(sort, direction, after, limit).username(username).build();
+            CursorPage<RecipeSummary> recipes = recipeService.getRecipesByUsername(query);
             return ResponseEntity.accepted().body(recipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (InvalidArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -110,12 +367,32 @@ public class RecipeController {
 
     @PatchMapping
     @PreAuthorize("hasPermission(#updatedRecipe.id, 'Recipe', 'edit')")
-    public ResponseEntity<?> updateRecipe(@RequestBody Recipe updatedRecipe) {
+    public ResponseEntity<?> updateRecipe(@RequestBody Recipe updatedRecipe,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Recipe returnedUpdatedRecipe = recipeService.updateRecipe(updatedRecipe, true);
-            return ResponseEntity.ok(returnedUpdatedRecipe);
+            Recipe returnedUpdatedRecipe = recipeService.updateRecipe(updatedRecipe, ifMatch);
+            return ResponseEntity.ok()
+                    .eTag(CachedRecipe.from(returnedUpdatedRecipe).getEtag())
+                    .body(returnedUpdatedRecipe);
         } catch (NoSuchRecipeException | InvalidArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            //someone else changed the recipe between our read and our write
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED)
+                    .body("The recipe was changed by another request. Fetch it again and retry.");
+        }
+    }
+
+    private RecipeQuery.RecipeQueryBuilder page(String sort, String direction, String after, int limit) throws InvalidArgumentException {
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            throw new InvalidArgumentException("Direction must be asc or desc");
         }
+        return RecipeQuery.builder()
+                .sort(RecipeSortField.fromParameter(sort))
+                .descending(direction.equalsIgnoreCase("desc"))
+                .after(after)
+                .limit(limit);
     }
 }
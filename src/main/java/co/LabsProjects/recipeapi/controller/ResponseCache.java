@@ -0,0 +1,174 @@
+package co.LabsProjects.recipeapi.controller;
+
+import co.LabsProjects.recipeapi.model.CachedResponse;
+import co.LabsProjects.recipeapi.model.EntityTag;
+import co.LabsProjects.recipeapi.model.EntityTags;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+//caches the finished JSON of single-resource GET responses, with ETag, Last-Modified, Cache-Control and a
+//Surrogate-Key naming the resources they depend on
+@Component
+public class ResponseCache {
+
+    public static final String CACHE = "responses";
+
+    public static final String SURROGATE_KEY = "Surrogate-Key";
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    //bodies smaller than this are only kept as plain JSON
+    @Value("${recipe-api.response-cache.gzip-min-bytes:1024}")
+    int gzipMinBytes;
+
+    @Value("${recipe-api.http.max-age-seconds:60}")
+    long maxAgeSeconds;
+
+    //for shared caches, which are purged by surrogate key on change and can keep responses longer
+    @Value("${recipe-api.http.shared-max-age-seconds:3600}")
+    long sharedMaxAgeSeconds;
+
+    public static String recipeSurrogateKey(long recipeId) {
+        return "recipe-" + recipeId;
+    }
+
+    public static String reviewSurrogateKey(long reviewId) {
+        return "review-" + reviewId;
+    }
+
+    public static String recipeKey(long recipeId) {
+        return "recipe:" + recipeId;
+    }
+
+    public static String reviewKey(long reviewId) {
+        return "review:" + reviewId;
+    }
+
+    public static String recipeReviewsKey(long recipeId) {
+        return "recipeReviews:" + recipeId;
+    }
+
+    //the cached response, or null when there is none and the controller has to load the body itself
+    public ResponseEntity<byte[]> find(String key, String acceptEncoding) {
+        CachedResponse response = cacheManager.getCache(CACHE).get(key, CachedResponse.class);
+        return response == null ? null : toResponseEntity(response, acceptEncoding);
+    }
+
+    static boolean isConditional(HttpHeaders request) {
+        return !request.getIfNoneMatch().isEmpty() || ifModifiedSince(request) >= 0;
+    }
+
+    //a 304 when the request's validators match the current ones, or null when the response has to be rendered
+    public ResponseEntity<byte[]> notModified(HttpHeaders request, EntityTag current, String surrogateKeys) {
+        String etag = null;
+        if (!request.getIfNoneMatch().isEmpty()) {
+            etag = EntityTags.matchingNoneMatch(request.getIfNoneMatch(), current.getEtag());
+            if (etag == null) {
+                return null;
+            }
+        } else if (current.getLastModified() <= 0
+                || current.getLastModified() / 1000 > ifModifiedSince(request) / 1000) {
+            //If-Modified-Since is only consulted without If-None-Match, and has a precision of seconds
+            return null;
+        }
+        ResponseEntity.BodyBuilder builder = headers(ResponseEntity.status(HttpStatus.NOT_MODIFIED), surrogateKeys);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        if (current.getLastModified() > 0) {
+            builder.lastModified(current.getLastModified());
+        }
+        return builder.build();
+    }
+
+    public ResponseEntity<byte[]> store(String key, Object body, String etag, long lastModified, String surrogateKeys,
+                                        String acceptEncoding) {
+        CachedResponse response = render(body, etag, lastModified, surrogateKeys);
+        cacheManager.getCache(CACHE).put(key, response);
+        return toResponseEntity(response, acceptEncoding);
+    }
+
+    CachedResponse render(Object body, String etag, long lastModified, String surrogateKeys) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(json, json.length >= gzipMinBytes ? gzip(json) : null, etag, lastModified,
+                    surrogateKeys);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render the response body", e);
+        }
+    }
+
+    private ResponseEntity<byte[]> toResponseEntity(CachedResponse response, String acceptEncoding) {
+        boolean gzip = response.getGzip() != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder builder = headers(ResponseEntity.ok(), response.getSurrogateKeys())
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(gzip ? response.getEtag() + EntityTags.GZIP_SUFFIX : response.getEtag());
+        if (response.getLastModified() > 0) {
+            builder.lastModified(response.getLastModified());
+        }
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+        }
+        return builder.body(response.getJson());
+    }
+
+    //-1 when absent or not a date, which Spring's own check ignores as well
+    private static long ifModifiedSince(HttpHeaders request) {
+        try {
+            return request.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder builder, String surrogateKeys) {
+        return builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS)
+                        .sMaxAge(sharedMaxAgeSeconds, TimeUnit.SECONDS)
+                        .cachePublic())
+                .header(SURROGATE_KEY, surrogateKeys);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                //gzip;q=0 means the client explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -3,16 +3,25 @@ package co.LabsProjects.recipeapi.controller;
 import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
 import co.LabsProjects.recipeapi.exception.NoSuchRecipeException;
 import co.LabsProjects.recipeapi.exception.NoSuchReviewException;
+import co.LabsProjects.recipeapi.exception.PreconditionFailedException;
+import co.LabsProjects.recipeapi.model.CachedReview;
+import co.LabsProjects.recipeapi.model.CursorPage;
 import co.LabsProjects.recipeapi.model.CustomUserDetails;
-import co.LabsProjects.recipeapi.model.Recipe;
 import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.service.BulkImportService;
 import co.LabsProjects.recipeapi.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -22,44 +31,75 @@ public class ReviewController {
     @Autowired
     ReviewService reviewService;
 
+    @Autowired
+    ResponseCache responseCache;
+
+    @Autowired
+    BulkImportService bulkImportService;
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getReviewById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> getReviewById(@PathVariable("id") Long id,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            Review retrievedReview = reviewService.getReviewById(id);
-            return ResponseEntity.ok(retrievedReview);
+            ResponseEntity<byte[]> cached = responseCache.find(ResponseCache.reviewKey(id), acceptEncoding);
+            if (cached != null) {
+                return cached;
+            }
+            CachedReview review = reviewService.getReviewById(id);
+            return responseCache.store(ResponseCache.reviewKey(id), review, review.etag(), review.getLastModified(),
+                    ResponseCache.reviewSurrogateKey(id) + " " + ResponseCache.recipeSurrogateKey(review.getRecipeId()),
+                    acceptEncoding);
         } catch (IllegalStateException | NoSuchReviewException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("/recipe/{recipeId}")
-    public ResponseEntity<?> getReviewByRecipeId(@PathVariable("recipeId") Long recipeId) {
+    public ResponseEntity<?> getReviewByRecipeId(@PathVariable("recipeId") Long recipeId,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<Review> reviews = reviewService.getReviewByRecipeId(recipeId);
-            return ResponseEntity.ok(reviews);
+            ResponseEntity<byte[]> cached = responseCache.find(ResponseCache.recipeReviewsKey(recipeId), acceptEncoding);
+            if (cached != null) {
+                return cached;
+            }
+            List<CachedReview> reviews = reviewService.getReviewByRecipeId(recipeId);
+            return responseCache.store(ResponseCache.recipeReviewsKey(recipeId), reviews, CachedReview.etagOf(reviews),
+                    CachedReview.lastModifiedOf(reviews), ResponseCache.recipeSurrogateKey(recipeId), acceptEncoding);
         } catch (NoSuchRecipeException | NoSuchReviewException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("/user/{username}")
-    public ResponseEntity<?> getReviewByUsername(@PathVariable("username") String username) {
+    public ResponseEntity<?> getReviewByUsername(@PathVariable("username") String username,
+                                                 @RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<Review> reviews = reviewService.getReviewByUsername(username);
+            CursorPage<CachedReview> reviews = reviewService.getReviewByUsername(username, after, limit);
             return ResponseEntity.ok(reviews);
-        } catch (NoSuchReviewException e) {
+        } catch (NoSuchReviewException | InvalidArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    //newline delimited JSON, one review with its recipeId per line
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importReviews(InputStream body, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(bulkImportService.importReviews(body, (CustomUserDetails) authentication.getPrincipal()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read the request body: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/{recipeId}")
     public ResponseEntity<?> postNewReview(@RequestBody Review review,
                                            @PathVariable("recipeId") Long recipeId,
                                            Authentication authentication) {
         try {
             review.setUser((CustomUserDetails) authentication.getPrincipal());
-            Recipe insertedRecipe = reviewService.postNewReview(review, recipeId);
-            return ResponseEntity.created(insertedRecipe.getLocationURI()).body(insertedRecipe);
+            Review insertedReview = reviewService.postNewReview(review, recipeId);
+            return ResponseEntity.created(insertedReview.getLocationURI()).body(insertedReview);
         } catch (NoSuchRecipeException | InvalidArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -71,19 +111,26 @@ public class ReviewController {
         try {
             Review review = reviewService.deleteReviewById(id);
             return ResponseEntity.ok(review);
-        } catch (NoSuchReviewException | NoSuchRecipeException | InvalidArgumentException e) {
+        } catch (NoSuchReviewException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @PatchMapping
     @PreAuthorize("hasPermission(#reviewToUpdate.id, 'Review', 'edit')")
-    public ResponseEntity<?> updateReviewById(@RequestBody Review reviewToUpdate) {
+    public ResponseEntity<?> updateReviewById(@RequestBody Review reviewToUpdate,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Review review = reviewService.updateReviewById(reviewToUpdate);
-            return ResponseEntity.ok(review);
-        } catch (NoSuchReviewException | NoSuchRecipeException | InvalidArgumentException e) {
+            Review review = reviewService.updateReviewById(reviewToUpdate, ifMatch);
+            return ResponseEntity.ok().eTag(CachedReview.from(review).etag()).body(review);
+        } catch (NoSuchReviewException | InvalidArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            //someone else changed the review between our read and our write
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED)
+                    .body("The review was changed by another request. Fetch it again and retry.");
         }
     }
 }
@@ -0,0 +1,53 @@
+package co.LabsProjects.recipeapi.controller;
+
+import co.LabsProjects.recipeapi.model.AccessToken;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.TokenResponse;
+import co.LabsProjects.recipeapi.service.AccessTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/token")
+public class TokenController {
+
+    @Autowired
+    AccessTokenService accessTokenService;
+
+    //exchange HTTP Basic credentials for an access token, this is the only request that pays for BCrypt
+    @PostMapping
+    public ResponseEntity<?> createToken(Authentication authentication) {
+        if (authentication.getCredentials() instanceof AccessToken) {
+            return ResponseEntity.badRequest().body("Use /token/refresh to renew an access token");
+        }
+        String token = accessTokenService.issue((CustomUserDetails) authentication.getPrincipal());
+        return ResponseEntity.ok(new TokenResponse(token, "Bearer", accessTokenService.getTtlSeconds()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(Authentication authentication) {
+        if (!(authentication.getCredentials() instanceof AccessToken)) {
+            return ResponseEntity.badRequest().body("Only an access token can be refreshed");
+        }
+        try {
+            String token = accessTokenService.refresh((AccessToken) authentication.getCredentials());
+            return ResponseEntity.ok(new TokenResponse(token, "Bearer", accessTokenService.getTtlSeconds()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(401).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revokeToken(Authentication authentication) {
+        if (!(authentication.getCredentials() instanceof AccessToken)) {
+            return ResponseEntity.badRequest().body("Only an access token can be revoked");
+        }
+        accessTokenService.revoke((AccessToken) authentication.getCredentials());
+        return ResponseEntity.ok("The access token has been revoked.");
+    }
+}
@@ -1,14 +1,17 @@
 package co.LabsProjects.recipeapi.controller;
 
 import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Role;
 import co.LabsProjects.recipeapi.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 public class UserController {
@@ -18,7 +21,8 @@ public class UserController {
 
     @GetMapping("/user")
     public CustomUserDetails getUser(Authentication authentication) {
-        return (CustomUserDetails) authentication.getPrincipal();
+        //the principal may come from the principal cache or a token, neither carries the UserMeta
+        return userDetailsService.getUser(authentication.getName());
     }
 
     @PostMapping("/user")
@@ -31,4 +35,24 @@ public class UserController {
             return ResponseEntity.status(500).body(e.getMessage());
         }
     }
+
+    @PatchMapping("/user/password")
+    public ResponseEntity<?> changePassword(@RequestBody Map<String, String> body, Authentication authentication) {
+        try {
+            userDetailsService.changePassword(authentication.getName(), body.get("password"));
+            return ResponseEntity.ok("Your password has been changed.");
+        } catch (IllegalStateException | EntityNotFoundException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/user/{id}/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateRoles(@PathVariable("id") Long id, @RequestBody List<Role.Roles> roles) {
+        try {
+            return ResponseEntity.ok(userDetailsService.updateRoles(id, roles));
+        } catch (IllegalStateException | EntityNotFoundException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package co.LabsProjects.recipeapi.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+//published once per committed chunk of a bulk import, so a chunk clears the shared caches once
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkImportedEvent implements Serializable {
+
+    private final List<Long> recipeIds;
+
+    private final List<Long> reviewIds;
+
+    //recipes whose reviews and rating changed
+    private final Set<Long> reviewedRecipeIds;
+
+    //the user that imported, and so authored, every recipe or review
+    private final long userId;
+
+    private final String username;
+
+    public static BulkImportedEvent recipes(List<Long> recipeIds, long userId, String username) {
+        return new BulkImportedEvent(recipeIds, Collections.emptyList(), Collections.emptySet(), userId, username);
+    }
+
+    public static BulkImportedEvent reviews(List<Long> reviewIds, Set<Long> reviewedRecipeIds, long userId, String username) {
+        return new BulkImportedEvent(Collections.emptyList(), reviewIds, reviewedRecipeIds, userId, username);
+    }
+}
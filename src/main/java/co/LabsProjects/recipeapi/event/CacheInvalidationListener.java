@@ -0,0 +1,145 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.controller.ResponseCache;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//removes the cache entries a committed write affects, on the node that made it: single entries are replaced by
+//tombstones (see GuardedCache), pages are removed by key and content and removed again a little later
+@Component
+public class CacheInvalidationListener {
+
+    public static final String RECIPES = "recipes";
+
+    public static final String RECIPE_PAGES = "recipePages";
+
+    public static final String REVIEWS = "reviews";
+
+    public static final String REVIEW_PAGES = "reviewPages";
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    TaskScheduler taskScheduler;
+
+    @Value("${recipe-api.cache.re-evict-delay-ms:2000}")
+    long reEvictDelayMs;
+
+    //removals to repeat at the next run of repeatRemovals, by cache
+    private final Map<String, List<Predicate<Object, Object>>> repeats = new HashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.getRecipeId() == null) {
+            remove(RECIPES, Predicates.alwaysTrue());
+            remove(ResponseCache.CACHE, Predicates.alwaysTrue());
+            remove(RECIPE_PAGES, Predicates.alwaysTrue());
+            return;
+        }
+        long recipeId = event.getRecipeId();
+        if (event.getType() != RecipeChangedEvent.Type.CREATED) {
+            cache(RECIPES).evict(recipeId);
+            cache(ResponseCache.CACHE).evict(ResponseCache.recipeKey(recipeId));
+            cache(ResponseCache.CACHE).evict(ResponseCache.recipeReviewsKey(recipeId));
+        }
+        if (event.getType() == RecipeChangedEvent.Type.RATED) {
+            remove(RECIPE_PAGES, RecipePagePredicate.rated(Set.of(recipeId)));
+        } else {
+            //only events published on this node carry the recipe, without it pages of every user can be affected
+            String author = event.getRecipe() == null ? null : event.getRecipe().getAuthor();
+            remove(RECIPE_PAGES, RecipePagePredicate.changed(recipeId, author));
+        }
+        event.getDeletedReviews().forEach((reviewId, username) -> {
+            cache(REVIEWS).evict(reviewId);
+            cache(ResponseCache.CACHE).evict(ResponseCache.reviewKey(reviewId));
+            evictReviewPagesOf(username);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getType() != ReviewChangedEvent.Type.CREATED) {
+            cache(REVIEWS).evict(event.getReviewId());
+            cache(ResponseCache.CACHE).evict(ResponseCache.reviewKey(event.getReviewId()));
+        }
+        //the cached recipe embeds its reviews and rating, which also serves the reviews of a recipe
+        cache(RECIPES).evict(event.getRecipeId());
+        cache(ResponseCache.CACHE).evict(ResponseCache.recipeKey(event.getRecipeId()));
+        cache(ResponseCache.CACHE).evict(ResponseCache.recipeReviewsKey(event.getRecipeId()));
+        remove(RECIPE_PAGES, RecipePagePredicate.rated(Set.of(event.getRecipeId())));
+        evictReviewPagesOf(event.getUsername());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkImported(BulkImportedEvent event) {
+        event.getReviewedRecipeIds().forEach(recipeId -> {
+            cache(RECIPES).evict(recipeId);
+            cache(ResponseCache.CACHE).evict(ResponseCache.recipeKey(recipeId));
+            cache(ResponseCache.CACHE).evict(ResponseCache.recipeReviewsKey(recipeId));
+        });
+        if (!event.getRecipeIds().isEmpty()) {
+            remove(RECIPE_PAGES, RecipePagePredicate.created(event.getUsername()));
+        }
+        if (!event.getReviewedRecipeIds().isEmpty()) {
+            remove(RECIPE_PAGES, RecipePagePredicate.rated(event.getReviewedRecipeIds()));
+        }
+        if (!event.getReviewIds().isEmpty()) {
+            evictReviewPagesOf(event.getUsername());
+        }
+    }
+
+    //review pages are keyed by username, cursor and limit, so only this user's pages need to go
+    private void evictReviewPagesOf(String username) {
+        remove(REVIEW_PAGES, new KeyPrefixPredicate(username + ":"));
+    }
+
+    //these removals leave no tombstones, so each is repeated once after the delay, together with any others due then
+    @SuppressWarnings("unchecked")
+    private void remove(String name, Predicate<Object, Object> predicate) {
+        Cache cache = cache(name);
+        if (!(cache.getNativeCache() instanceof IMap)) {
+            cache.clear();
+            return;
+        }
+        ((IMap<Object, Object>) cache.getNativeCache()).removeAll(predicate);
+        boolean schedule;
+        synchronized (repeats) {
+            schedule = repeats.isEmpty();
+            repeats.computeIfAbsent(name, n -> new ArrayList<>()).add(predicate);
+        }
+        if (schedule) {
+            taskScheduler.schedule(this::repeatRemovals, Instant.now().plusMillis(reEvictDelayMs));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void repeatRemovals() {
+        Map<String, List<Predicate<Object, Object>>> due;
+        synchronized (repeats) {
+            due = new HashMap<>(repeats);
+            repeats.clear();
+        }
+        due.forEach((name, predicates) -> ((IMap<Object, Object>) cache(name).getNativeCache())
+                .removeAll(Predicates.or(predicates.toArray(new Predicate[0]))));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
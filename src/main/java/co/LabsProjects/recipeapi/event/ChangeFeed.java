@@ -0,0 +1,385 @@
+package co.LabsProjects.recipeapi.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.Message;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+//pushes recipe and review changes from every node to the Server-Sent Event subscribers of both stream endpoints,
+//buffering the latest notice per entity and dropping subscribers that stop reading
+@Component
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    static final Notice RESYNC = new Notice("resync", "resync", "{}");
+
+    private static final Notice HEARTBEAT = new Notice("heartbeat", null, null);
+
+    @Autowired
+    @Qualifier("hazelcastClient")
+    HazelcastInstance hazelcastClient;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${recipe-api.stream.max-subscribers:50000}")
+    int maxSubscribers;
+
+    @Value("${recipe-api.stream.buffer-size:64}")
+    int bufferSize;
+
+    @Value("${recipe-api.stream.writer-threads:4}")
+    int writerThreads;
+
+    @Value("${recipe-api.stream.heartbeat-seconds:30}")
+    long heartbeatSeconds;
+
+    @Value("${recipe-api.stream.timeout-ms:1800000}")
+    long timeoutMs;
+
+    @Value("${recipe-api.stream.write-timeout-ms:5000}")
+    long writeTimeoutMs;
+
+    //subscribers to every recipe, and to single recipes by recipe id
+    private final Set<Subscriber> everything = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> byRecipe = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    //subscribers a writer is sending to right now
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService loop =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "change-feed"));
+
+    private ThreadPoolExecutor writers;
+
+    //writers stuck in a send to a dropped subscriber, each of which has been given a replacement
+    private int replacedWriters;
+
+    private UUID listenerId;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "change-feed-writer-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        listenerId = hazelcastClient.<ClusterEventRelay.Envelope>getTopic(ClusterEventRelay.TOPIC)
+                .addMessageListener(this::onMessage);
+        loop.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMs = Math.max(100, writeTimeoutMs / 4);
+        loop.scheduleAtFixedRate(this::dropStalled, checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        hazelcastClient.getTopic(ClusterEventRelay.TOPIC).removeMessageListener(listenerId);
+        loop.shutdownNow();
+        writers.shutdownNow();
+        everything.forEach(subscriber -> subscriber.emitter.complete());
+        byRecipe.values().forEach(recipeSubscribers -> recipeSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    //every recipe when recipeId is null, throws IllegalStateException once the node has max-subscribers of them
+    public SseEmitter subscribe(Long recipeId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new IllegalStateException("Too many subscribers, try again later.");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), recipeId, bufferSize);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        if (recipeId == null) {
+            everything.add(subscriber);
+        } else {
+            byRecipe.computeIfAbsent(recipeId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.decrementAndGet();
+        if (subscriber.recipeId == null) {
+            everything.remove(subscriber);
+        } else {
+            byRecipe.computeIfPresent(subscriber.recipeId, (id, recipeSubscribers) -> {
+                recipeSubscribers.remove(subscriber);
+                return recipeSubscribers.isEmpty() ? null : recipeSubscribers;
+            });
+        }
+    }
+
+    //runs on a Hazelcast client thread, which must not be held up
+    private void onMessage(Message<ClusterEventRelay.Envelope> message) {
+        Serializable event = message.getMessageObject().getEvent();
+        loop.execute(() -> {
+            try {
+                route(event);
+            } catch (RuntimeException e) {
+                log.warn("Could not stream {}", event, e);
+            }
+        });
+    }
+
+    private void route(Serializable event) {
+        if (event instanceof RecipeChangedEvent) {
+            RecipeChangedEvent change = (RecipeChangedEvent) event;
+            if (change.getRecipeId() == null) {
+                //any rating may have changed, cheaper for clients to reload than to be sent every recipe
+                deliverToAll(RESYNC);
+            } else {
+                deliver(change.getRecipeId(), recipeNotice(change.getType().name(), change.getRecipeId()));
+            }
+        } else if (event instanceof ReviewChangedEvent) {
+            ReviewChangedEvent change = (ReviewChangedEvent) event;
+            deliver(change.getRecipeId(), notice("review", "review:" + change.getReviewId(),
+                    new Payload(change.getType().name(), change.getRecipeId(), change.getReviewId())));
+        } else if (event instanceof BulkImportedEvent) {
+            BulkImportedEvent imported = (BulkImportedEvent) event;
+            imported.getRecipeIds().forEach(id -> deliver(id, recipeNotice(RecipeChangedEvent.Type.CREATED.name(), id)));
+            //one rating notice per recipe rather than one notice per imported review
+            imported.getReviewedRecipeIds().forEach(id -> deliver(id, recipeNotice(RecipeChangedEvent.Type.RATED.name(), id)));
+        }
+    }
+
+    private Notice recipeNotice(String type, long recipeId) {
+        return notice("recipe", "recipe:" + recipeId, new Payload(type, recipeId, null));
+    }
+
+    private Notice notice(String name, String key, Payload payload) {
+        try {
+            return new Notice(key, name, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deliver(long recipeId, Notice notice) {
+        everything.forEach(subscriber -> offer(subscriber, notice));
+        Set<Subscriber> recipeSubscribers = byRecipe.get(recipeId);
+        if (recipeSubscribers != null) {
+            recipeSubscribers.forEach(subscriber -> offer(subscriber, notice));
+        }
+    }
+
+    private void deliverToAll(Notice notice) {
+        everything.forEach(subscriber -> offer(subscriber, notice));
+        byRecipe.values().forEach(recipeSubscribers -> recipeSubscribers.forEach(subscriber -> offer(subscriber, notice)));
+    }
+
+    //idle connections are only noticed as closed when something is written to them
+    private void heartbeat() {
+        deliverToAll(HEARTBEAT);
+    }
+
+    private void offer(Subscriber subscriber, Notice notice) {
+        subscriber.offer(notice);
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> write(subscriber));
+        }
+    }
+
+    private void write(Subscriber subscriber) {
+        do {
+            for (Notice notice : subscriber.drain()) {
+                Exception failure = null;
+                subscriber.sendingSince = System.nanoTime();
+                subscriber.inSend.set(true);
+                sending.add(subscriber);
+                try {
+                    if (notice == HEARTBEAT) {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        subscriber.emitter.send(SseEmitter.event().name(notice.name).data(notice.json, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    //the client went away or the emitter already completed
+                    failure = e;
+                }
+                sending.remove(subscriber);
+                if (!subscriber.inSend.compareAndSet(true, false)) {
+                    //dropped while this send was blocked, another writer has taken this one's place meanwhile
+                    resizeWriters(-1);
+                    subscriber.emitter.completeWithError(
+                            failure != null ? failure : new IOException("Timed out writing to the subscriber"));
+                    return;
+                }
+                if (failure != null) {
+                    subscriber.emitter.completeWithError(failure);
+                    unsubscribe(subscriber);
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+            //a notice offered after the drain but before the flag was cleared is picked up here
+        } while (!subscriber.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    //drops subscribers whose send has been blocked past the write timeout, leaving the emitter to the stuck writer
+    private void dropStalled() {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        for (Subscriber subscriber : sending) {
+            //taking inSend tells the writer, once its send returns, that it has been replaced
+            if (now - subscriber.sendingSince > timeout && subscriber.inSend.compareAndSet(true, false)) {
+                log.info("Dropping a change stream subscriber that has not read for {} ms", writeTimeoutMs);
+                unsubscribe(subscriber);
+                resizeWriters(1);
+            }
+        }
+    }
+
+    //a replaced writer may return from its send before dropStalled has added its replacement, hence the counter
+    private synchronized void resizeWriters(int delta) {
+        replacedWriters += delta;
+        int size = Math.max(1, writerThreads + replacedWriters);
+        if (size > writers.getMaximumPoolSize()) {
+            writers.setMaximumPoolSize(size);
+            writers.setCorePoolSize(size);
+        } else {
+            writers.setCorePoolSize(size);
+            writers.setMaximumPoolSize(size);
+        }
+    }
+
+    @AllArgsConstructor
+    static class Notice {
+
+        //notices with the same key replace each other while they wait in a buffer
+        final String key;
+
+        final String name;
+
+        final String json;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Payload {
+
+        private final String type;
+
+        private final Long recipeId;
+
+        private final Long reviewId;
+    }
+
+    static class Subscriber {
+
+        final SseEmitter emitter;
+
+        final Long recipeId;
+
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        //set by a writer around each send, and cleared instead by dropStalled when the send takes too long
+        final AtomicBoolean inSend = new AtomicBoolean();
+
+        //System.nanoTime() when the current or last send began
+        volatile long sendingSince;
+
+        private final int capacity;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final LinkedHashMap<String, Notice> pending = new LinkedHashMap<>();
+
+        private boolean overflowed;
+
+        Subscriber(SseEmitter emitter, Long recipeId, int capacity) {
+            this.emitter = emitter;
+            this.recipeId = recipeId;
+            this.capacity = capacity;
+        }
+
+        void offer(Notice notice) {
+            lock.lock();
+            try {
+                if (overflowed) {
+                    return;
+                }
+                //re-inserted so the latest notice for a key is sent in the order of its latest change
+                pending.remove(notice.key);
+                pending.put(notice.key, notice);
+                if (pending.size() > capacity) {
+                    pending.clear();
+                    overflowed = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Notice> drain() {
+            lock.lock();
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    return List.of(RESYNC);
+                }
+                List<Notice> notices = new ArrayList<>(pending.values());
+                pending.clear();
+                return notices;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isEmpty() {
+            lock.lock();
+            try {
+                return !overflowed && pending.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
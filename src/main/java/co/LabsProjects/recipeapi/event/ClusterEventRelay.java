@@ -0,0 +1,157 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
+import co.LabsProjects.recipeapi.index.RatingIndex;
+import co.LabsProjects.recipeapi.index.RecipeIndex;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//forwards committed recipe and review events to the other nodes over a topic, applied in order on one thread
+@Component
+public class ClusterEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterEventRelay.class);
+
+    static final String TOPIC = "recipeEvents";
+
+    private final UUID nodeId = UUID.randomUUID();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "cluster-events"));
+
+    @Autowired
+    @Qualifier("hazelcastClient")
+    HazelcastInstance hazelcastClient;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    List<RecipeIndex> recipeIndexes;
+
+    @Autowired
+    OwnershipIndex ownershipIndex;
+
+    @Autowired
+    RatingIndex ratingIndex;
+
+    @Autowired
+    RecipeIndexListener indexListener;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private ITopic<Envelope> topic;
+
+    @PostConstruct
+    void connect() {
+        topic = hazelcastClient.getTopic(TOPIC);
+        topic.addMessageListener(this::onMessage);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void relay(RecipeChangedEvent event) {
+        topic.publish(new Envelope(nodeId, event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void relay(ReviewChangedEvent event) {
+        topic.publish(new Envelope(nodeId, event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void relay(BulkImportedEvent event) {
+        topic.publish(new Envelope(nodeId, event));
+    }
+
+    private void onMessage(Message<Envelope> message) {
+        Envelope envelope = message.getMessageObject();
+        if (nodeId.equals(envelope.getOrigin())) {
+            //this node updates its indexes from the local event
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (envelope.getEvent() instanceof RecipeChangedEvent) {
+                    apply((RecipeChangedEvent) envelope.getEvent());
+                } else if (envelope.getEvent() instanceof ReviewChangedEvent) {
+                    apply((ReviewChangedEvent) envelope.getEvent());
+                } else if (envelope.getEvent() instanceof BulkImportedEvent) {
+                    apply((BulkImportedEvent) envelope.getEvent());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} from node {}", envelope.getEvent(), envelope.getOrigin(), e);
+            }
+        });
+    }
+
+    private void apply(RecipeChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                reindex(event.getRecipeId());
+                break;
+            case DELETED:
+                indexListener.onRecipeChanged(event);
+                break;
+            case RATED:
+                ratingIndex.onRecipeChanged(event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void apply(ReviewChangedEvent event) {
+        indexListener.onReviewChanged(event);
+        ratingIndex.onReviewChanged(event);
+    }
+
+    private void apply(BulkImportedEvent event) {
+        event.getRecipeIds().forEach(this::reindex);
+        event.getReviewIds().forEach(reviewId -> ownershipIndex.putReviewOwner(reviewId, event.getUserId()));
+        ratingIndex.onBulkImported(event);
+    }
+
+    private void reindex(long recipeId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> recipeRepo.findDetailedById(recipeId).ifPresent(recipe -> {
+            recipe.initialize();
+            recipeIndexes.forEach(index -> index.index(recipe));
+        }));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Envelope implements Serializable {
+
+        private final UUID origin;
+
+        private final Serializable event;
+    }
+}
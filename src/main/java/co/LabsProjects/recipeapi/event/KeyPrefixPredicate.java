@@ -0,0 +1,20 @@
+package co.LabsProjects.recipeapi.event;
+
+import com.hazelcast.query.Predicate;
+
+import java.util.Map;
+
+//matches the entries of a map with String keys that start with the given prefix, evaluated on the members
+public class KeyPrefixPredicate implements Predicate<Object, Object> {
+
+    private final String prefix;
+
+    public KeyPrefixPredicate(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public boolean apply(Map.Entry<Object, Object> entry) {
+        return entry.getKey() instanceof String && ((String) entry.getKey()).startsWith(prefix);
+    }
+}
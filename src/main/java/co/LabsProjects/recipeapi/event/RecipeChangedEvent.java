@@ -0,0 +1,57 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.model.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+//published whenever a recipe or its rating changes, handled after commit here and on other nodes via the relay
+@Getter
+@ToString
+@AllArgsConstructor
+public class RecipeChangedEvent implements Serializable {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, RATED
+    }
+
+    private final Type type;
+
+    //null when the rating of any recipe may have changed
+    private final Long recipeId;
+
+    //reviews deleted along with the recipe, by review id to author username
+    private final Map<Long, String> deletedReviews;
+
+    //the created or updated recipe as saved, for this node's indexes; other nodes load it again
+    @ToString.Exclude
+    private final transient Recipe recipe;
+
+    public static RecipeChangedEvent created(Recipe recipe) {
+        return new RecipeChangedEvent(Type.CREATED, recipe.getId(), Collections.emptyMap(), recipe);
+    }
+
+    public static RecipeChangedEvent updated(Recipe recipe) {
+        return new RecipeChangedEvent(Type.UPDATED, recipe.getId(), Collections.emptyMap(), recipe);
+    }
+
+    public static RecipeChangedEvent updated(long recipeId) {
+        return new RecipeChangedEvent(Type.UPDATED, recipeId, Collections.emptyMap(), null);
+    }
+
+    public static RecipeChangedEvent deleted(long recipeId, Map<Long, String> deletedReviews) {
+        return new RecipeChangedEvent(Type.DELETED, recipeId, deletedReviews, null);
+    }
+
+    public static RecipeChangedEvent rated(long recipeId) {
+        return new RecipeChangedEvent(Type.RATED, recipeId, Collections.emptyMap(), null);
+    }
+
+    public static RecipeChangedEvent allRated() {
+        return new RecipeChangedEvent(Type.RATED, null, Collections.emptyMap(), null);
+    }
+}
@@ -0,0 +1,48 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
+import co.LabsProjects.recipeapi.index.RecipeIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+//applies committed recipe and review writes to this node's indexes, so a rolled back write never reaches them
+@Component
+public class RecipeIndexListener {
+
+    @Autowired
+    List<RecipeIndex> recipeIndexes;
+
+    @Autowired
+    OwnershipIndex ownershipIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                //only events published on this node carry the recipe
+                if (event.getRecipe() != null) {
+                    recipeIndexes.forEach(index -> index.index(event.getRecipe()));
+                }
+                break;
+            case DELETED:
+                recipeIndexes.forEach(index -> index.remove(event.getRecipeId()));
+                event.getDeletedReviews().keySet().forEach(ownershipIndex::removeReview);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getType() == ReviewChangedEvent.Type.CREATED) {
+            ownershipIndex.putReviewOwner(event.getReviewId(), event.getUserId());
+        } else if (event.getType() == ReviewChangedEvent.Type.DELETED) {
+            ownershipIndex.removeReview(event.getReviewId());
+        }
+    }
+}
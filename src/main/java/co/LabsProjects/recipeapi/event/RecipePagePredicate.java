@@ -0,0 +1,63 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.model.CursorPage;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import com.hazelcast.query.Predicate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+//matches the cached recipe pages a change to one recipe can affect, evaluated on the members: the pages that show
+//it, and those it can enter or move in, which are only the rated ones when just its rating changed
+public class RecipePagePredicate implements Predicate<Object, Object> {
+
+    private final Set<Long> recipeIds;
+
+    private final boolean ratingOnly;
+
+    //user segment of the pages the recipes can enter, null when their author is not known
+    private final String userKey;
+
+    private RecipePagePredicate(Collection<Long> recipeIds, boolean ratingOnly, String userKey) {
+        this.recipeIds = new HashSet<>(recipeIds);
+        this.ratingOnly = ratingOnly;
+        this.userKey = userKey;
+    }
+
+    public static RecipePagePredicate rated(Collection<Long> recipeIds) {
+        return new RecipePagePredicate(recipeIds, true, null);
+    }
+
+    public static RecipePagePredicate changed(long recipeId, String author) {
+        return new RecipePagePredicate(Set.of(recipeId), false, author == null ? null : RecipeQuery.userKey(author));
+    }
+
+    //new recipes are on no page yet
+    public static RecipePagePredicate created(String author) {
+        return new RecipePagePredicate(Set.of(), false, RecipeQuery.userKey(author));
+    }
+
+    @Override
+    public boolean apply(Map.Entry<Object, Object> entry) {
+        if (!(entry.getKey() instanceof String)) {
+            return true;
+        }
+        String key = (String) entry.getKey();
+        if (ratingOnly ? key.startsWith(RecipeQuery.RATED_KEY) : mayEnter(RecipeQuery.userKeyOf(key))) {
+            return true;
+        }
+        if (recipeIds.isEmpty()) {
+            return false;
+        }
+        //only deserialized when the key alone does not decide
+        return entry.getValue() instanceof CursorPage && ((CursorPage<?>) entry.getValue()).getItems().stream()
+                .anyMatch(item -> item instanceof RecipeSummary && recipeIds.contains(((RecipeSummary) item).getId()));
+    }
+
+    private boolean mayEnter(String pageUser) {
+        return userKey == null || pageUser.equals(RecipeQuery.ANY_USER) || pageUser.equals(userKey);
+    }
+}
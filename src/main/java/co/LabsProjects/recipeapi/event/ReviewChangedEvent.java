@@ -0,0 +1,28 @@
+package co.LabsProjects.recipeapi.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+//published whenever a review is created, changed or deleted, which changes its recipe as well
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReviewChangedEvent implements Serializable {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final long reviewId;
+
+    private final long recipeId;
+
+    private final long userId;
+
+    private final String username;
+}
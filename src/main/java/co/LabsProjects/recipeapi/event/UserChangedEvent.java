@@ -0,0 +1,16 @@
+package co.LabsProjects.recipeapi.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+//published whenever a user's password or roles change, listeners run once the change has committed
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final long userId;
+
+    private final String username;
+}
@@ -0,0 +1,11 @@
+package co.LabsProjects.recipeapi.exception;
+
+public class PreconditionFailedException extends Exception {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException() {
+    }
+}
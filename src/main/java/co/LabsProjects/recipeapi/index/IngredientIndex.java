@@ -0,0 +1,298 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//ingredient to recipe ids as Roaring bitmaps, filed under the normalized name and each of its words
+@Component
+public class IngredientIndex implements RecipeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientIndex.class);
+
+    //recipe ids read by one query of a rebuild
+    static final long RANGE_WIDTH = 10_000;
+
+    //0 uses one worker per core
+    @Value("${recipe-api.ingredient-index.rebuild-threads:0}")
+    int rebuildThreads;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    private Map<String, Roaring64NavigableMap> postings = new HashMap<>();
+
+    //every indexed recipe, what an exclude-only query starts from
+    private Roaring64NavigableMap recipes = new Roaring64NavigableMap();
+
+    //what was indexed for each recipe, needed to take it out again on update or delete
+    private Map<Long, Set<String>> recipeTerms = new HashMap<>();
+
+    //writes seen while a rebuild runs, by recipe id, with null for a removal
+    private Map<Long, Set<String>> writesDuringRebuild;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            recipes = new Roaring64NavigableMap();
+            recipeTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        Set<String> terms = new HashSet<>();
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                terms.addAll(terms(ingredient.getName()));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            put(recipe.getId(), terms);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(recipe.getId(), terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeRecipe(recipeId);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(recipeId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //up to limit ids above after of the recipes with every ingredient in include, one in any and none in exclude
+    public List<Long> search(Collection<String> include, Collection<String> any, Collection<String> exclude,
+                             long after, int limit) {
+        Roaring64NavigableMap matches;
+        lock.readLock().lock();
+        try {
+            matches = copy(include.isEmpty() && any.isEmpty() ? recipes : null);
+            for (String name : include) {
+                Roaring64NavigableMap posting = postings.get(normalize(name));
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                if (matches == null) {
+                    matches = copy(posting);
+                } else {
+                    matches.and(posting);
+                }
+            }
+            if (!any.isEmpty()) {
+                Roaring64NavigableMap union = new Roaring64NavigableMap();
+                for (String name : any) {
+                    Roaring64NavigableMap posting = postings.get(normalize(name));
+                    if (posting != null) {
+                        union.or(posting);
+                    }
+                }
+                if (matches == null) {
+                    matches = union;
+                } else {
+                    matches.and(union);
+                }
+            }
+            for (String name : exclude) {
+                Roaring64NavigableMap posting = postings.get(normalize(name));
+                if (posting != null) {
+                    matches.andNot(posting);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        //rank and select skip straight to the page instead of walking the matches before it
+        List<Long> ids = new ArrayList<>();
+        long cardinality = matches.getLongCardinality();
+        for (long i = after > 0 ? matches.rankLong(after) : 0; i < cardinality && ids.size() < limit; i++) {
+            ids.add(matches.select(i));
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return recipeTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //reloads the index from the database in ranges of RANGE_WIDTH ids, one worker per core, and returns the count
+    public int rebuild() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            if (writesDuringRebuild != null) {
+                throw new IllegalStateException("The ingredient index is already being rebuilt");
+            }
+            writesDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> new Thread(r, "ingredient-index-rebuild"));
+        IngredientIndex rebuilt = new IngredientIndex();
+        try {
+            long highestId = recipeRepo.findMaxId().orElse(0L);
+            List<Future<IngredientIndex>> ranges = new ArrayList<>();
+            for (long after = 0; after < highestId; after += RANGE_WIDTH) {
+                long from = after;
+                ranges.add(workers.submit(() -> load(from, Math.min(from + RANGE_WIDTH, highestId))));
+            }
+            for (Future<IngredientIndex> range : ranges) {
+                rebuilt.merge(range.get());
+            }
+        } catch (ExecutionException e) {
+            abandonRebuild();
+            //the workers only run queries, so whatever they threw is unchecked
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } catch (InterruptedException | RuntimeException e) {
+            abandonRebuild();
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+        rebuilt.postings.values().forEach(Roaring64NavigableMap::runOptimize);
+
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt.postings;
+            recipes = rebuilt.recipes;
+            recipeTerms = rebuilt.recipeTerms;
+            writesDuringRebuild.forEach((recipeId, terms) -> {
+                if (terms == null) {
+                    removeRecipe(recipeId);
+                } else {
+                    put(recipeId, terms);
+                }
+            });
+            writesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Rebuilt the ingredient index of {} recipes with {} threads in {} ms", rebuilt.recipeTerms.size(),
+                threads, System.currentTimeMillis() - start);
+        return rebuilt.recipeTerms.size();
+    }
+
+    //the terms an ingredient is filed under
+    static Set<String> terms(String name) {
+        Set<String> terms = new HashSet<>(RecipeSearchIndex.tokenize(name));
+        String normalized = normalize(name);
+        if (!normalized.isEmpty()) {
+            terms.add(normalized);
+        }
+        return terms;
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    //one range of a rebuild, indexed into a private instance that needs no locking
+    private IngredientIndex load(long after, long upTo) {
+        IngredientIndex range = new IngredientIndex();
+        for (Object[] row : recipeRepo.findIngredientNamesBetween(after, upTo)) {
+            long recipeId = (Long) row[0];
+            range.recipes.addLong(recipeId);
+            Set<String> terms = range.recipeTerms.computeIfAbsent(recipeId, id -> new HashSet<>());
+            if (row[1] != null) {
+                for (String term : terms((String) row[1])) {
+                    if (terms.add(term)) {
+                        range.postings.computeIfAbsent(term, t -> new Roaring64NavigableMap()).addLong(recipeId);
+                    }
+                }
+            }
+        }
+        return range;
+    }
+
+    private void merge(IngredientIndex range) {
+        range.postings.forEach((term, posting) -> postings.computeIfAbsent(term, t -> new Roaring64NavigableMap()).or(posting));
+        recipes.or(range.recipes);
+        recipeTerms.putAll(range.recipeTerms);
+    }
+
+    private void abandonRebuild() {
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long recipeId, Set<String> terms) {
+        removeRecipe(recipeId);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> new Roaring64NavigableMap()).addLong(recipeId);
+        }
+        recipes.addLong(recipeId);
+        recipeTerms.put(recipeId, terms);
+    }
+
+    private void removeRecipe(long recipeId) {
+        Set<String> previous = recipeTerms.remove(recipeId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            Roaring64NavigableMap posting = postings.get(term);
+            if (posting != null) {
+                posting.removeLong(recipeId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        recipes.removeLong(recipeId);
+    }
+
+    private static Roaring64NavigableMap copy(Roaring64NavigableMap source) {
+        if (source == null) {
+            return null;
+        }
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(source);
+        return copy;
+    }
+}
@@ -0,0 +1,204 @@
+package co.LabsProjects.recipeapi.index;
+
+import java.util.concurrent.locks.StampedLock;
+
+//concurrent long to long map without boxing, in striped open-addressing tables; key 0 marks empty slots
+public final class LongLongMap {
+
+    private static final int STRIPE_BITS = 4;
+
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    public LongLongMap() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public long get(long key, long absent) {
+        return stripe(key).get(key, absent);
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 cannot be stored");
+        }
+        stripe(key).put(key, value);
+    }
+
+    public void remove(long key) {
+        stripe(key).remove(key);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private Stripe stripe(long key) {
+        //the top bits pick the stripe, the low bits pick the slot inside it
+        return stripes[(int) (mix(key) >>> (64 - STRIPE_BITS))];
+    }
+
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final StampedLock lock = new StampedLock();
+
+        //keys at even and values at odd positions, one array so a reader never sees two of different lengths
+        private long[] table = new long[INITIAL_CAPACITY * 2];
+
+        private int size;
+
+        long get(long key, long absent) {
+            long stamp = lock.tryOptimisticRead();
+            long value = find(table, key, absent);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key, absent);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long key, long value) {
+            long stamp = lock.writeLock();
+            try {
+                if (size + 1 > (table.length >>> 1) * LOAD_FACTOR) {
+                    table = resize(table);
+                }
+                if (insert(table, key, value)) {
+                    size++;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key) {
+            long stamp = lock.writeLock();
+            try {
+                if (delete(table, key)) {
+                    size--;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new long[INITIAL_CAPACITY * 2];
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static long find(long[] table, long key, long absent) {
+            int mask = (table.length >>> 1) - 1;
+            int slot = (int) mix(key) & mask;
+            //bounded so that a torn optimistic read can never spin forever
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = table[slot << 1];
+                if (candidate == key) {
+                    return table[(slot << 1) + 1];
+                }
+                if (candidate == EMPTY) {
+                    return absent;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return absent;
+        }
+
+        //returns true when the key was not present before
+        private static boolean insert(long[] table, long key, long value) {
+            int mask = (table.length >>> 1) - 1;
+            int slot = (int) mix(key) & mask;
+            while (true) {
+                long candidate = table[slot << 1];
+                if (candidate == EMPTY || candidate == key) {
+                    table[slot << 1] = key;
+                    table[(slot << 1) + 1] = value;
+                    return candidate == EMPTY;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static long[] resize(long[] table) {
+            long[] resized = new long[table.length * 2];
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != EMPTY) {
+                    insert(resized, table[i], table[i + 1]);
+                }
+            }
+            return resized;
+        }
+
+        private static boolean delete(long[] table, long key) {
+            int mask = (table.length >>> 1) - 1;
+            int hole = (int) mix(key) & mask;
+            while (table[hole << 1] != key) {
+                if (table[hole << 1] == EMPTY) {
+                    return false;
+                }
+                hole = (hole + 1) & mask;
+            }
+            table[hole << 1] = EMPTY;
+
+            //shift later entries of the same probe run back so lookups never stop early at the hole
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & mask;
+                long candidate = table[slot << 1];
+                if (candidate == EMPTY) {
+                    return true;
+                }
+                int home = (int) mix(candidate) & mask;
+                boolean homeBetweenHoleAndSlot = hole <= slot
+                        ? home > hole && home <= slot
+                        : home > hole || home <= slot;
+                if (!homeBetweenHoleAndSlot) {
+                    table[hole << 1] = candidate;
+                    table[(hole << 1) + 1] = table[(slot << 1) + 1];
+                    table[slot << 1] = EMPTY;
+                    hole = slot;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+//recipe and review ids to their owner's user id, so permission checks never load the entities
+@Component
+public class OwnershipIndex implements RecipeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnershipIndex.class);
+
+    private static final int CHUNK_SIZE = 5000;
+
+    //user ids are generated from 1, so this never collides with a real owner
+    private static final long UNKNOWN = -1L;
+
+    private final LongLongMap recipeOwners = new LongLongMap();
+
+    private final LongLongMap reviewOwners = new LongLongMap();
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    ReviewRepo reviewRepo;
+
+    @Override
+    public void clear() {
+        recipeOwners.clear();
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        if (recipe.getUser() != null && recipe.getUser().getId() != null) {
+            recipeOwners.put(recipe.getId(), recipe.getUser().getId());
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        recipeOwners.remove(recipeId);
+    }
+
+    public void indexReview(Review review) {
+        if (review.getUser() != null && review.getUser().getId() != null) {
+            putReviewOwner(review.getId(), review.getUser().getId());
+        }
+    }
+
+    public void putReviewOwner(long reviewId, long userId) {
+        reviewOwners.put(reviewId, userId);
+    }
+
+    public void removeReview(long reviewId) {
+        reviewOwners.remove(reviewId);
+    }
+
+    //empty when there is no recipe with this id
+    public Optional<Long> getRecipeOwner(long recipeId) {
+        long owner = recipeOwners.get(recipeId, UNKNOWN);
+        if (owner != UNKNOWN) {
+            return Optional.of(owner);
+        }
+        Optional<Long> stored = recipeRepo.findOwnerIdById(recipeId);
+        stored.ifPresent(id -> recipeOwners.put(recipeId, id));
+        return stored;
+    }
+
+    //empty when there is no review with this id
+    public Optional<Long> getReviewOwner(long reviewId) {
+        long owner = reviewOwners.get(reviewId, UNKNOWN);
+        if (owner != UNKNOWN) {
+            return Optional.of(owner);
+        }
+        Optional<Long> stored = reviewRepo.findOwnerIdById(reviewId);
+        stored.ifPresent(id -> reviewOwners.put(reviewId, id));
+        return stored;
+    }
+
+    public int recipeCount() {
+        return recipeOwners.size();
+    }
+
+    public int reviewCount() {
+        return reviewOwners.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadReviews() {
+        long start = System.currentTimeMillis();
+        reviewOwners.clear();
+
+        long lastId = 0;
+        while (true) {
+            List<Object[]> chunk = reviewRepo.findOwnerIdsAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+            for (Object[] row : chunk) {
+                reviewOwners.put((Long) row[0], (Long) row[1]);
+            }
+            if (chunk.size() < CHUNK_SIZE) {
+                break;
+            }
+            lastId = (Long) chunk.get(chunk.size() - 1)[0];
+        }
+        log.info("Loaded the owners of {} reviews in {} ms", reviewOwners.size(), System.currentTimeMillis() - start);
+    }
+}
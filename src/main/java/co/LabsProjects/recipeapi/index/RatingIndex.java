@@ -0,0 +1,298 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.event.BulkImportedEvent;
+import co.LabsProjects.recipeapi.event.RecipeChangedEvent;
+import co.LabsProjects.recipeapi.event.ReviewChangedEvent;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeRanking;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+//summaries of every recipe ordered by score under each ranking, on lock-free skip lists. A read is not a
+//snapshot, a recipe re-ranked meanwhile may be returned at either position or missed
+@Component
+public class RatingIndex implements RecipeIndex {
+
+    static final double MIN_RATING = 1;
+
+    static final double MAX_RATING = 10;
+
+    //normal quantile of the Wilson interval, 95% confidence
+    static final double Z = 1.96;
+
+    private static final int CHUNK_SIZE = 500;
+
+    //the score recipes without reviews are pulled towards, and by how many reviews
+    @Value("${recipe-api.ranking.prior-mean:6}")
+    double priorMean;
+
+    @Value("${recipe-api.ranking.prior-weight:10}")
+    double priorWeight;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    private final Map<RecipeRanking, ConcurrentSkipListSet<Key>> orders = new EnumMap<>(RecipeRanking.class);
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public RatingIndex() {
+        for (RecipeRanking ranking : RecipeRanking.values()) {
+            orders.put(ranking, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            entries.clear();
+            orders.values().forEach(ConcurrentSkipListSet::clear);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        put(RecipeSummary.from(recipe), recipe.getRatingSum(), recipe.getRatingCount());
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        writeLock.lock();
+        try {
+            Entry removed = entries.remove(recipeId);
+            if (removed != null) {
+                for (RecipeRanking ranking : RecipeRanking.values()) {
+                    orders.get(ranking).remove(removed.keys[ranking.ordinal()]);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    //the created, updated and deleted recipes reach this index through index() and remove()
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.getType() != RecipeChangedEvent.Type.RATED) {
+            return;
+        }
+        if (event.getRecipeId() == null) {
+            refresh(new ArrayList<>(entries.keySet()));
+        } else {
+            refresh(List.of(event.getRecipeId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        refresh(List.of(event.getRecipeId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkImported(BulkImportedEvent event) {
+        refresh(event.getReviewedRecipeIds());
+    }
+
+    //re-reads the rating counters of the given recipes and moves them, recipes not indexed are left alone
+    public void refresh(Collection<Long> recipeIds) {
+        List<Long> ids = new ArrayList<>(recipeIds);
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            //read under the lock, or a refresh that read older counters could apply them after a newer one
+            writeLock.lock();
+            try {
+                for (Object[] rating : recipeRepo.findRatingsByIdIn(chunk)) {
+                    //id, average, sum and count
+                    Entry current = entries.get(((Number) rating[0]).longValue());
+                    if (current != null) {
+                        RecipeSummary summary = current.summary;
+                        double average = ((Number) rating[1]).doubleValue();
+                        put(new RecipeSummary(summary.getId(), summary.getName(), summary.getAuthor(),
+                                        summary.getDifficultyRating(), summary.getMinutesToMake(), average),
+                                ((Number) rating[2]).longValue(), ((Number) rating[3]).intValue());
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    //the n best recipes, best first
+    public List<Hit> top(RecipeRanking ranking, int n) {
+        return range(ranking, null, true, null, true, null, n);
+    }
+
+    //up to limit recipes scoring from min to max, either optional, in score and then id order after the cursor
+    public List<Hit> range(RecipeRanking ranking, Double min, boolean minInclusive, Double max, boolean descending,
+                           PageCursor after, int limit) {
+        //ids are positive, so the extreme ids place a bound before or after every recipe with that score
+        Key low = min == null ? null : new Key(min, minInclusive ? Long.MIN_VALUE : Long.MAX_VALUE);
+        boolean lowInclusive = minInclusive;
+        Key high = max == null ? null : new Key(max, Long.MAX_VALUE);
+        boolean highInclusive = true;
+        if (after != null) {
+            Key position = new Key(Double.parseDouble(after.getLastValue()), after.getLastId());
+            if (descending && (high == null || position.compareTo(high) <= 0)) {
+                high = position;
+                highInclusive = false;
+            } else if (!descending && (low == null || position.compareTo(low) >= 0)) {
+                low = position;
+                lowInclusive = false;
+            }
+        }
+
+        NavigableSet<Key> keys = orders.get(ranking);
+        if (low != null && high != null) {
+            if (low.compareTo(high) > 0) {
+                return new ArrayList<>();
+            }
+            keys = keys.subSet(low, lowInclusive, high, highInclusive);
+        } else if (low != null) {
+            keys = keys.tailSet(low, lowInclusive);
+        } else if (high != null) {
+            keys = keys.headSet(high, highInclusive);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        Set<Long> returned = new HashSet<>();
+        Iterator<Key> iterator = descending ? keys.descendingIterator() : keys.iterator();
+        while (hits.size() < limit && iterator.hasNext()) {
+            Key key = iterator.next();
+            Entry entry = entries.get(key.recipeId);
+            //a key an update has not dropped yet, the entry's current key is in the set as well; a recipe moved
+            //ahead of the reader after its old key was returned is current again at the new one
+            if (entry != null && entry.keys[ranking.ordinal()].equals(key) && returned.add(key.recipeId)) {
+                hits.add(new Hit(entry.summary, key.score));
+            }
+        }
+        return hits;
+    }
+
+    double score(RecipeRanking ranking, double average, long sum, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        switch (ranking) {
+            case BAYESIAN:
+                return (priorWeight * priorMean + sum) / (priorWeight + count);
+            case WILSON:
+                return wilson(sum, count);
+            default:
+                return average;
+        }
+    }
+
+    //the lower bound of the Wilson score interval, treating the average as a fraction of positive votes
+    private static double wilson(long sum, int count) {
+        double p = Math.min(1, Math.max(0, ((double) sum / count - MIN_RATING) / (MAX_RATING - MIN_RATING)));
+        double z2 = Z * Z;
+        double lower = (p + z2 / (2 * count) - Z * Math.sqrt((p * (1 - p) + z2 / (4 * count)) / count)) / (1 + z2 / count);
+        return MIN_RATING + lower * (MAX_RATING - MIN_RATING);
+    }
+
+    private void put(RecipeSummary summary, long sum, int count) {
+        Key[] keys = new Key[RecipeRanking.values().length];
+        for (RecipeRanking ranking : RecipeRanking.values()) {
+            keys[ranking.ordinal()] = new Key(score(ranking, summary.getAverageReviewRating(), sum, count), summary.getId());
+        }
+        Entry next = new Entry(summary, keys);
+
+        writeLock.lock();
+        try {
+            for (RecipeRanking ranking : RecipeRanking.values()) {
+                orders.get(ranking).add(keys[ranking.ordinal()]);
+            }
+            Entry previous = entries.put(summary.getId(), next);
+            if (previous != null) {
+                for (RecipeRanking ranking : RecipeRanking.values()) {
+                    Key old = previous.keys[ranking.ordinal()];
+                    if (!old.equals(keys[ranking.ordinal()])) {
+                        orders.get(ranking).remove(old);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+
+        private final RecipeSummary summary;
+
+        private final double score;
+    }
+
+    private static class Entry {
+
+        final RecipeSummary summary;
+
+        //by ranking ordinal
+        final Key[] keys;
+
+        Entry(RecipeSummary summary, Key[] keys) {
+            this.summary = summary;
+            this.keys = keys;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        final double score;
+
+        final long recipeId;
+
+        Key(double score, long recipeId) {
+            this.score = score;
+            this.recipeId = recipeId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Long.compare(recipeId, other.recipeId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && compareTo((Key) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(score) * 31 + Long.hashCode(recipeId);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Recipe;
+
+//an in-memory structure derived from recipes, loaded by RecipeIndexLoader and kept up to date on commit
+public interface RecipeIndex {
+
+    void clear();
+
+    //adds the recipe or replaces whatever was indexed for its id before
+    void index(Recipe recipe);
+
+    void remove(long recipeId);
+}
@@ -0,0 +1,59 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+public class RecipeIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeIndexLoader.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    List<RecipeIndex> indexes;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        indexes.forEach(RecipeIndex::clear);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long lastId = 0;
+        long count = 0;
+        while (true) {
+            //one short transaction per chunk so the persistence context never holds more than one chunk
+            long after = lastId;
+            List<Recipe> chunk = transaction.execute(status -> {
+                List<Recipe> recipes = recipeRepo.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, CHUNK_SIZE));
+                recipes.forEach(recipe -> indexes.forEach(index -> index.index(recipe)));
+                return recipes;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            count += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        log.info("Indexed {} recipes into {} indexes in {} ms", count, indexes.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,350 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Step;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//inverted index over recipe names, ingredients and steps, weighted by field. Name and ingredient words also
+//match by a prefix of at least MIN_PREFIX_LENGTH characters
+@Component
+public class RecipeSearchIndex implements RecipeIndex {
+
+    static final float NAME_WEIGHT = 3.0f;
+
+    static final float INGREDIENT_WEIGHT = 2.0f;
+
+    static final float STEP_WEIGHT = 1.0f;
+
+    //prefix matches count for less than typing out the whole word
+    static final float PREFIX_FACTOR = 0.5f;
+
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    static final int MAX_PREFIX_LENGTH = 6;
+
+    private static final Roaring64NavigableMap EMPTY = new Roaring64NavigableMap();
+
+    private final Map<String, Posting> terms = new HashMap<>();
+
+    private final Map<String, Roaring64NavigableMap> namePrefixes = new HashMap<>();
+
+    private final Map<String, Roaring64NavigableMap> ingredientPrefixes = new HashMap<>();
+
+    //what was indexed for each recipe, needed to take it out again on update or delete
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            namePrefixes.clear();
+            ingredientPrefixes.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        Map<String, Float> weights = new HashMap<>();
+        //each word under the strongest field it occurs in, which decides how a prefix of it scores
+        Set<String> nameWords = new LinkedHashSet<>(addField(weights, recipe.getName(), NAME_WEIGHT));
+        Set<String> ingredientWords = new LinkedHashSet<>();
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                ingredientWords.addAll(addField(weights, ingredient.getName(), INGREDIENT_WEIGHT));
+            }
+        }
+        if (recipe.getSteps() != null) {
+            for (Step step : recipe.getSteps()) {
+                addField(weights, step.getDescription(), STEP_WEIGHT);
+            }
+        }
+        ingredientWords.removeAll(nameWords);
+        Document document = new Document(weights.keySet(), nameWords, ingredientWords);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(recipe.getId());
+            weights.forEach((term, weight) ->
+                    terms.computeIfAbsent(term, t -> new Posting()).put(recipe.getId(), weight));
+            addPrefixes(namePrefixes, nameWords, recipe.getId());
+            addPrefixes(ingredientPrefixes, ingredientWords, recipe.getId());
+            documents.put(recipe.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //the ids of the best matching recipes, best first
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(documents.size(), 1);
+            Map<Long, Float> scores = null;
+            for (String term : queryTerms) {
+                Map<Long, Float> termScores = score(term, documentCount);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    //every query term has to match, so only recipes already in the running result can stay
+                    Map<Long, Float> combined = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                        Float termScore = termScores.get(entry.getKey());
+                        if (termScore != null) {
+                            combined.put(entry.getKey(), entry.getValue() + termScore);
+                        }
+                    }
+                    scores = combined;
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                if (i - start > 1) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> addField(Map<String, Float> weights, String text, float fieldWeight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            weights.merge(token, fieldWeight, Float::sum);
+        }
+        return tokens;
+    }
+
+    private Map<Long, Float> score(String term, int documentCount) {
+        Map<Long, Float> scores = new HashMap<>();
+        Posting exact = terms.get(term);
+        if (exact != null) {
+            float idf = idf(documentCount, exact.size);
+            for (int i = 0; i < exact.size; i++) {
+                scores.put(exact.ids[i], exact.weights[i] * idf);
+            }
+        }
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            return scores;
+        }
+        String indexed = term.length() > MAX_PREFIX_LENGTH ? term.substring(0, MAX_PREFIX_LENGTH) : term;
+        Roaring64NavigableMap names = namePrefixes.getOrDefault(indexed, EMPTY);
+        Roaring64NavigableMap ingredients = ingredientPrefixes.getOrDefault(indexed, EMPTY);
+        Roaring64NavigableMap prefixed = new Roaring64NavigableMap();
+        prefixed.or(names);
+        prefixed.or(ingredients);
+        if (prefixed.isEmpty()) {
+            return scores;
+        }
+        float idf = idf(documentCount, (int) prefixed.getLongCardinality()) * PREFIX_FACTOR;
+        prefixed.forEach(id -> {
+            float fieldWeight;
+            if (term.length() <= MAX_PREFIX_LENGTH) {
+                fieldWeight = names.contains(id) ? NAME_WEIGHT : INGREDIENT_WEIGHT;
+            } else {
+                //the indexed start matched, the recipe still needs a word with the whole of it
+                fieldWeight = documents.get(id).prefixWeight(term);
+            }
+            //a whole word that is also a prefix of a longer one keeps the better score
+            if (fieldWeight > 0) {
+                scores.merge(id, fieldWeight * idf, Math::max);
+            }
+        });
+        return scores;
+    }
+
+    private static float idf(int documentCount, int documentFrequency) {
+        return (float) Math.log(1.0 + (double) documentCount / documentFrequency);
+    }
+
+    private static List<Long> top(Map<Long, Float> scores, int limit) {
+        //bounded min-heap, so ranking costs O(matches * log(limit)) rather than a full sort
+        PriorityQueue<Map.Entry<Long, Float>> heap = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private void removeDocument(long recipeId) {
+        Document indexed = documents.remove(recipeId);
+        if (indexed == null) {
+            return;
+        }
+        for (String word : indexed.words) {
+            Posting posting = terms.get(word);
+            if (posting != null && posting.remove(recipeId)) {
+                terms.remove(word);
+            }
+        }
+        removePrefixes(namePrefixes, indexed.words, 0, indexed.nameEnd, recipeId);
+        removePrefixes(ingredientPrefixes, indexed.words, indexed.nameEnd, indexed.ingredientEnd, recipeId);
+    }
+
+    private static void addPrefixes(Map<String, Roaring64NavigableMap> prefixes, Collection<String> words,
+                                    long recipeId) {
+        for (String word : words) {
+            for (int length = MIN_PREFIX_LENGTH; length <= prefixLimit(word); length++) {
+                prefixes.computeIfAbsent(word.substring(0, length), p -> new Roaring64NavigableMap()).addLong(recipeId);
+            }
+        }
+    }
+
+    private static void removePrefixes(Map<String, Roaring64NavigableMap> prefixes, String[] words, int from, int to,
+                                       long recipeId) {
+        for (int i = from; i < to; i++) {
+            String word = words[i];
+            for (int length = MIN_PREFIX_LENGTH; length <= prefixLimit(word); length++) {
+                String prefix = word.substring(0, length);
+                Roaring64NavigableMap posting = prefixes.get(prefix);
+                if (posting != null) {
+                    posting.removeLong(recipeId);
+                    if (posting.isEmpty()) {
+                        prefixes.remove(prefix);
+                    }
+                }
+            }
+        }
+    }
+
+    //prefixes are shorter than the word, which itself is a term
+    private static int prefixLimit(String word) {
+        return Math.min(word.length() - 1, MAX_PREFIX_LENGTH);
+    }
+
+    //a recipe's words in one array: name words, then ingredient words that are not also in the name, then the rest
+    private static final class Document {
+
+        final String[] words;
+
+        final int nameEnd;
+
+        final int ingredientEnd;
+
+        Document(Set<String> all, Set<String> nameWords, Set<String> ingredientWords) {
+            List<String> ordered = new ArrayList<>(all.size());
+            ordered.addAll(nameWords);
+            ordered.addAll(ingredientWords);
+            for (String word : all) {
+                if (!nameWords.contains(word) && !ingredientWords.contains(word)) {
+                    ordered.add(word);
+                }
+            }
+            words = ordered.toArray(new String[0]);
+            nameEnd = nameWords.size();
+            ingredientEnd = nameEnd + ingredientWords.size();
+        }
+
+        //the field weight of the strongest name or ingredient word starting with the prefix, 0 when there is none
+        float prefixWeight(String prefix) {
+            for (int i = 0; i < ingredientEnd; i++) {
+                if (words[i].startsWith(prefix) && words[i].length() > prefix.length()) {
+                    return i < nameEnd ? NAME_WEIGHT : INGREDIENT_WEIGHT;
+                }
+            }
+            return 0;
+        }
+    }
+
+    //sorted recipe ids with their weights in two arrays, about 12 bytes per recipe against some 70 for a HashMap
+    //of boxed pairs
+    private static final class Posting {
+
+        long[] ids = new long[2];
+
+        float[] weights = new float[2];
+
+        int size;
+
+        void put(long id, float weight) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                weights[i] = weight;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(weights, i, weights, i + 1, size - i);
+            ids[i] = id;
+            weights[i] = weight;
+            size++;
+        }
+
+        //true when the posting is empty afterwards
+        boolean remove(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+                size--;
+            }
+            return size == 0;
+        }
+    }
+}
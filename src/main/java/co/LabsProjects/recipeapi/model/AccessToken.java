@@ -0,0 +1,41 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//the verified content of a signed access token, enough to act as the user without the database
+@Getter
+@AllArgsConstructor
+public class AccessToken {
+
+    private final String tokenId;
+
+    private final long userId;
+
+    //the user's credential version when the token was issued, see TokenDenyList
+    private final long credentialVersion;
+
+    private final String username;
+
+    private final Collection<Role.Roles> roles;
+
+    private final long issuedAt;
+
+    private final long expiresAt;
+
+    //when the user last presented their password, refreshing never moves this forward
+    private final long authenticatedAt;
+
+    public CustomUserDetails toPrincipal() {
+        List<Role> authorities = roles.stream().map(Role::new).collect(Collectors.toList());
+        return CustomUserDetails.builder()
+                .id(userId)
+                .username(username)
+                .password("")
+                .authorities(authorities)
+                .build();
+    }
+}
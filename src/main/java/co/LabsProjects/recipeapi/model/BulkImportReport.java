@@ -0,0 +1,56 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//outcome of a bulk import by line number from 1, keeping only the first errors while failed counts all of them
+@Getter
+public class BulkImportReport {
+
+    private long lines;
+
+    private long imported;
+
+    private long failed;
+
+    private final List<LineError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+
+    @JsonIgnore
+    private final int maxErrors;
+
+    public BulkImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void addLine() {
+        lines++;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addFailure(long line, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new LineError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LineError {
+
+        private final long line;
+
+        private final String message;
+    }
+}
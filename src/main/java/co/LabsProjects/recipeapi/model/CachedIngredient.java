@@ -0,0 +1,53 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@Getter
+@AllArgsConstructor
+public final class CachedIngredient implements Serializable {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String amount;
+
+    private final String state;
+
+    public static CachedIngredient from(Ingredient ingredient) {
+        return new CachedIngredient(ingredient.getId(), ingredient.getName(), ingredient.getAmount(), ingredient.getState());
+    }
+
+    public static class Serializer implements CompactSerializer<CachedIngredient> {
+
+        @Override
+        public CachedIngredient read(CompactReader in) {
+            return new CachedIngredient(in.readNullableInt64("id"), in.readString("name"), in.readString("amount"),
+                    in.readString("state"));
+        }
+
+        @Override
+        public void write(CompactWriter out, CachedIngredient ingredient) {
+            out.writeNullableInt64("id", ingredient.id);
+            out.writeString("name", ingredient.name);
+            out.writeString("amount", ingredient.amount);
+            out.writeString("state", ingredient.state);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "ingredient";
+        }
+
+        @Override
+        public Class<CachedIngredient> getCompactClass() {
+            return CachedIngredient.class;
+        }
+    }
+}
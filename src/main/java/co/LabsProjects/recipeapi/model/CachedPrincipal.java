@@ -0,0 +1,53 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//what authentication needs to know about a user, small and immutable so it can be shared through the grid
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CachedPrincipal implements Serializable {
+
+    private final long id;
+
+    private final String username;
+
+    private final String passwordHash;
+
+    private final boolean accountNonExpired;
+
+    private final boolean accountNonLocked;
+
+    private final boolean credentialsNonExpired;
+
+    private final boolean enabled;
+
+    private final ArrayList<Role.Roles> roles;
+
+    public static CachedPrincipal from(CustomUserDetails user) {
+        ArrayList<Role.Roles> roles = user.getAuthorities().stream()
+                .map(Role::getRole)
+                .collect(Collectors.toCollection(ArrayList::new));
+        return new CachedPrincipal(user.getId(), user.getUsername(), user.getPassword(),
+                user.isAccountNonExpired(), user.isAccountNonLocked(), user.isCredentialsNonExpired(), user.isEnabled(),
+                roles);
+    }
+
+    public CustomUserDetails toUserDetails() {
+        List<Role> authorities = roles.stream().map(Role::new).collect(Collectors.toList());
+        return CustomUserDetails.builder()
+                .id(id)
+                .username(username)
+                .password(passwordHash)
+                .isAccountNonExpired(accountNonExpired)
+                .isAccountNonLocked(accountNonLocked)
+                .isCredentialsNonExpired(credentialsNonExpired)
+                .isEnabled(enabled)
+                .authorities(authorities)
+                .build();
+    }
+}
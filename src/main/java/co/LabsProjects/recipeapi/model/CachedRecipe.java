@@ -0,0 +1,125 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//what the caches hold for a recipe: the fields the API returns, with plain lists and the author as a username
+@Getter
+@AllArgsConstructor
+public final class CachedRecipe implements Serializable {
+
+    private final long id;
+
+    private final String name;
+
+    @JsonIgnore
+    private final String author;
+
+    private final int minutesToMake;
+
+    private final int difficultyRating;
+
+    private final double averageReviewRating;
+
+    private final List<CachedIngredient> ingredients;
+
+    private final List<CachedStep> steps;
+
+    private final List<CachedReview> reviews;
+
+    //covers the recipe row and the embedded reviews, which change without touching the recipe row
+    @JsonIgnore
+    private final String etag;
+
+    //epoch milliseconds of the latest change to the recipe or one of its reviews, 0 when unknown
+    @JsonIgnore
+    private final long lastModified;
+
+    //reads every collection, so call it while the recipe's session is still open
+    public static CachedRecipe from(Recipe recipe) {
+        List<CachedReview> reviews = copy(recipe.getReviews(), CachedReview::from);
+        return new CachedRecipe(recipe.getId(), recipe.getName(), recipe.getAuthor(), recipe.getMinutesToMake(),
+                recipe.getDifficultyRating(), recipe.getAverageReviewRating(),
+                copy(recipe.getIngredients(), CachedIngredient::from),
+                copy(recipe.getSteps(), CachedStep::from),
+                reviews,
+                etagOf(recipe.getVersion(), CachedReview.etagOf(reviews)),
+                Math.max(EntityTags.epochMillis(recipe.getLastModified()), CachedReview.lastModifiedOf(reviews)));
+    }
+
+    //the etag and last modified of the rows of RecipeRepo.findVersionsById, the same as a loaded recipe has
+    public static EntityTag tagOf(List<Object[]> versions) {
+        Object[] first = versions.get(0);
+        long lastModified = EntityTags.epochMillis((Instant) first[1]);
+        long[] idsAndVersions = new long[first[2] == null ? 0 : versions.size() * 2];
+        for (int i = 0; i < idsAndVersions.length / 2; i++) {
+            Object[] review = versions.get(i);
+            idsAndVersions[2 * i] = (Long) review[2];
+            idsAndVersions[2 * i + 1] = (Long) review[3];
+            lastModified = Math.max(lastModified, EntityTags.epochMillis((Instant) review[4]));
+        }
+        return new EntityTag(etagOf((Long) first[0], CachedReview.etagOf(idsAndVersions)), lastModified);
+    }
+
+    public static String etagOf(long version, String reviewsEtag) {
+        return "r" + version + "-" + reviewsEtag;
+    }
+
+    private static <S, T> List<T> copy(Collection<S> source, Function<S, T> convert) {
+        if (source == null) {
+            return List.of();
+        }
+        return source.stream().map(convert).collect(Collectors.toUnmodifiableList());
+    }
+
+    public static class Serializer implements CompactSerializer<CachedRecipe> {
+
+        @Override
+        public CachedRecipe read(CompactReader in) {
+            return new CachedRecipe(in.readInt64("id"), in.readString("name"), in.readString("author"),
+                    in.readInt32("minutesToMake"), in.readInt32("difficultyRating"),
+                    in.readFloat64("averageReviewRating"),
+                    List.of(in.readArrayOfCompact("ingredients", CachedIngredient.class)),
+                    List.of(in.readArrayOfCompact("steps", CachedStep.class)),
+                    List.of(in.readArrayOfCompact("reviews", CachedReview.class)),
+                    in.readString("etag"),
+                    in.readInt64("lastModified"));
+        }
+
+        @Override
+        public void write(CompactWriter out, CachedRecipe recipe) {
+            out.writeInt64("id", recipe.id);
+            out.writeString("name", recipe.name);
+            out.writeString("author", recipe.author);
+            out.writeInt32("minutesToMake", recipe.minutesToMake);
+            out.writeInt32("difficultyRating", recipe.difficultyRating);
+            out.writeFloat64("averageReviewRating", recipe.averageReviewRating);
+            out.writeArrayOfCompact("ingredients", recipe.ingredients.toArray(new CachedIngredient[0]));
+            out.writeArrayOfCompact("steps", recipe.steps.toArray(new CachedStep[0]));
+            out.writeArrayOfCompact("reviews", recipe.reviews.toArray(new CachedReview[0]));
+            out.writeString("etag", recipe.etag);
+            out.writeInt64("lastModified", recipe.lastModified);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "recipe";
+        }
+
+        @Override
+        public Class<CachedRecipe> getCompactClass() {
+            return CachedRecipe.class;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+//a rendered response body as JSON and, when big enough, gzipped, kept with the resource's validators
+@Getter
+@AllArgsConstructor
+public final class CachedResponse implements Serializable {
+
+    private final byte[] json;
+
+    //null when the body was too small to compress
+    private final byte[] gzip;
+
+    private final String etag;
+
+    //epoch milliseconds, 0 when unknown
+    private final long lastModified;
+
+    //space separated, for purging an edge cache by resource
+    private final String surrogateKeys;
+
+    public static class Serializer implements CompactSerializer<CachedResponse> {
+
+        @Override
+        public CachedResponse read(CompactReader in) {
+            return new CachedResponse(in.readArrayOfInt8("json"), in.readArrayOfInt8("gzip"), in.readString("etag"),
+                    in.readInt64("lastModified"), in.readString("surrogateKeys"));
+        }
+
+        @Override
+        public void write(CompactWriter out, CachedResponse response) {
+            out.writeArrayOfInt8("json", response.json);
+            out.writeArrayOfInt8("gzip", response.gzip);
+            out.writeString("etag", response.etag);
+            out.writeInt64("lastModified", response.lastModified);
+            out.writeString("surrogateKeys", response.surrogateKeys);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "response";
+        }
+
+        @Override
+        public Class<CachedResponse> getCompactClass() {
+            return CachedResponse.class;
+        }
+    }
+}
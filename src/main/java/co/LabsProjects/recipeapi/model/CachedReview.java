@@ -0,0 +1,95 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.stream.LongStream;
+
+//what the caches hold for a review, with the author's username instead of the user entity
+@Getter
+@AllArgsConstructor
+public final class CachedReview implements Serializable {
+
+    private final long id;
+
+    private final String description;
+
+    private final int rating;
+
+    private final long recipeId;
+
+    @JsonIgnore
+    private final String author;
+
+    @JsonIgnore
+    private final long version;
+
+    //epoch milliseconds, 0 when unknown
+    @JsonIgnore
+    private final long lastModified;
+
+    public static CachedReview from(Review review) {
+        return new CachedReview(review.getId(), review.getDescription(), review.getRating(), review.getRecipeId(),
+                review.getAuthor(), review.getVersion(), EntityTags.epochMillis(review.getLastModified()));
+    }
+
+    public String etag() {
+        return "v" + version;
+    }
+
+    //changes whenever a review is added to or removed from the list, or one of them is edited
+    public static String etagOf(Collection<CachedReview> reviews) {
+        long[] versions = reviews.stream()
+                .sorted(Comparator.comparingLong(CachedReview::getId))
+                .flatMapToLong(review -> LongStream.of(review.id, review.version))
+                .toArray();
+        return etagOf(versions);
+    }
+
+    //the same from each review's id and version in turn, ordered by id
+    public static String etagOf(long[] idsAndVersions) {
+        return "l" + idsAndVersions.length / 2 + "-" + EntityTags.hash(idsAndVersions);
+    }
+
+    public static long lastModifiedOf(Collection<CachedReview> reviews) {
+        return reviews.stream().mapToLong(CachedReview::getLastModified).max().orElse(0);
+    }
+
+    public static class Serializer implements CompactSerializer<CachedReview> {
+
+        @Override
+        public CachedReview read(CompactReader in) {
+            return new CachedReview(in.readInt64("id"), in.readString("description"), in.readInt32("rating"),
+                    in.readInt64("recipeId"), in.readString("author"), in.readInt64("version"),
+                    in.readInt64("lastModified"));
+        }
+
+        @Override
+        public void write(CompactWriter out, CachedReview review) {
+            out.writeInt64("id", review.id);
+            out.writeString("description", review.description);
+            out.writeInt32("rating", review.rating);
+            out.writeInt64("recipeId", review.recipeId);
+            out.writeString("author", review.author);
+            out.writeInt64("version", review.version);
+            out.writeInt64("lastModified", review.lastModified);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "review";
+        }
+
+        @Override
+        public Class<CachedReview> getCompactClass() {
+            return CachedReview.class;
+        }
+    }
+}
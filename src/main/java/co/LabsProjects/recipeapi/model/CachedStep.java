@@ -0,0 +1,49 @@
+package co.LabsProjects.recipeapi.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@Getter
+@AllArgsConstructor
+public final class CachedStep implements Serializable {
+
+    private final long id;
+
+    private final int stepNumber;
+
+    private final String description;
+
+    public static CachedStep from(Step step) {
+        return new CachedStep(step.getId(), step.getStepNumber(), step.getDescription());
+    }
+
+    public static class Serializer implements CompactSerializer<CachedStep> {
+
+        @Override
+        public CachedStep read(CompactReader in) {
+            return new CachedStep(in.readInt64("id"), in.readInt32("stepNumber"), in.readString("description"));
+        }
+
+        @Override
+        public void write(CompactWriter out, CachedStep step) {
+            out.writeInt64("id", step.id);
+            out.writeInt32("stepNumber", step.stepNumber);
+            out.writeString("description", step.description);
+        }
+
+        @Override
+        public String getTypeName() {
+            return "step";
+        }
+
+        @Override
+        public Class<CachedStep> getCompactClass() {
+            return CachedStep.class;
+        }
+    }
+}
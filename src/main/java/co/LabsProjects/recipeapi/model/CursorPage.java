@@ -0,0 +1,30 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> implements Serializable {
+
+    private List<T> items;
+
+    //opaque cursor to pass back as "after" to get the next page, null when this is the last page
+    private String nextCursor;
+
+    private int limit;
+
+    //builds a page from rows fetched with limit + 1, the extra row only tells that there is a next page
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(new ArrayList<>(rows), null, limit);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, cursorOf.apply(items.get(items.size() - 1)), limit);
+    }
+}
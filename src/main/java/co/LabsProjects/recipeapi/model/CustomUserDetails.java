@@ -53,7 +53,7 @@ public class CustomUserDetails implements UserDetails, Serializable {
         this.userMeta = userMeta;
     }
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
     @JoinColumn(name = "userId", nullable = false)
     private Collection<Role> authorities = new ArrayList<>();
 
@@ -0,0 +1,15 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//the validators of a resource's current state, enough to answer a conditional GET without its body
+@Getter
+@AllArgsConstructor
+public final class EntityTag {
+
+    private final String etag;
+
+    //epoch milliseconds, 0 when unknown
+    private final long lastModified;
+}
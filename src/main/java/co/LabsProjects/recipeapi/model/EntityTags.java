@@ -0,0 +1,73 @@
+package co.LabsProjects.recipeapi.model;
+
+import java.time.Instant;
+import java.util.List;
+
+//helpers for the strong entity tags sent as ETag, derived from entity versions rather than the rendered bytes
+public final class EntityTags {
+
+    //appended to the tag of a gzipped representation, which is a different representation of the same version
+    public static final String GZIP_SUFFIX = "-gz";
+
+    private EntityTags() {
+    }
+
+    //whether an If-Match value lists "*" or the current tag, with or without the gzip suffix; weak tags never match
+    public static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                continue;
+            }
+            tag = tag.replace("\"", "");
+            if (tag.endsWith(GZIP_SUFFIX)) {
+                tag = tag.substring(0, tag.length() - GZIP_SUFFIX.length());
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //the tag to send with a 304 when an If-None-Match value matches the current tag by weak comparison, with or
+    //without the gzip suffix, otherwise null
+    public static String matchingNoneMatch(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return etag;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            if (tag.equals(etag) || tag.equals(etag + GZIP_SUFFIX)) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    static long epochMillis(Instant instant) {
+        return instant == null ? 0 : instant.toEpochMilli();
+    }
+
+    static String hash(long[] values) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (long value : values) {
+            hash = mix(hash ^ value);
+        }
+        return Long.toHexString(hash);
+    }
+
+    //the splitmix64 finalizer, so neighbouring ids and versions spread over the whole hash
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -5,6 +5,9 @@ import lombok.*;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
 
@@ -14,10 +17,13 @@ import java.io.Serializable;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+//searches look recipes up by ingredient name
+@Table(indexes = @Index(name = "idx_ingredient_name", columnList = "name"))
 public class Ingredient implements Serializable {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "ingredient_generator")
+    @SequenceGenerator(name = "ingredient_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     @NotNull
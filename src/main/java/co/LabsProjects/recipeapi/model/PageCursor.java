@@ -0,0 +1,42 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//sort value and id of the last row of a page, from which a keyset scan continues; clients only see it encoded
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sort;
+
+    private final boolean descending;
+
+    private final String lastValue;
+
+    private final long lastId;
+
+    public String encode() {
+        String raw = sort + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR + lastValue + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String encoded) throws InvalidArgumentException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new InvalidArgumentException("The page cursor is not valid.");
+            }
+            return new PageCursor(parts[0], parts[1].equals("desc"), parts[2], Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            //covers both bad Base64 and a non numeric id
+            throw new InvalidArgumentException("The page cursor is not valid.");
+        }
+    }
+}
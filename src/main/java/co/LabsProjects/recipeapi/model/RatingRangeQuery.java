@@ -0,0 +1,54 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import lombok.*;
+
+//a page of recipes scoring between min and max under a ranking, both optional and inclusive, in score order
+@Getter
+@Builder
+@AllArgsConstructor
+public class RatingRangeQuery {
+
+    @Builder.Default
+    private RecipeRanking ranking = RecipeRanking.AVERAGE;
+
+    private Double min;
+
+    private Double max;
+
+    //best first unless asked otherwise
+    @Builder.Default
+    private boolean descending = true;
+
+    //opaque cursor returned as nextCursor by the previous page
+    private String after;
+
+    @Builder.Default
+    private int limit = RecipeQuery.DEFAULT_LIMIT;
+
+    public PageCursor decodeCursor() throws InvalidArgumentException {
+        if (limit < 1 || limit > RecipeQuery.MAX_LIMIT) {
+            throw new InvalidArgumentException("Limit must be between 1 and " + RecipeQuery.MAX_LIMIT);
+        }
+        if (min != null && max != null && min > max) {
+            throw new InvalidArgumentException("The minimum rating cannot be greater than the maximum rating.");
+        }
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        if (!cursor.getSort().equals(ranking.getParameter()) || cursor.isDescending() != descending) {
+            throw new InvalidArgumentException("The page cursor was created for a different ranking or order.");
+        }
+        try {
+            Double.parseDouble(cursor.getLastValue());
+        } catch (NumberFormatException e) {
+            throw new InvalidArgumentException("The page cursor is not valid.");
+        }
+        return cursor;
+    }
+
+    public String cursorAfter(double score, long recipeId) {
+        return new PageCursor(ranking.getParameter(), descending, Double.toString(score), recipeId).encode();
+    }
+}
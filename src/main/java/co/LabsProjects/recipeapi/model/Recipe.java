@@ -10,8 +10,10 @@ import javax.persistence.*;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 @Entity
 @Getter
@@ -19,10 +21,24 @@ import java.util.Collection;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+//the author and ingredients are joined into the main select, steps and reviews follow in one select each
+@NamedEntityGraph(name = Recipe.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("ingredients")})
+//one index leading with each range filter of a search; the other column of the first two also covers the facet
+//counts, and the id after the rating serves the keyset order when sorting by rating
+@Table(indexes = {
+        @Index(name = "idx_recipe_difficulty_minutes", columnList = "difficultyRating, minutesToMake"),
+        @Index(name = "idx_recipe_minutes_difficulty", columnList = "minutesToMake, difficultyRating"),
+        @Index(name = "idx_recipe_rating", columnList = "averageReviewRating, id")})
 public class Recipe implements Serializable {
 
+    public static final String DETAIL_GRAPH = "Recipe.detail";
+
+    //ids are handed out in blocks (pooled-lo, see application.properties) so that inserts can be batched
     @Id
     @GeneratedValue(generator = "recipe_generator")
+    @SequenceGenerator(name = "recipe_generator", sequenceName = "recipe_generator", allocationSize = 50)
     private long id;
 
     @Column(nullable = false)
@@ -39,18 +55,35 @@ public class Recipe implements Serializable {
     @Column(nullable = false)
     private int difficultyRating;
 
+    //kept in step with ratingSum / ratingCount by the same UPDATE statement, stored so it can be filtered and sorted on
     private double averageReviewRating;
 
-    @OneToMany(cascade = CascadeType.ALL)
+    @JsonIgnore
+    @Column(nullable = false)
+    private long ratingSum;
+
+    @JsonIgnore
+    @Column(nullable = false)
+    private int ratingCount;
+
+    //bumped on every JPA update, including ingredient and step changes, and by the rating statements in RecipeRepo
+    @Version
+    @JsonIgnore
+    private long version;
+
+    @JsonIgnore
+    private Instant lastModified;
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "recipeId", nullable = false, foreignKey = @ForeignKey)
     private Collection<Ingredient> ingredients;
 
-    @OneToMany(cascade = CascadeType.ALL)
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "recipeId", nullable = false, foreignKey = @ForeignKey)
     private Collection<Step> steps;
 
-    @OneToMany
-    @JoinColumn(name = "recipeId", nullable = false, foreignKey = @ForeignKey)
+    //reviews own the foreign key, so a review can be written without loading this collection
+    @OneToMany(mappedBy = "recipe")
     private Collection<Review> reviews;
 
     @Transient
@@ -65,7 +98,12 @@ public class Recipe implements Serializable {
         return user.getUsername();
     }
 
-    @PostLoad
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
+
     public void initialize() {
         Hibernate.initialize(this.ingredients);
         Hibernate.initialize(this.steps);
@@ -100,10 +138,32 @@ public class Recipe implements Serializable {
         }
     }
 
-    public void setAverageReviewRating(){
-        this.averageReviewRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
+    public void recalculateAverageReviewRating() {
+        this.averageReviewRating = ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    //a new recipe starts without reviews whatever the request body said
+    public void clearReviews() {
+        this.reviews = new ArrayList<>();
+        this.ratingSum = 0;
+        this.ratingCount = 0;
+        recalculateAverageReviewRating();
+    }
+
+    //copies the fields a PATCH may change; ingredients and steps are replaced, the old rows removed as orphans
+    public void updateFrom(Recipe changes) {
+        this.name = changes.getName();
+        this.minutesToMake = changes.getMinutesToMake();
+        this.difficultyRating = changes.getDifficultyRating();
+        replace(this.ingredients, changes.getIngredients(), ingredient -> ingredient.setId(null));
+        replace(this.steps, changes.getSteps(), step -> step.setId(0));
+    }
+
+    private static <T> void replace(Collection<T> current, Collection<T> replacement, Consumer<T> asNew) {
+        current.clear();
+        if (replacement != null) {
+            replacement.forEach(asNew);
+            current.addAll(replacement);
+        }
     }
 }
@@ -0,0 +1,22 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+//a deleted recipe's id, kept so an incremental export can tell its consumers to drop the recipe
+@Entity
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeDeletion {
+
+    @Id
+    private long recipeId;
+
+    private Instant deletedAt;
+}
@@ -0,0 +1,58 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+//counts of matching recipes by difficulty and time bucket, every bucket listed even when empty
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeFacets implements Serializable {
+
+    //the Recipe attributes counted
+    public static final String DIFFICULTY = "difficultyRating";
+
+    public static final String MINUTES = "minutesToMake";
+
+    public static final int MAX_DIFFICULTY = 10;
+
+    //inclusive upper bounds of the minutesToMake buckets, a last open ended bucket follows
+    static final int[] MINUTE_BUCKETS = {15, 30, 60, 120};
+
+    private Map<Integer, Long> difficulty;
+
+    //by bucket label, 0-15, 16-30, 31-60, 61-120 and 121+
+    private Map<String, Long> minutes;
+
+    //counts by distinct difficulty rating and by distinct minutesToMake, as grouped by the database
+    public static RecipeFacets of(Map<Integer, Long> byDifficulty, Map<Integer, Long> byMinutes) {
+        Map<Integer, Long> difficulty = new TreeMap<>();
+        for (int rating = 0; rating <= MAX_DIFFICULTY; rating++) {
+            difficulty.put(rating, byDifficulty.getOrDefault(rating, 0L));
+        }
+
+        long[] counts = new long[MINUTE_BUCKETS.length + 1];
+        byMinutes.forEach((minutes, count) -> counts[bucketOf(minutes)] += count);
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        int from = 0;
+        for (int i = 0; i < MINUTE_BUCKETS.length; i++) {
+            buckets.put(from + "-" + MINUTE_BUCKETS[i], counts[i]);
+            from = MINUTE_BUCKETS[i] + 1;
+        }
+        buckets.put(from + "+", counts[MINUTE_BUCKETS.length]);
+        return new RecipeFacets(difficulty, buckets);
+    }
+
+    static int bucketOf(int minutes) {
+        for (int i = 0; i < MINUTE_BUCKETS.length; i++) {
+            if (minutes <= MINUTE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return MINUTE_BUCKETS.length;
+    }
+}
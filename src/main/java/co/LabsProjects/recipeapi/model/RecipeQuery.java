@@ -0,0 +1,115 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import lombok.*;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+//filters and keyset paging parameters for a page of recipes, each distinct query cached under cacheKey()
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class RecipeQuery {
+
+    public static final int DEFAULT_LIMIT = 20;
+
+    public static final int MAX_LIMIT = 100;
+
+    //cache keys of pages whose recipes or order depend on ratings start with this, the others with UNRATED_KEY
+    public static final String RATED_KEY = "rated:";
+
+    public static final String UNRATED_KEY = "unrated:";
+
+    //the user segment of a cache key whose page is not limited to one user's recipes
+    public static final String ANY_USER = "*";
+
+    private String name;
+
+    private Integer minDifficulty;
+
+    private Integer maxDifficulty;
+
+    private Integer minMinutes;
+
+    private Integer maxMinutes;
+
+    //exclusive, a recipe must be rated above it
+    private Double minRating;
+
+    private Double maxRating;
+
+    private String username;
+
+    //whole ingredient name
+    private String ingredient;
+
+    @Builder.Default
+    private RecipeSortField sort = RecipeSortField.ID;
+
+    private boolean descending;
+
+    //opaque cursor returned as nextCursor by the previous page
+    private String after;
+
+    @Builder.Default
+    private int limit = DEFAULT_LIMIT;
+
+    public PageCursor decodeCursor() throws InvalidArgumentException {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (minDifficulty != null && maxDifficulty != null && minDifficulty > maxDifficulty
+                || minMinutes != null && maxMinutes != null && minMinutes > maxMinutes
+                || minRating != null && maxRating != null && minRating > maxRating) {
+            throw new InvalidArgumentException("The minimum of a range cannot be greater than its maximum.");
+        }
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        if (!cursor.getSort().equals(sort.getAttribute()) || cursor.isDescending() != descending) {
+            throw new InvalidArgumentException("The page cursor was created for a different sort order.");
+        }
+        try {
+            sort.parse(cursor.getLastValue());
+        } catch (NumberFormatException e) {
+            throw new InvalidArgumentException("The page cursor is not valid.");
+        }
+        return cursor;
+    }
+
+    public String cursorAfter(RecipeSummary recipe) {
+        return new PageCursor(sort.getAttribute(), descending, sort.valueOf(recipe), recipe.getId()).encode();
+    }
+
+    //starts with the rating tag and the user, so that the pages a change can affect are found by their keys
+    public String cacheKey() {
+        return (minRating != null || maxRating != null || sort == RecipeSortField.RATING ? RATED_KEY : UNRATED_KEY)
+                + userKey(username) + ":" + String.join(":",
+                String.valueOf(name == null ? null : name.toLowerCase()),
+                String.valueOf(minDifficulty),
+                String.valueOf(maxDifficulty),
+                String.valueOf(minMinutes),
+                String.valueOf(maxMinutes),
+                String.valueOf(minRating),
+                String.valueOf(maxRating),
+                String.valueOf(ingredient == null ? null : ingredient.toLowerCase()),
+                sort.name(),
+                descending ? "desc" : "asc",
+                String.valueOf(after),
+                String.valueOf(limit));
+    }
+
+    //lower case as a filter may ignore it, and encoded so it cannot contain the separator
+    public static String userKey(String username) {
+        return username == null ? ANY_USER : URLEncoder.encode(username.toLowerCase(), StandardCharsets.UTF_8);
+    }
+
+    //the user segment of a key made by cacheKey()
+    public static String userKeyOf(String cacheKey) {
+        int start = cacheKey.indexOf(':') + 1;
+        int end = cacheKey.indexOf(':', start);
+        return end < 0 ? ANY_USER : cacheKey.substring(start, end);
+    }
+}
@@ -0,0 +1,28 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import lombok.Getter;
+
+//how the rating index scores a recipe, on the 1 to 10 scale of a review and 0 without reviews. BAYESIAN and
+//WILSON rank a single perfect review below hundreds of nearly perfect ones
+@Getter
+public enum RecipeRanking {
+    AVERAGE("average"),
+    BAYESIAN("bayesian"),
+    WILSON("wilson");
+
+    private final String parameter;
+
+    RecipeRanking(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public static RecipeRanking fromParameter(String parameter) throws InvalidArgumentException {
+        for (RecipeRanking ranking : values()) {
+            if (ranking.parameter.equalsIgnoreCase(parameter)) {
+                return ranking;
+            }
+        }
+        throw new InvalidArgumentException("Recipes can only be ranked by average, bayesian or wilson.");
+    }
+}
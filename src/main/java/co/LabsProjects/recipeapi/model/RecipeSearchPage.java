@@ -0,0 +1,16 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+//a page of a faceted search, the facets cover every match and are only counted for the first page
+@Getter
+@NoArgsConstructor
+public class RecipeSearchPage extends CursorPage<RecipeSummary> {
+
+    private RecipeFacets facets;
+
+    public RecipeSearchPage(CursorPage<RecipeSummary> page, RecipeFacets facets) {
+        super(page.getItems(), page.getNextCursor(), page.getLimit());
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,49 @@
+package co.LabsProjects.recipeapi.model;
+
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import lombok.Getter;
+
+@Getter
+public enum RecipeSortField {
+    ID("id"),
+    RATING("averageReviewRating"),
+    MINUTES("minutesToMake");
+
+    //name of the Recipe attribute the keyset is built on
+    private final String attribute;
+
+    RecipeSortField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public static RecipeSortField fromParameter(String parameter) throws InvalidArgumentException {
+        for (RecipeSortField field : values()) {
+            if (field.name().equalsIgnoreCase(parameter) || field.attribute.equalsIgnoreCase(parameter)) {
+                return field;
+            }
+        }
+        throw new InvalidArgumentException("Recipes can only be sorted by id, averageReviewRating or minutesToMake.");
+    }
+
+    public String valueOf(RecipeSummary recipe) {
+        switch (this) {
+            case RATING:
+                return Double.toString(recipe.getAverageReviewRating());
+            case MINUTES:
+                return Integer.toString(recipe.getMinutesToMake());
+            default:
+                return Long.toString(recipe.getId());
+        }
+    }
+
+    public Comparable<?> parse(String value) {
+        switch (this) {
+            case RATING:
+                return Double.valueOf(value);
+            case MINUTES:
+                return Integer.valueOf(value);
+            default:
+                return Long.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+//the columns of a list or search result, selected by a constructor expression without loading any Recipe
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSummary implements Serializable {
+
+    private long id;
+
+    private String name;
+
+    private String author;
+
+    private int difficultyRating;
+
+    private int minutesToMake;
+
+    private double averageReviewRating;
+
+    public static RecipeSummary from(Recipe recipe) {
+        return new RecipeSummary(recipe.getId(), recipe.getName(), recipe.getAuthor(),
+                recipe.getDifficultyRating(), recipe.getMinutesToMake(), recipe.getAverageReviewRating());
+    }
+}
@@ -4,9 +4,14 @@ import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Instant;
 
 @Entity
 @Getter
@@ -17,7 +22,8 @@ import java.io.Serializable;
 public class Review implements Serializable {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "review_generator")
+    @SequenceGenerator(name = "review_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private long id;
 
     @ManyToOne(optional = false)
@@ -31,11 +37,50 @@ public class Review implements Serializable {
     @NotNull(message = "A review must have a rating")
     private int rating;
 
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "recipeId", nullable = false, foreignKey = @ForeignKey)
+    @JsonIgnore
+    private Recipe recipe;
+
+    @Version
+    @JsonIgnore
+    private long version;
+
+    @JsonIgnore
+    private Instant lastModified;
+
+    @Transient
+    @JsonIgnore
+    private URI locationURI;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
+
     @JsonIgnore
     public String getAuthor() {
         return user.getUsername();
     }
 
+    public long getRecipeId() {
+        //reading the id of a lazy proxy does not initialize it
+        return recipe == null ? 0 : recipe.getId();
+    }
+
+    public void generateLocationURI() {
+        try {
+            locationURI = new URI(
+                    ServletUriComponentsBuilder.fromCurrentContextPath()
+                            .path("/review/")
+                            .path(String.valueOf(id))
+                            .toUriString());
+        } catch (URISyntaxException e) {
+            //Exception should stop here.
+        }
+    }
+
     public void validate() throws InvalidArgumentException{
         if (rating <= 0 || rating > 10) {
             throw new InvalidArgumentException("Rating must be between 0 and 10.");
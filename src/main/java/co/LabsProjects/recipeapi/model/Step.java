@@ -5,6 +5,7 @@ import lombok.*;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
 
@@ -17,7 +18,8 @@ import java.io.Serializable;
 public class Step implements Serializable {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "step_generator")
+    @SequenceGenerator(name = "step_generator", sequenceName = "hibernate_sequence", allocationSize = 50)
     private long id;
 
     @NotNull
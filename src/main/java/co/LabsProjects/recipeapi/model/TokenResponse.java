@@ -0,0 +1,15 @@
+package co.LabsProjects.recipeapi.model;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+public class TokenResponse {
+
+    private String accessToken;
+
+    private String tokenType;
+
+    //seconds until the token expires
+    private long expiresIn;
+}
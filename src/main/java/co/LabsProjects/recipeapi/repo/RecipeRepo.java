@@ -1,19 +1,110 @@
 package co.LabsProjects.recipeapi.repo;
 
 import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface RecipeRepo extends JpaRepository<Recipe, Long> {
+public interface RecipeRepo extends JpaRepository<Recipe, Long>, RecipeRepoCustom {
+
+    @EntityGraph(Recipe.DETAIL_GRAPH)
+    Optional<Recipe> findDetailedById(long id);
 
     List<Recipe> findByNameContainingIgnoreCase(String name);
 
     Recipe findByReviews_Id(long id);
 
-    List<Recipe> getByAverageReviewRatingGreaterThan(Double minimumRating);
-
     List<Recipe> getByNameContainingIgnoreCaseAndDifficultyRatingLessThanEqual(String name, int difficultyRating);
 
     List<Recipe> getByUser_Username(String username);
+
+    List<Recipe> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    //the export reads keyset chunks of ids first, a collection fetch cannot be combined with a row limit
+    @Query("select r.id from Recipe r where r.id > :after order by r.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    //recipes changed since the given time, which includes a change to any of their reviews
+    @Query("select r.id from Recipe r where r.id > :after and (r.lastModified >= :since or exists " +
+            "(select v.id from Review v where v.recipe = r and v.lastModified >= :since)) order by r.id")
+    List<Long> findIdsChangedSince(@Param("after") long after, @Param("since") Instant since, Pageable pageable);
+
+    @Query("select d.recipeId from RecipeDeletion d where d.recipeId > :after and d.deletedAt >= :since " +
+            "order by d.recipeId")
+    List<Long> findIdsDeletedSince(@Param("after") long after, @Param("since") Instant since, Pageable pageable);
+
+    @Query("select max(r.id) from Recipe r")
+    Optional<Long> findMaxId();
+
+    //pairs of recipe id and ingredient name in an id range, with a null name for a recipe without ingredients
+    @Query("select r.id, i.name from Recipe r left join r.ingredients i where r.id > :after and r.id <= :upTo")
+    List<Object[]> findIngredientNamesBetween(@Param("after") long after, @Param("upTo") long upTo);
+
+    @EntityGraph(Recipe.DETAIL_GRAPH)
+    @Query("select distinct r from Recipe r where r.id in :ids")
+    List<Recipe> findDetailedByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new co.LabsProjects.recipeapi.model.RecipeSummary(r.id, r.name, u.username, " +
+            "r.difficultyRating, r.minutesToMake, r.averageReviewRating) " +
+            "from Recipe r join r.user u where r.id in :ids")
+    List<RecipeSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.user.username from Recipe r where r.id = :id")
+    Optional<String> findAuthorUsernameById(@Param("id") long id);
+
+    //pairs of recipe id and author username
+    @Query("select r.id, r.user.username from Recipe r where r.id in :ids")
+    List<Object[]> findAuthorUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    //rows of recipe id, average rating, rating sum and rating count, read by the rating index after a rating change
+    @Query("select r.id, r.averageReviewRating, r.ratingSum, r.ratingCount from Recipe r where r.id in :ids")
+    List<Object[]> findRatingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.user.id from Recipe r where r.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") long id);
+
+    //rows of recipe version and last change with the id, version and last change of one review, ordered by review
+    //id, or a single row with null review columns for a recipe without reviews
+    @Query("select r.version, r.lastModified, v.id, v.version, v.lastModified from Recipe r left join r.reviews v " +
+            "where r.id = :id order by v.id")
+    List<Object[]> findVersionsById(@Param("id") long id);
+
+    //applies a review change to the rating counters in one statement, so concurrent writes never lose an update.
+    //The average is assigned first so it reads the old counters, the cast keeps the division a double one
+    @Modifying
+    @Query(value = "update recipe set " +
+            "average_review_rating = case when rating_count + :countDelta > 0 " +
+            "then cast(rating_sum + :sumDelta as double) / (rating_count + :countDelta) else 0 end, " +
+            "rating_sum = rating_sum + :sumDelta, " +
+            "rating_count = rating_count + :countDelta, " +
+            "version = version + 1, " +
+            "last_modified = current_timestamp(6) " +
+            "where id = :id", nativeQuery = true)
+    int applyRatingDelta(@Param("id") long id, @Param("sumDelta") long sumDelta, @Param("countDelta") int countDelta);
+
+    //recomputes the counters of the recipes in an id range that have drifted from the review table and returns how
+    //many did, one join against the range's review sums so a short transaction covers one range
+    @Modifying
+    @Query(value = "update recipe r left join (select v.recipe_id, sum(v.rating) as rating_sum, " +
+            "count(*) as rating_count from review v where v.recipe_id > :after and v.recipe_id <= :upTo " +
+            "group by v.recipe_id) t on t.recipe_id = r.id set " +
+            "r.average_review_rating = case when t.rating_count > 0 " +
+            "then cast(t.rating_sum as double) / t.rating_count else 0 end, " +
+            "r.rating_sum = coalesce(t.rating_sum, 0), " +
+            "r.rating_count = coalesce(t.rating_count, 0), " +
+            "r.version = r.version + 1, " +
+            "r.last_modified = current_timestamp(6) " +
+            "where r.id > :after and r.id <= :upTo " +
+            "and (r.rating_sum <> coalesce(t.rating_sum, 0) or r.rating_count <> coalesce(t.rating_count, 0))",
+            nativeQuery = true)
+    int reconcileRatingsBetween(@Param("after") long after, @Param("upTo") long upTo);
 }
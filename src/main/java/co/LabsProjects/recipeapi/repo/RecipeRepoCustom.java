@@ -0,0 +1,24 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RecipeRepoCustom {
+
+    //up to limit + 1 summaries after the cursor, the extra row tells the caller there is a next page
+    List<RecipeSummary> findPage(RecipeQuery query, PageCursor cursor);
+
+    //counts of the recipes matching the query's filters by each value of an integer attribute
+    Map<Integer, Long> countGroupedBy(RecipeQuery query, String attribute);
+
+    //inserts new recipes by the author in the caller's transaction, flushing and clearing every batchSize
+    void insertAll(List<Recipe> recipes, long authorId, int batchSize);
+
+    //records in the caller's transaction that the recipe was deleted, for findIdsDeletedSince
+    void recordDeletion(long id);
+}
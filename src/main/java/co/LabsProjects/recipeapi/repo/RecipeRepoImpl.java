@@ -0,0 +1,173 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeDeletion;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class RecipeRepoImpl implements RecipeRepoCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<RecipeSummary> findPage(RecipeQuery query, PageCursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecipeSummary> cq = cb.createQuery(RecipeSummary.class);
+        Root<Recipe> recipe = cq.from(Recipe.class);
+        Join<Recipe, CustomUserDetails> user = recipe.join("user");
+
+        List<Predicate> predicates = filters(cb, cq, recipe, user, query);
+        if (cursor != null) {
+            predicates.add(after(cb, recipe, query, cursor));
+        }
+
+        Path<?> sortPath = recipe.get(query.getSort().getAttribute());
+        Path<?> id = recipe.get("id");
+        //a single select of scalar columns, none of the recipe collections are touched
+        cq.select(cb.construct(RecipeSummary.class,
+                        recipe.get("id"),
+                        recipe.get("name"),
+                        user.get("username"),
+                        recipe.get("difficultyRating"),
+                        recipe.get("minutesToMake"),
+                        recipe.get("averageReviewRating")))
+                .where(predicates.toArray(new Predicate[0]))
+                //id breaks ties so the order is total and no row is skipped or repeated between pages
+                .orderBy(query.isDescending()
+                        ? List.of(cb.desc(sortPath), cb.desc(id))
+                        : List.of(cb.asc(sortPath), cb.asc(id)));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(query.getLimit() + 1)
+                .getResultList();
+    }
+
+    @Override
+    public Map<Integer, Long> countGroupedBy(RecipeQuery query, String attribute) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<Recipe> recipe = cq.from(Recipe.class);
+        Path<Integer> value = recipe.get(attribute);
+        //grouped by the plain column, bucketing is left to the caller so the statement stays index friendly
+        cq.multiselect(value, cb.count(recipe))
+                .where(filters(cb, cq, recipe, null, query).toArray(new Predicate[0]))
+                .groupBy(value);
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Object[] row : entityManager.createQuery(cq).getResultList()) {
+            counts.put((Integer) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public void insertAll(List<Recipe> recipes, long authorId, int batchSize) {
+        for (int i = 0; i < recipes.size(); i++) {
+            Recipe recipe = recipes.get(i);
+            //the author is not part of this session, a reference only sets the foreign key
+            recipe.setUser(entityManager.getReference(CustomUserDetails.class, authorId));
+            entityManager.persist(recipe);
+            if ((i + 1) % batchSize == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+    }
+
+    @Override
+    public void recordDeletion(long id) {
+        entityManager.persist(new RecipeDeletion(id, Instant.now()));
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    //the query's filters, each served by an index apart from the name, which is matched anywhere in it
+    private List<Predicate> filters(CriteriaBuilder cb, AbstractQuery<?> cq, Root<Recipe> recipe,
+                                    Join<Recipe, CustomUserDetails> user, RecipeQuery query) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getName() != null) {
+            String pattern = "%" + escapeLike(query.getName().toLowerCase()) + "%";
+            predicates.add(cb.like(cb.lower(recipe.<String>get("name")), pattern, LIKE_ESCAPE));
+        }
+        if (query.getMinDifficulty() != null) {
+            predicates.add(cb.ge(recipe.<Integer>get("difficultyRating"), query.getMinDifficulty()));
+        }
+        if (query.getMaxDifficulty() != null) {
+            predicates.add(cb.le(recipe.<Integer>get("difficultyRating"), query.getMaxDifficulty()));
+        }
+        if (query.getMinMinutes() != null) {
+            predicates.add(cb.ge(recipe.<Integer>get("minutesToMake"), query.getMinMinutes()));
+        }
+        if (query.getMaxMinutes() != null) {
+            predicates.add(cb.le(recipe.<Integer>get("minutesToMake"), query.getMaxMinutes()));
+        }
+        if (query.getMinRating() != null) {
+            predicates.add(cb.gt(recipe.<Double>get("averageReviewRating"), query.getMinRating()));
+        }
+        if (query.getMaxRating() != null) {
+            predicates.add(cb.le(recipe.<Double>get("averageReviewRating"), query.getMaxRating()));
+        }
+        if (query.getUsername() != null) {
+            Join<Recipe, CustomUserDetails> author = user != null ? user : recipe.join("user");
+            predicates.add(cb.equal(author.get("username"), query.getUsername()));
+        }
+        if (query.getIngredient() != null) {
+            //a semi join, so a recipe listing the ingredient twice is still returned once; equality leaves case to
+            //the column collation, which is case insensitive on MySQL
+            Subquery<Long> withIngredient = cq.subquery(Long.class);
+            Root<Recipe> listing = withIngredient.from(Recipe.class);
+            Join<Recipe, Ingredient> ingredient = listing.join("ingredients");
+            withIngredient.select(listing.<Long>get("id"))
+                    .where(cb.equal(ingredient.get("name"), query.getIngredient()));
+            predicates.add(recipe.get("id").in(withIngredient));
+        }
+        return predicates;
+    }
+
+    //a name is matched literally, as the Containing queries of Spring Data do, so % and _ are not wildcards
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder cb, Root<Recipe> recipe,
+                                                             RecipeQuery query, PageCursor cursor) {
+        Path<Y> sortPath = recipe.<Y>get(query.getSort().getAttribute());
+        Y lastValue = (Y) query.getSort().parse(cursor.getLastValue());
+        Path<Long> id = recipe.<Long>get("id");
+
+        if (query.isDescending()) {
+            return cb.or(
+                    cb.lessThan(sortPath, lastValue),
+                    cb.and(cb.equal(sortPath, lastValue), cb.lessThan(id, cursor.getLastId())));
+        }
+        return cb.or(
+                cb.greaterThan(sortPath, lastValue),
+                cb.and(cb.equal(sortPath, lastValue), cb.greaterThan(id, cursor.getLastId())));
+    }
+}
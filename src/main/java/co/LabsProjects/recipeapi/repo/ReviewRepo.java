@@ -1,11 +1,29 @@
 package co.LabsProjects.recipeapi.repo;
 
 import co.LabsProjects.recipeapi.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface ReviewRepo extends JpaRepository<Review, Long> {
+public interface ReviewRepo extends JpaRepository<Review, Long>, ReviewRepoCustom {
 
     List<Review> findByUser_Username(String username);
+
+    List<Review> findByUser_UsernameAndIdGreaterThanOrderByIdAsc(String username, long id, Pageable pageable);
+
+    @Query("select r.user.id from Review r where r.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") long id);
+
+    //pairs of review id and author id, for warming OwnershipIndex in keyset chunks
+    @Query("select r.id, r.user.id from Review r where r.id > :after order by r.id")
+    List<Object[]> findOwnerIdsAfter(@Param("after") long after, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Review r where r.recipe.id = :recipeId")
+    int deleteByRecipeId(@Param("recipeId") long recipeId);
 }
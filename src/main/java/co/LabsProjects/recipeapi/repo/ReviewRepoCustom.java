@@ -0,0 +1,11 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.model.Review;
+
+import java.util.List;
+
+public interface ReviewRepoCustom {
+
+    //inserts new reviews by the author in the caller's transaction, flushing and clearing every batchSize
+    void insertAll(List<Review> reviews, long authorId, int batchSize);
+}
@@ -0,0 +1,35 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class ReviewRepoImpl implements ReviewRepoCustom {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<Review> reviews, long authorId, int batchSize) {
+        for (int i = 0; i < reviews.size(); i++) {
+            Review review = reviews.get(i);
+            //references only set the foreign keys, neither the recipe nor the author is loaded
+            review.setRecipe(entityManager.getReference(Recipe.class, review.getRecipeId()));
+            review.setUser(entityManager.getReference(CustomUserDetails.class, authorId));
+            entityManager.persist(review);
+            if ((i + 1) % batchSize == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
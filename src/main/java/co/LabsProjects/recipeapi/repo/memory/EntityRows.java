@@ -0,0 +1,195 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.model.UserMeta;
+import co.LabsProjects.recipeapi.repo.memory.Rows.IngredientRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.RecipeRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.ReviewRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.RoleRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.StepRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//converts between entities and stored rows, entities built from a snapshot are detached copies
+final class EntityRows {
+
+    private EntityRows() {
+    }
+
+    static Recipe recipe(Snapshot snapshot, RecipeRow row) {
+        Recipe recipe = Recipe.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .user(user(snapshot.users.get(row.getUserId())))
+                .minutesToMake(row.getMinutesToMake())
+                .difficultyRating(row.getDifficultyRating())
+                .averageReviewRating(row.getAverageReviewRating())
+                .ratingSum(row.getRatingSum())
+                .ratingCount(row.getRatingCount())
+                .version(row.getVersion())
+                .lastModified(row.getLastModified())
+                .ingredients(mutableList(row.getIngredients(), ingredient ->
+                        new Ingredient(ingredient.getId(), ingredient.getName(), ingredient.getAmount(), ingredient.getState())))
+                .steps(mutableList(row.getSteps(), step ->
+                        new Step(step.getId(), step.getStepNumber(), step.getDescription())))
+                .build();
+        recipe.setReviews(new LazyReviews(snapshot, recipe));
+        return recipe;
+    }
+
+    static Review review(Snapshot snapshot, ReviewRow row, Recipe recipe) {
+        return Review.builder()
+                .id(row.getId())
+                .user(user(snapshot.users.get(row.getUserId())))
+                .description(row.getDescription())
+                .rating(row.getRating())
+                .recipe(recipe)
+                .version(row.getVersion())
+                .lastModified(row.getLastModified())
+                .build();
+    }
+
+    static CustomUserDetails user(UserRow row) {
+        if (row == null) {
+            return null;
+        }
+        CustomUserDetails user = CustomUserDetails.builder()
+                .id(row.getId())
+                .username(row.getUsername())
+                .password(row.getPassword())
+                .isAccountNonExpired(row.isAccountNonExpired())
+                .isAccountNonLocked(row.isAccountNonLocked())
+                .isCredentialsNonExpired(row.isCredentialsNonExpired())
+                .isEnabled(row.isEnabled())
+                .userMeta(new UserMeta(row.getMetaId(), row.getEmail(), row.getName()))
+                .build();
+        user.setAuthorities(mutableList(row.getRoles(), role -> new Role(role.getId(), role.getRole())));
+        return user;
+    }
+
+    //new ingredients and steps get their ids here, as cascaded persists would give them theirs
+    static RecipeRow row(Recipe recipe, InMemoryStore store) {
+        if (recipe.getUser() == null || recipe.getUser().getId() == null) {
+            throw new DataIntegrityViolationException("Recipe " + recipe.getId() + " has no author");
+        }
+        List<IngredientRow> ingredients = new ArrayList<>();
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                if (ingredient.getId() == null) {
+                    ingredient.setId(store.nextId());
+                }
+                ingredients.add(new IngredientRow(ingredient.getId(), ingredient.getName(), ingredient.getAmount(),
+                        ingredient.getState()));
+            }
+        }
+        List<StepRow> steps = new ArrayList<>();
+        if (recipe.getSteps() != null) {
+            for (Step step : recipe.getSteps()) {
+                if (step.getId() == 0) {
+                    step.setId(store.nextId());
+                }
+                steps.add(new StepRow(step.getId(), step.getStepNumber(), step.getDescription()));
+            }
+        }
+        return new RecipeRow(recipe.getId(), recipe.getName(), recipe.getUser().getId(), recipe.getMinutesToMake(),
+                recipe.getDifficultyRating(), recipe.getAverageReviewRating(), recipe.getRatingSum(),
+                recipe.getRatingCount(), recipe.getVersion(), recipe.getLastModified(), List.copyOf(ingredients),
+                List.copyOf(steps));
+    }
+
+    static ReviewRow row(Review review) {
+        if (review.getRecipe() == null || review.getUser() == null || review.getUser().getId() == null) {
+            throw new DataIntegrityViolationException("Review " + review.getId() + " has no recipe or author");
+        }
+        return new ReviewRow(review.getId(), review.getRecipeId(), review.getUser().getId(), review.getDescription(),
+                review.getRating(), review.getVersion(), review.getLastModified());
+    }
+
+    static UserRow row(CustomUserDetails user, InMemoryStore store) {
+        UserMeta meta = user.getUserMeta();
+        if (user.getUsername() == null || user.getPassword() == null || meta == null) {
+            throw new DataIntegrityViolationException("User " + user.getUsername() + " is missing required values");
+        }
+        if (meta.getId() == null) {
+            meta.setId(store.nextId());
+        }
+        List<RoleRow> roles = new ArrayList<>();
+        if (user.getAuthorities() != null) {
+            for (Role role : user.getAuthorities()) {
+                if (role.getId() == null) {
+                    role.setId(store.nextId());
+                }
+                roles.add(new RoleRow(role.getId(), role.getRole()));
+            }
+        }
+        return new UserRow(user.getId(), user.getUsername(), user.getPassword(), user.isAccountNonExpired(),
+                user.isAccountNonLocked(), user.isCredentialsNonExpired(), user.isEnabled(), List.copyOf(roles),
+                meta.getId(), meta.getName(), meta.getEmail());
+    }
+
+    private static <R, E> List<E> mutableList(List<R> rows, Function<R, E> entity) {
+        return rows.stream().map(entity).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    //the reviews of a recipe as of its snapshot, built on first use like the lazy JPA collection
+    private static class LazyReviews extends AbstractCollection<Review> implements Serializable {
+
+        private transient Snapshot snapshot;
+
+        private final Recipe recipe;
+
+        private List<Review> reviews;
+
+        LazyReviews(Snapshot snapshot, Recipe recipe) {
+            this.snapshot = snapshot;
+            this.recipe = recipe;
+        }
+
+        @Override
+        public Iterator<Review> iterator() {
+            return reviews().iterator();
+        }
+
+        @Override
+        public int size() {
+            return reviews().size();
+        }
+
+        @Override
+        public boolean add(Review review) {
+            return reviews().add(review);
+        }
+
+        private List<Review> reviews() {
+            if (reviews == null) {
+                Snapshot source = snapshot;
+                List<Review> loaded = new ArrayList<>();
+                source.reviewsOf(recipe.getId()).forEach((id, marker) -> {
+                    loaded.add(review(source, source.reviews.get(id), recipe));
+                    return true;
+                });
+                reviews = loaded;
+                snapshot = null;
+            }
+            return reviews;
+        }
+
+        //serialized as the plain list it stands for
+        private Object writeReplace() {
+            return new ArrayList<>(reviews());
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeFacets;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSortField;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.memory.Rows.RecipeRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.ReviewRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+//RecipeRepo of the in-memory profile, on the snapshot's tables and indexes
+@Component
+@Profile("in-memory")
+public class InMemoryRecipeRepo extends InMemoryRepository<Recipe> implements RecipeRepo {
+
+    @Override
+    LongTrie<?> table(Snapshot snapshot) {
+        return snapshot.recipes;
+    }
+
+    @Override
+    Recipe load(Snapshot snapshot, long id) {
+        RecipeRow row = snapshot.recipes.get(id);
+        return row == null ? null : EntityRows.recipe(snapshot, row);
+    }
+
+    @Override
+    Long idOf(Recipe recipe) {
+        return recipe.getId();
+    }
+
+    @Override
+    void remove(long id) {
+        store.write(new Mutation.DeleteRecipe(id));
+    }
+
+    //inserts an unstored recipe under a new id, as a merge would, otherwise checks and bumps the version
+    @Override
+    public <S extends Recipe> S save(S recipe) {
+        RecipeRow stored = store.view().recipes.get(recipe.getId());
+        if (stored == null) {
+            recipe.setId(store.nextId());
+            recipe.setVersion(0);
+        } else if (stored.getVersion() != recipe.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Recipe.class, recipe.getId());
+        } else {
+            recipe.setVersion(recipe.getVersion() + 1);
+        }
+        recipe.setLastModified(Instant.now());
+        store.write(new Mutation.PutRecipe(EntityRows.row(recipe, store)));
+        return recipe;
+    }
+
+    @Override
+    public void insertAll(List<Recipe> recipes, long authorId, int batchSize) {
+        //every recipe is a mutation of the caller's transaction, there are no batches to size
+        CustomUserDetails author = EntityRows.user(store.view().users.get(authorId));
+        for (Recipe recipe : recipes) {
+            recipe.setUser(author);
+            recipe.setId(0);
+            save(recipe);
+        }
+    }
+
+    @Override
+    public Optional<Recipe> findDetailedById(long id) {
+        return Optional.ofNullable(load(store.view(), id));
+    }
+
+    @Override
+    public List<Recipe> findByNameContainingIgnoreCase(String name) {
+        String part = name.toLowerCase();
+        return scan(row -> row.getName().toLowerCase().contains(part));
+    }
+
+    @Override
+    public Recipe findByReviews_Id(long id) {
+        Snapshot snapshot = store.view();
+        ReviewRow review = snapshot.reviews.get(id);
+        return review == null ? null : load(snapshot, review.getRecipeId());
+    }
+
+    @Override
+    public List<Recipe> getByNameContainingIgnoreCaseAndDifficultyRatingLessThanEqual(String name, int difficultyRating) {
+        String part = name.toLowerCase();
+        return scan(row -> row.getDifficultyRating() <= difficultyRating && row.getName().toLowerCase().contains(part));
+    }
+
+    @Override
+    public List<Recipe> getByUser_Username(String username) {
+        Snapshot snapshot = store.view();
+        UserRow user = snapshot.user(username);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        return page(snapshot.recipesOf(user.getId()), 0, Pageable.unpaged(), (id, marker) -> load(snapshot, id));
+    }
+
+    @Override
+    public List<Recipe> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable) {
+        Snapshot snapshot = store.view();
+        return page(snapshot.recipes, id, pageable, (recipeId, row) -> EntityRows.recipe(snapshot, row));
+    }
+
+    @Override
+    public List<Long> findIdsAfter(long after, Pageable pageable) {
+        return page(store.view().recipes, after, pageable, (id, row) -> id);
+    }
+
+    @Override
+    public List<Long> findIdsChangedSince(long after, Instant since, Pageable pageable) {
+        Snapshot snapshot = store.view();
+        return page(snapshot.recipes, after, pageable, (id, row) -> changedSince(snapshot, row, since) ? id : null);
+    }
+
+    @Override
+    public List<Long> findIdsDeletedSince(long after, Instant since, Pageable pageable) {
+        return page(store.view().recipeDeletions, after, pageable, (id, at) -> at.isBefore(since) ? null : id);
+    }
+
+    @Override
+    public void recordDeletion(long id) {
+        store.write(new Mutation.RecordRecipeDeletion(id, Instant.now()));
+    }
+
+    @Override
+    public Optional<Long> findMaxId() {
+        long highest = store.view().recipes.lastKey();
+        return highest < 0 ? Optional.empty() : Optional.of(highest);
+    }
+
+    @Override
+    public List<Object[]> findIngredientNamesBetween(long after, long upTo) {
+        List<Object[]> names = new ArrayList<>();
+        store.view().recipes.forEachFrom(after + 1, (id, row) -> {
+            if (id > upTo) {
+                return false;
+            }
+            if (row.getIngredients().isEmpty()) {
+                names.add(new Object[]{id, null});
+            }
+            row.getIngredients().forEach(ingredient -> names.add(new Object[]{id, ingredient.getName()}));
+            return true;
+        });
+        return names;
+    }
+
+    @Override
+    public List<Recipe> findDetailedByIdIn(Collection<Long> ids) {
+        return findAllById(new LinkedHashSet<>(ids));
+    }
+
+    @Override
+    public List<RecipeSummary> findSummariesByIdIn(Collection<Long> ids) {
+        Snapshot snapshot = store.view();
+        List<RecipeSummary> summaries = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            RecipeRow row = snapshot.recipes.get(id);
+            if (row != null) {
+                summaries.add(summary(snapshot, row));
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public Optional<String> findAuthorUsernameById(long id) {
+        Snapshot snapshot = store.view();
+        return Optional.ofNullable(snapshot.recipes.get(id))
+                .map(row -> snapshot.users.get(row.getUserId()).getUsername());
+    }
+
+    @Override
+    public List<Object[]> findAuthorUsernamesByIdIn(Collection<Long> ids) {
+        Snapshot snapshot = store.view();
+        List<Object[]> authors = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            RecipeRow row = snapshot.recipes.get(id);
+            if (row != null) {
+                authors.add(new Object[]{id, snapshot.users.get(row.getUserId()).getUsername()});
+            }
+        }
+        return authors;
+    }
+
+    @Override
+    public List<Object[]> findRatingsByIdIn(Collection<Long> ids) {
+        Snapshot snapshot = store.view();
+        List<Object[]> ratings = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            RecipeRow row = snapshot.recipes.get(id);
+            if (row != null) {
+                ratings.add(new Object[]{id, row.getAverageReviewRating(), row.getRatingSum(), row.getRatingCount()});
+            }
+        }
+        return ratings;
+    }
+
+    @Override
+    public Optional<Long> findOwnerIdById(long id) {
+        return Optional.ofNullable(store.view().recipes.get(id)).map(RecipeRow::getUserId);
+    }
+
+    @Override
+    public List<Object[]> findVersionsById(long id) {
+        Snapshot snapshot = store.view();
+        RecipeRow row = snapshot.recipes.get(id);
+        if (row == null) {
+            return List.of();
+        }
+        List<Object[]> versions = new ArrayList<>();
+        snapshot.reviewsOf(id).forEach((reviewId, marker) -> {
+            ReviewRow review = snapshot.reviews.get(reviewId);
+            versions.add(new Object[]{row.getVersion(), row.getLastModified(), reviewId, review.getVersion(),
+                    review.getLastModified()});
+            return true;
+        });
+        if (versions.isEmpty()) {
+            versions.add(new Object[]{row.getVersion(), row.getLastModified(), null, null, null});
+        }
+        return versions;
+    }
+
+    @Override
+    public int applyRatingDelta(long id, long sumDelta, int countDelta) {
+        if (store.view().recipes.get(id) == null) {
+            return 0;
+        }
+        store.write(new Mutation.RateRecipe(id, sumDelta, countDelta, Instant.now()));
+        return 1;
+    }
+
+    @Override
+    public int reconcileRatingsBetween(long after, long upTo) {
+        Snapshot snapshot = store.view();
+        Instant now = Instant.now();
+        List<RecipeRow> drifted = new ArrayList<>();
+        snapshot.recipes.forEachFrom(after + 1, (id, row) -> {
+            if (id > upTo) {
+                return false;
+            }
+            long[] sum = {0};
+            int[] count = {0};
+            snapshot.reviewsOf(id).forEach((reviewId, marker) -> {
+                sum[0] += snapshot.reviews.get(reviewId).getRating();
+                count[0]++;
+                return true;
+            });
+            if (sum[0] != row.getRatingSum() || count[0] != row.getRatingCount()) {
+                drifted.add(row.rated(sum[0], count[0], now));
+            }
+            return true;
+        });
+        drifted.forEach(row -> store.write(new Mutation.PutRecipe(row)));
+        return drifted.size();
+    }
+
+    //the page RecipeRepoImpl selects; id order is read straight from the table, other orders keep the first
+    //limit + 1 matches of a scan in a bounded heap
+    @Override
+    public List<RecipeSummary> findPage(RecipeQuery query, PageCursor cursor) {
+        Snapshot snapshot = store.view();
+        int size = query.getLimit() + 1;
+        Predicate<RecipeRow> filter = filter(query);
+        LongTrie<?> candidates = snapshot.recipes;
+        if (query.getUsername() != null) {
+            UserRow user = snapshot.user(query.getUsername());
+            if (user == null) {
+                return new ArrayList<>();
+            }
+            candidates = snapshot.recipesOf(user.getId());
+        }
+
+        List<RecipeRow> rows = new ArrayList<>();
+        if (query.getSort() == RecipeSortField.ID && !query.isDescending()) {
+            long after = cursor == null ? 0 : cursor.getLastId();
+            candidates.forEachFrom(after + 1, (id, value) -> {
+                RecipeRow row = snapshot.recipes.get(id);
+                if (filter.test(row)) {
+                    rows.add(row);
+                }
+                return rows.size() < size;
+            });
+        } else {
+            Comparator<RecipeRow> order = order(query.getSort(), query.isDescending());
+            RecipeRow last = cursor == null ? null : position(query.getSort(), cursor);
+            //the head is the last of the rows kept so far, dropped whenever a row before it comes along
+            PriorityQueue<RecipeRow> kept = new PriorityQueue<>(order.reversed());
+            candidates.forEach((id, value) -> {
+                RecipeRow row = snapshot.recipes.get(id);
+                if (filter.test(row) && (last == null || order.compare(row, last) > 0)) {
+                    kept.add(row);
+                    if (kept.size() > size) {
+                        kept.poll();
+                    }
+                }
+                return true;
+            });
+            rows.addAll(kept);
+            rows.sort(order);
+        }
+        return rows.stream().map(row -> summary(snapshot, row)).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Integer, Long> countGroupedBy(RecipeQuery query, String attribute) {
+        Snapshot snapshot = store.view();
+        Predicate<RecipeRow> filter = filter(query);
+        ToIntFunction<RecipeRow> value;
+        if (attribute.equals(RecipeFacets.MINUTES)) {
+            value = RecipeRow::getMinutesToMake;
+        } else if (attribute.equals(RecipeFacets.DIFFICULTY)) {
+            value = RecipeRow::getDifficultyRating;
+        } else {
+            throw new IllegalArgumentException("Recipes cannot be counted by " + attribute);
+        }
+        LongTrie<?> candidates = snapshot.recipes;
+        if (query.getUsername() != null) {
+            UserRow user = snapshot.user(query.getUsername());
+            if (user == null) {
+                return new TreeMap<>();
+            }
+            candidates = snapshot.recipesOf(user.getId());
+        }
+        Map<Integer, Long> counts = new TreeMap<>();
+        candidates.forEach((id, marker) -> {
+            RecipeRow row = snapshot.recipes.get(id);
+            if (filter.test(row)) {
+                counts.merge(value.applyAsInt(row), 1L, Long::sum);
+            }
+            return true;
+        });
+        return counts;
+    }
+
+    private List<Recipe> scan(Predicate<RecipeRow> filter) {
+        Snapshot snapshot = store.view();
+        return page(snapshot.recipes, 0, Pageable.unpaged(),
+                (id, row) -> filter.test(row) ? EntityRows.recipe(snapshot, row) : null);
+    }
+
+    private static boolean changedSince(Snapshot snapshot, RecipeRow row, Instant since) {
+        if (row.getLastModified() != null && !row.getLastModified().isBefore(since)) {
+            return true;
+        }
+        boolean[] changed = {false};
+        snapshot.reviewsOf(row.getId()).forEach((id, marker) -> {
+            Instant modified = snapshot.reviews.get(id).getLastModified();
+            changed[0] = modified != null && !modified.isBefore(since);
+            return !changed[0];
+        });
+        return changed[0];
+    }
+
+    private static RecipeSummary summary(Snapshot snapshot, RecipeRow row) {
+        return new RecipeSummary(row.getId(), row.getName(), snapshot.users.get(row.getUserId()).getUsername(),
+                row.getDifficultyRating(), row.getMinutesToMake(), row.getAverageReviewRating());
+    }
+
+    private static Predicate<RecipeRow> filter(RecipeQuery query) {
+        Predicate<RecipeRow> filter = row -> true;
+        if (query.getName() != null) {
+            String part = query.getName().toLowerCase();
+            filter = filter.and(row -> row.getName().toLowerCase().contains(part));
+        }
+        if (query.getMinDifficulty() != null) {
+            int minDifficulty = query.getMinDifficulty();
+            filter = filter.and(row -> row.getDifficultyRating() >= minDifficulty);
+        }
+        if (query.getMaxDifficulty() != null) {
+            int maxDifficulty = query.getMaxDifficulty();
+            filter = filter.and(row -> row.getDifficultyRating() <= maxDifficulty);
+        }
+        if (query.getMinMinutes() != null) {
+            int minMinutes = query.getMinMinutes();
+            filter = filter.and(row -> row.getMinutesToMake() >= minMinutes);
+        }
+        if (query.getMaxMinutes() != null) {
+            int maxMinutes = query.getMaxMinutes();
+            filter = filter.and(row -> row.getMinutesToMake() <= maxMinutes);
+        }
+        if (query.getMinRating() != null) {
+            double minRating = query.getMinRating();
+            filter = filter.and(row -> row.getAverageReviewRating() > minRating);
+        }
+        if (query.getMaxRating() != null) {
+            double maxRating = query.getMaxRating();
+            filter = filter.and(row -> row.getAverageReviewRating() <= maxRating);
+        }
+        if (query.getIngredient() != null) {
+            //ignoring case, as MySQL's default collation does
+            String ingredient = query.getIngredient();
+            filter = filter.and(row -> row.getIngredients().stream()
+                    .anyMatch(listed -> listed.getName().equalsIgnoreCase(ingredient)));
+        }
+        return filter;
+    }
+
+    //id breaks ties, so the order is total like the one the database is asked for
+    private static Comparator<RecipeRow> order(RecipeSortField sort, boolean descending) {
+        Comparator<RecipeRow> ascending;
+        switch (sort) {
+            case RATING:
+                ascending = Comparator.comparingDouble(RecipeRow::getAverageReviewRating);
+                break;
+            case MINUTES:
+                ascending = Comparator.comparingInt(RecipeRow::getMinutesToMake);
+                break;
+            default:
+                ascending = (a, b) -> 0;
+        }
+        ascending = ascending.thenComparingLong(RecipeRow::getId);
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    //a row standing at the cursor's position, only its sort field and id are compared
+    private static RecipeRow position(RecipeSortField sort, PageCursor cursor) {
+        Comparable<?> value = sort.parse(cursor.getLastValue());
+        double rating = sort == RecipeSortField.RATING ? (Double) value : 0;
+        int minutes = sort == RecipeSortField.MINUTES ? (Integer) value : 0;
+        return new RecipeRow(cursor.getLastId(), null, 0, minutes, 0, rating, 0, 0, 0, null, List.of(), List.of());
+    }
+}
@@ -0,0 +1,244 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+//the JpaRepository methods every in-memory repository shares, sorting by property and query by example aside
+abstract class InMemoryRepository<T> implements JpaRepository<T, Long> {
+
+    @Autowired
+    InMemoryStore store;
+
+    abstract LongTrie<?> table(Snapshot snapshot);
+
+    //null when there is no row with the id
+    abstract T load(Snapshot snapshot, long id);
+
+    abstract Long idOf(T entity);
+
+    abstract void remove(long id);
+
+    //the entries of a table above after, each mapped to a result or to null to skip it, one page of them
+    static <V, R> List<R> page(LongTrie<V> table, long after, Pageable pageable, BiFunction<Long, V, R> mapping) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int size = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<R> page = new ArrayList<>();
+        long[] skipped = {0};
+        table.forEachFrom(after + 1, (key, value) -> {
+            R result = mapping.apply(key, value);
+            if (result != null) {
+                if (skipped[0] < offset) {
+                    skipped[0]++;
+                } else {
+                    page.add(result);
+                }
+            }
+            return page.size() < size;
+        });
+        return page;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return Optional.ofNullable(load(store.view(), id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return table(store.view()).get(id) != null;
+    }
+
+    @Override
+    public List<T> findAll() {
+        return findAll(Pageable.unpaged()).getContent();
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        requireUnsorted(sort);
+        return findAll();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        requireUnsorted(pageable.getSort());
+        Snapshot snapshot = store.view();
+        List<T> content = page(table(snapshot), 0, pageable, (id, row) -> load(snapshot, id));
+        return pageable.isPaged() ? new PageImpl<>(content, pageable, table(snapshot).size()) : new PageImpl<>(content);
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        Snapshot snapshot = store.view();
+        List<T> found = new ArrayList<>();
+        for (Long id : ids) {
+            T entity = load(snapshot, id);
+            if (entity != null) {
+                found.add(entity);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return table(store.view()).size();
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    //writes go straight to the transaction's snapshot, there is nothing to flush
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (!existsById(id)) {
+            throw new EmptyResultDataAccessException(String.format("No entity with id %s exists!", id), 1);
+        }
+        remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        Long id = idOf(entity);
+        if (id != null && existsById(id)) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        List<Long> ids = new ArrayList<>();
+        table(store.view()).forEach((id, row) -> ids.add(id));
+        ids.forEach(this::remove);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        for (Long id : ids) {
+            if (existsById(id)) {
+                remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    //there are no proxies, the entity is read right away
+    @Override
+    public T getReferenceById(Long id) {
+        T entity = load(store.view(), id);
+        if (entity == null) {
+            throw new EntityNotFoundException("No entity with id " + id + " exists");
+        }
+        return entity;
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw byExample();
+    }
+
+    private static void requireUnsorted(Sort sort) {
+        if (sort.isSorted()) {
+            throw new UnsupportedOperationException("The in-memory repositories only return entities in id order");
+        }
+    }
+
+    private static UnsupportedOperationException byExample() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory repositories");
+    }
+}
@@ -0,0 +1,104 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
+import co.LabsProjects.recipeapi.repo.memory.Rows.ReviewRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//ReviewRepo of the in-memory profile, on the snapshot's tables and indexes
+@Component
+@Profile("in-memory")
+public class InMemoryReviewRepo extends InMemoryRepository<Review> implements ReviewRepo {
+
+    @Override
+    LongTrie<?> table(Snapshot snapshot) {
+        return snapshot.reviews;
+    }
+
+    //the review's recipe is read from the same snapshot, as the lazy association would be
+    @Override
+    Review load(Snapshot snapshot, long id) {
+        ReviewRow row = snapshot.reviews.get(id);
+        return row == null ? null
+                : EntityRows.review(snapshot, row, EntityRows.recipe(snapshot, snapshot.recipes.get(row.getRecipeId())));
+    }
+
+    @Override
+    Long idOf(Review review) {
+        return review.getId();
+    }
+
+    @Override
+    void remove(long id) {
+        store.write(new Mutation.DeleteReview(id));
+    }
+
+    @Override
+    public <S extends Review> S save(S review) {
+        ReviewRow stored = store.view().reviews.get(review.getId());
+        if (stored == null) {
+            review.setId(store.nextId());
+            review.setVersion(0);
+        } else if (stored.getVersion() != review.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Review.class, review.getId());
+        } else {
+            review.setVersion(review.getVersion() + 1);
+        }
+        review.setLastModified(Instant.now());
+        store.write(new Mutation.PutReview(EntityRows.row(review)));
+        return review;
+    }
+
+    @Override
+    public void insertAll(List<Review> reviews, long authorId, int batchSize) {
+        //every review is a mutation of the caller's transaction, there are no batches to size
+        CustomUserDetails author = EntityRows.user(store.view().users.get(authorId));
+        for (Review review : reviews) {
+            review.setUser(author);
+            review.setId(0);
+            save(review);
+        }
+    }
+
+    @Override
+    public List<Review> findByUser_Username(String username) {
+        return findByUser_UsernameAndIdGreaterThanOrderByIdAsc(username, 0, Pageable.unpaged());
+    }
+
+    @Override
+    public List<Review> findByUser_UsernameAndIdGreaterThanOrderByIdAsc(String username, long id, Pageable pageable) {
+        Snapshot snapshot = store.view();
+        UserRow user = snapshot.user(username);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        return page(snapshot.reviewsBy(user.getId()), id, pageable, (reviewId, marker) -> load(snapshot, reviewId));
+    }
+
+    @Override
+    public Optional<Long> findOwnerIdById(long id) {
+        return Optional.ofNullable(store.view().reviews.get(id)).map(ReviewRow::getUserId);
+    }
+
+    @Override
+    public List<Object[]> findOwnerIdsAfter(long after, Pageable pageable) {
+        return page(store.view().reviews, after, pageable, (id, row) -> new Object[]{id, row.getUserId()});
+    }
+
+    @Override
+    public int deleteByRecipeId(long recipeId) {
+        List<Long> ids = page(store.view().reviewsOf(recipeId), 0, Pageable.unpaged(), (id, marker) -> id);
+        ids.forEach(this::remove);
+        return ids.size();
+    }
+}
@@ -0,0 +1,192 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//storage of the in-memory profile: snapshot isolated transactions on the latest committed Snapshot, commits
+//serialized and checked for conflicts, and an optional write-ahead log for durability
+@Component
+@Profile("in-memory")
+public class InMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryStore.class);
+
+    //mutations per record when the state is rewritten into a fresh log
+    private static final int CHECKPOINT_BATCH = 1000;
+
+    @Value("${recipe-api.memory.wal-path:}")
+    String walPath;
+
+    @Value("${recipe-api.memory.wal-fsync:true}")
+    boolean walFsync;
+
+    @Value("${recipe-api.memory.checkpoint-mb:64}")
+    long checkpointMb;
+
+    private volatile Snapshot committed = Snapshot.EMPTY;
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    //one sequence for every table, ids only have to be unique within each
+    private final AtomicLong ids = new AtomicLong();
+
+    private WriteAheadLog wal;
+
+    private long sizeAfterRewrite;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!walPath.isBlank()) {
+            wal = new WriteAheadLog(Path.of(walPath), walFsync);
+            Snapshot[] recovered = {Snapshot.EMPTY};
+            long[] records = {0};
+            wal.recover(mutations -> {
+                for (Mutation mutation : mutations) {
+                    recovered[0] = mutation.applyTo(recovered[0]);
+                }
+                records[0]++;
+            });
+            committed = recovered[0];
+            sizeAfterRewrite = wal.size();
+            log.info("Recovered {} recipes, {} reviews and {} users from {} records of {}", committed.recipes.size(),
+                    committed.reviews.size(), committed.users.size(), records[0], walPath);
+        }
+        ids.set(committed.highestId);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    long nextId() {
+        return ids.incrementAndGet();
+    }
+
+    //what the calling thread reads: its transaction's snapshot, or the latest commit outside a transaction
+    Snapshot view() {
+        Transaction transaction = current();
+        return transaction != null ? transaction.working : committed;
+    }
+
+    void write(Mutation mutation) {
+        Transaction transaction = current();
+        if (transaction != null) {
+            transaction.apply(mutation);
+            return;
+        }
+        //like a repository method called outside a transaction on the JPA backend, the write commits on its own
+        Transaction single = begin();
+        single.apply(mutation);
+        commit(single);
+    }
+
+    Transaction begin() {
+        return new Transaction(committed);
+    }
+
+    void commit(Transaction transaction) {
+        if (transaction.mutations.isEmpty()) {
+            return;
+        }
+        commitLock.lock();
+        try {
+            Snapshot current = committed;
+            Snapshot next = current == transaction.base ? transaction.working : replay(transaction, current);
+            if (wal != null) {
+                try {
+                    wal.append(transaction.mutations);
+                } catch (IOException e) {
+                    throw new DataAccessResourceFailureException(
+                            "Could not write to the write-ahead log " + walPath, e);
+                }
+            }
+            committed = next;
+            if (wal != null) {
+                checkpoint(next);
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    //the commit is durable by now, a rewrite that fails leaves the old log in use and is tried again on a later one
+    private void checkpoint(Snapshot state) {
+        try {
+            long size = wal.size();
+            if (size > Math.max(checkpointMb * 1024 * 1024, 2 * sizeAfterRewrite)) {
+                wal.rewrite(state.asMutations(CHECKPOINT_BATCH));
+                sizeAfterRewrite = wal.size();
+                log.info("Rewrote the write-ahead log from {} to {} bytes", size, sizeAfterRewrite);
+            }
+        } catch (IOException e) {
+            log.warn("Could not rewrite the write-ahead log {}", walPath, e);
+        }
+    }
+
+    private static Snapshot replay(Transaction transaction, Snapshot current) {
+        for (Mutation mutation : transaction.mutations) {
+            if (mutation.conflicts(transaction.base, current)) {
+                throw new OptimisticLockingFailureException("A row written by this transaction was changed concurrently");
+            }
+        }
+        Snapshot next = current;
+        try {
+            for (Mutation mutation : transaction.mutations) {
+                next = mutation.applyTo(next);
+            }
+        } catch (DataIntegrityViolationException e) {
+            //the mutations applied cleanly to the transaction's own snapshot, so a concurrent commit broke them
+            throw new OptimisticLockingFailureException("A concurrent change conflicts with this transaction", e);
+        }
+        return next;
+    }
+
+    private Transaction current() {
+        Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+        return transaction == null || transaction.completed ? null : transaction;
+    }
+
+    static class Transaction {
+
+        final Snapshot base;
+
+        Snapshot working;
+
+        final List<Mutation> mutations = new ArrayList<>();
+
+        boolean rollbackOnly;
+
+        //set once committed or rolled back, later writes on the thread (after commit callbacks) commit on their own
+        boolean completed;
+
+        Transaction(Snapshot base) {
+            this.base = base;
+            this.working = base;
+        }
+
+        //a mutation that breaks a constraint throws here and is not recorded
+        void apply(Mutation mutation) {
+            working = mutation.applyTo(working);
+            mutations.add(mutation);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//runs transactions against the InMemoryStore, every one snapshot isolated whatever its isolation level
+public class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final InMemoryStore store;
+
+    public InMemoryTransactionManager(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new TransactionObject((InMemoryStore.Transaction) TransactionSynchronizationManager.getResource(store));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((TransactionObject) transaction).transaction != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        InMemoryStore.Transaction begun = store.begin();
+        ((TransactionObject) transaction).transaction = begun;
+        TransactionSynchronizationManager.bindResource(store, begun);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((TransactionObject) transaction).transaction = null;
+        return TransactionSynchronizationManager.unbindResource(store);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(store, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        InMemoryStore.Transaction transaction = ((TransactionObject) status.getTransaction()).transaction;
+        try {
+            store.commit(transaction);
+        } finally {
+            transaction.completed = true;
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        //nothing was published, the transaction's snapshot is dropped with it
+        ((TransactionObject) status.getTransaction()).transaction.completed = true;
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((TransactionObject) status.getTransaction()).transaction.rollbackOnly = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(store);
+        ((TransactionObject) transaction).transaction.completed = true;
+    }
+
+    private static class TransactionObject implements SmartTransactionObject {
+
+        InMemoryStore.Transaction transaction;
+
+        TransactionObject(InMemoryStore.Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return transaction.rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+//UserRepo of the in-memory profile, on the snapshot's tables and indexes
+@Component
+@Profile("in-memory")
+public class InMemoryUserRepo extends InMemoryRepository<CustomUserDetails> implements UserRepo {
+
+    @Override
+    LongTrie<?> table(Snapshot snapshot) {
+        return snapshot.users;
+    }
+
+    @Override
+    CustomUserDetails load(Snapshot snapshot, long id) {
+        return EntityRows.user(snapshot.users.get(id));
+    }
+
+    @Override
+    Long idOf(CustomUserDetails user) {
+        return user.getId();
+    }
+
+    @Override
+    void remove(long id) {
+        store.write(new Mutation.DeleteUser(id));
+    }
+
+    //users have no version column, a save of a stored user simply replaces it
+    @Override
+    public <S extends CustomUserDetails> S save(S user) {
+        if (user.getId() == null || store.view().users.get(user.getId()) == null) {
+            user.setId(store.nextId());
+        }
+        store.write(new Mutation.PutUser(EntityRows.row(user, store)));
+        return user;
+    }
+
+    @Override
+    public CustomUserDetails findByUsername(String username) {
+        UserRow row = store.view().user(username);
+        return EntityRows.user(row);
+    }
+}
@@ -0,0 +1,218 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import java.util.Objects;
+
+//persistent map from non-negative long keys to values in key order, an update shares every untouched node.
+//Keys are split into 5-bit digits, a node packs just its occupied children
+final class LongTrie<V> {
+
+    interface Visitor<V> {
+
+        //returns false to stop the iteration
+        boolean visit(long key, V value);
+    }
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final LongTrie<?> EMPTY = new LongTrie<>(null, 0, 0);
+
+    //null when the trie is empty
+    private final Node root;
+
+    //bit position of the digit the root branches on
+    private final int shift;
+
+    private final int size;
+
+    private LongTrie(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> LongTrie<V> empty() {
+        return (LongTrie<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key < 0 || root == null || !covers(shift, key)) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((int) (key >>> s) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (s == 0) {
+                return (V) child;
+            }
+            node = (Node) child;
+        }
+    }
+
+    LongTrie<V> put(long key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative keys cannot be stored: " + key);
+        }
+        Objects.requireNonNull(value);
+        Node node = root;
+        int s = shift;
+        if (node == null) {
+            node = Node.EMPTY;
+            s = 0;
+        }
+        while (!covers(s, key)) {
+            //a taller trie keeps the old root as the subtree of digit 0
+            if (node != Node.EMPTY) {
+                node = new Node(1, new Object[]{node});
+            }
+            s += BITS;
+        }
+        boolean[] added = new boolean[1];
+        Node updated = put(node, s, key, value, added);
+        return new LongTrie<>(updated, s, added[0] ? size + 1 : size);
+    }
+
+    LongTrie<V> remove(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Node updated = remove(root, shift, key);
+        return updated == null ? empty() : new LongTrie<>(updated, shift, size - 1);
+    }
+
+    //visits the entries with keys of at least from in ascending key order, until the visitor returns false
+    void forEachFrom(long from, Visitor<V> visitor) {
+        if (root != null) {
+            visit(root, shift, 0L, Math.max(from, 0L), visitor);
+        }
+    }
+
+    void forEach(Visitor<V> visitor) {
+        forEachFrom(0L, visitor);
+    }
+
+    //the largest key, or -1 when empty
+    long lastKey() {
+        if (root == null) {
+            return -1;
+        }
+        long key = 0;
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int digit = 31 - Integer.numberOfLeadingZeros(node.bitmap);
+            key |= (long) digit << s;
+            if (s == 0) {
+                return key;
+            }
+            node = (Node) node.slots[node.slots.length - 1];
+        }
+    }
+
+    //whether a root branching at bit s can hold the key, keys never use bit 63 so a shift of 60 holds them all
+    private static boolean covers(int s, long key) {
+        return s + BITS >= Long.SIZE - 1 || key >>> (s + BITS) == 0;
+    }
+
+    private static Node put(Node node, int s, long key, Object value, boolean[] added) {
+        int bit = 1 << ((int) (key >>> s) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        boolean present = (node.bitmap & bit) != 0;
+        Object child;
+        if (s == 0) {
+            child = value;
+            added[0] = !present;
+        } else {
+            child = put(present ? (Node) node.slots[index] : Node.EMPTY, s - BITS, key, value, added);
+        }
+        return present ? node.replace(index, child) : node.insert(bit, index, child);
+    }
+
+    //returns null once the node has no children left
+    private static Node remove(Node node, int s, long key) {
+        int bit = 1 << ((int) (key >>> s) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if (s == 0) {
+            return node.delete(bit, index);
+        }
+        Node below = remove((Node) node.slots[index], s - BITS, key);
+        return below == null ? node.delete(bit, index) : node.replace(index, below);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> boolean visit(Node node, int s, long prefix, long from, Visitor<V> visitor) {
+        int bitmap = node.bitmap;
+        int index = 0;
+        while (bitmap != 0) {
+            int digit = Integer.numberOfTrailingZeros(bitmap);
+            bitmap &= bitmap - 1;
+            Object child = node.slots[index++];
+            long first = prefix | ((long) digit << s);
+            //skips whole subtrees that end before from
+            if ((first | ((1L << s) - 1)) < from) {
+                continue;
+            }
+            if (s == 0) {
+                if (!visitor.visit(first, (V) child)) {
+                    return false;
+                }
+            } else if (!visit((Node) child, s - BITS, first, from, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int bitmap;
+
+        //children of the set digits in digit order: nodes, or values at the last level
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Node replace(int index, Object child) {
+            Object[] copy = slots.clone();
+            copy[index] = child;
+            return new Node(bitmap, copy);
+        }
+
+        Node insert(int bit, int index, Object child) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            copy[index] = child;
+            System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+            return new Node(bitmap | bit, copy);
+        }
+
+        Node delete(int bit, int index) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, copy.length - index);
+            return new Node(bitmap & ~bit, copy);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.repo.memory.Rows.RecipeRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.ReviewRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import lombok.Value;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+//one change to the store, replayed at commit onto the latest snapshot and stored in the write-ahead log
+interface Mutation extends Serializable {
+
+    Snapshot applyTo(Snapshot snapshot);
+
+    //whether a commit after base changed the row this mutation overwrites, which replaying it would lose
+    boolean conflicts(Snapshot base, Snapshot current);
+
+    @Value
+    class PutRecipe implements Mutation {
+
+        RecipeRow row;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.putRecipe(row);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.recipes.get(row.getId()) != current.recipes.get(row.getId());
+        }
+    }
+
+    @Value
+    class DeleteRecipe implements Mutation {
+
+        long id;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.deleteRecipe(id);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.recipes.get(id) != current.recipes.get(id);
+        }
+    }
+
+    //deletions are only ever added, so recording one never conflicts
+    @Value
+    class RecordRecipeDeletion implements Mutation {
+
+        long id;
+
+        Instant at;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.recordRecipeDeletion(id, at);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return false;
+        }
+    }
+
+    //adds to a recipe's rating counters. Deltas commute, so they never conflict with each other
+    @Value
+    class RateRecipe implements Mutation {
+
+        long id;
+
+        long sumDelta;
+
+        int countDelta;
+
+        Instant at;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.rateRecipe(id, sumDelta, countDelta, at);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return false;
+        }
+    }
+
+    @Value
+    class PutReview implements Mutation {
+
+        ReviewRow row;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.putReview(row);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.reviews.get(row.getId()) != current.reviews.get(row.getId());
+        }
+    }
+
+    @Value
+    class DeleteReview implements Mutation {
+
+        long id;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.deleteReview(id);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.reviews.get(id) != current.reviews.get(id);
+        }
+    }
+
+    @Value
+    class PutUser implements Mutation {
+
+        UserRow row;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.putUser(row);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.users.get(row.getId()) != current.users.get(row.getId());
+        }
+    }
+
+    @Value
+    class DeleteUser implements Mutation {
+
+        long id;
+
+        @Override
+        public Snapshot applyTo(Snapshot snapshot) {
+            return snapshot.deleteUser(id);
+        }
+
+        @Override
+        public boolean conflicts(Snapshot base, Snapshot current) {
+            return base.users.get(id) != current.users.get(id);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.Role;
+import lombok.Value;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+//the immutable, flat stored form of each entity, holding the ids of related rows
+final class Rows {
+
+    private Rows() {
+    }
+
+    @Value
+    static class RecipeRow implements Serializable {
+
+        long id;
+
+        String name;
+
+        long userId;
+
+        int minutesToMake;
+
+        int difficultyRating;
+
+        double averageReviewRating;
+
+        long ratingSum;
+
+        int ratingCount;
+
+        long version;
+
+        Instant lastModified;
+
+        List<IngredientRow> ingredients;
+
+        List<StepRow> steps;
+
+        //the same change RecipeRepo.applyRatingDelta makes with one statement
+        RecipeRow rated(long sum, int count, Instant at) {
+            double average = count > 0 ? (double) sum / count : 0;
+            return new RecipeRow(id, name, userId, minutesToMake, difficultyRating, average, sum, count,
+                    version + 1, at, ingredients, steps);
+        }
+    }
+
+    @Value
+    static class IngredientRow implements Serializable {
+
+        long id;
+
+        String name;
+
+        String amount;
+
+        String state;
+    }
+
+    @Value
+    static class StepRow implements Serializable {
+
+        long id;
+
+        int stepNumber;
+
+        String description;
+    }
+
+    @Value
+    static class ReviewRow implements Serializable {
+
+        long id;
+
+        long recipeId;
+
+        long userId;
+
+        String description;
+
+        int rating;
+
+        long version;
+
+        Instant lastModified;
+    }
+
+    @Value
+    static class UserRow implements Serializable {
+
+        long id;
+
+        String username;
+
+        String password;
+
+        boolean accountNonExpired;
+
+        boolean accountNonLocked;
+
+        boolean credentialsNonExpired;
+
+        boolean enabled;
+
+        List<RoleRow> roles;
+
+        long metaId;
+
+        String name;
+
+        String email;
+    }
+
+    @Value
+    static class RoleRow implements Serializable {
+
+        long id;
+
+        Role.Roles role;
+    }
+}
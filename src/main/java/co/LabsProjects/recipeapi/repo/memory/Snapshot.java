@@ -0,0 +1,256 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.repo.memory.Rows.RecipeRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.ReviewRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//one immutable state of the whole store, tables and indexes, that checks the constraints the MySQL schema does
+final class Snapshot {
+
+    static final Snapshot EMPTY = new Snapshot(LongTrie.empty(), LongTrie.empty(), LongTrie.empty(),
+            LongTrie.empty(), LongTrie.empty(), LongTrie.empty(), LongTrie.empty(), LongTrie.empty(), 0);
+
+    final LongTrie<RecipeRow> recipes;
+
+    final LongTrie<ReviewRow> reviews;
+
+    final LongTrie<UserRow> users;
+
+    //author or recipe id to the ordered set of the ids that reference it
+    final LongTrie<LongTrie<Boolean>> recipesByUser;
+
+    final LongTrie<LongTrie<Boolean>> reviewsByRecipe;
+
+    final LongTrie<LongTrie<Boolean>> reviewsByUser;
+
+    //hash of a username to the ids of the users whose names have that hash
+    final LongTrie<long[]> usersByName;
+
+    //id of a deleted recipe to when it was deleted
+    final LongTrie<Instant> recipeDeletions;
+
+    //largest id of any row, ingredients, steps and roles included, so the id sequence can resume after a restart
+    final long highestId;
+
+    private Snapshot(LongTrie<RecipeRow> recipes, LongTrie<ReviewRow> reviews, LongTrie<UserRow> users,
+                     LongTrie<LongTrie<Boolean>> recipesByUser, LongTrie<LongTrie<Boolean>> reviewsByRecipe,
+                     LongTrie<LongTrie<Boolean>> reviewsByUser, LongTrie<long[]> usersByName,
+                     LongTrie<Instant> recipeDeletions, long highestId) {
+        this.recipes = recipes;
+        this.reviews = reviews;
+        this.users = users;
+        this.recipesByUser = recipesByUser;
+        this.reviewsByRecipe = reviewsByRecipe;
+        this.reviewsByUser = reviewsByUser;
+        this.usersByName = usersByName;
+        this.recipeDeletions = recipeDeletions;
+        this.highestId = highestId;
+    }
+
+    UserRow user(String username) {
+        if (username == null) {
+            return null;
+        }
+        long[] ids = usersByName.get(hash(username));
+        if (ids != null) {
+            for (long id : ids) {
+                UserRow user = users.get(id);
+                if (user.getUsername().equals(username)) {
+                    return user;
+                }
+            }
+        }
+        return null;
+    }
+
+    LongTrie<Boolean> recipesOf(long userId) {
+        return orEmpty(recipesByUser.get(userId));
+    }
+
+    LongTrie<Boolean> reviewsOf(long recipeId) {
+        return orEmpty(reviewsByRecipe.get(recipeId));
+    }
+
+    LongTrie<Boolean> reviewsBy(long userId) {
+        return orEmpty(reviewsByUser.get(userId));
+    }
+
+    Snapshot putRecipe(RecipeRow row) {
+        if (users.get(row.getUserId()) == null) {
+            throw new DataIntegrityViolationException("Recipe " + row.getId() + " references a missing user " + row.getUserId());
+        }
+        RecipeRow old = recipes.get(row.getId());
+        LongTrie<LongTrie<Boolean>> byUser = recipesByUser;
+        if (old != null && old.getUserId() != row.getUserId()) {
+            byUser = unlink(byUser, old.getUserId(), old.getId());
+        }
+        if (old == null || old.getUserId() != row.getUserId()) {
+            byUser = link(byUser, row.getUserId(), row.getId());
+        }
+        long highest = Math.max(highestId, row.getId());
+        for (Rows.IngredientRow ingredient : row.getIngredients()) {
+            highest = Math.max(highest, ingredient.getId());
+        }
+        for (Rows.StepRow step : row.getSteps()) {
+            highest = Math.max(highest, step.getId());
+        }
+        return new Snapshot(recipes.put(row.getId(), row), reviews, users, byUser, reviewsByRecipe, reviewsByUser,
+                usersByName, recipeDeletions, highest);
+    }
+
+    Snapshot deleteRecipe(long id) {
+        RecipeRow old = recipes.get(id);
+        if (old == null) {
+            return this;
+        }
+        if (!reviewsOf(id).isEmpty()) {
+            throw new DataIntegrityViolationException("Recipe " + id + " still has reviews");
+        }
+        return new Snapshot(recipes.remove(id), reviews, users, unlink(recipesByUser, old.getUserId(), id),
+                reviewsByRecipe.remove(id), reviewsByUser, usersByName, recipeDeletions, highestId);
+    }
+
+    Snapshot recordRecipeDeletion(long id, Instant at) {
+        return new Snapshot(recipes, reviews, users, recipesByUser, reviewsByRecipe, reviewsByUser, usersByName,
+                recipeDeletions.put(id, at), highestId);
+    }
+
+    //a missing recipe is left alone, like an update statement that matches no row
+    Snapshot rateRecipe(long id, long sumDelta, int countDelta, Instant at) {
+        RecipeRow old = recipes.get(id);
+        if (old == null) {
+            return this;
+        }
+        RecipeRow rated = old.rated(old.getRatingSum() + sumDelta, old.getRatingCount() + countDelta, at);
+        return new Snapshot(recipes.put(id, rated), reviews, users, recipesByUser, reviewsByRecipe, reviewsByUser,
+                usersByName, recipeDeletions, highestId);
+    }
+
+    Snapshot putReview(ReviewRow row) {
+        if (recipes.get(row.getRecipeId()) == null) {
+            throw new DataIntegrityViolationException("Review " + row.getId() + " references a missing recipe " + row.getRecipeId());
+        }
+        if (users.get(row.getUserId()) == null) {
+            throw new DataIntegrityViolationException("Review " + row.getId() + " references a missing user " + row.getUserId());
+        }
+        ReviewRow old = reviews.get(row.getId());
+        LongTrie<LongTrie<Boolean>> byRecipe = reviewsByRecipe;
+        LongTrie<LongTrie<Boolean>> byUser = reviewsByUser;
+        if (old != null && old.getRecipeId() != row.getRecipeId()) {
+            byRecipe = unlink(byRecipe, old.getRecipeId(), old.getId());
+        }
+        if (old == null || old.getRecipeId() != row.getRecipeId()) {
+            byRecipe = link(byRecipe, row.getRecipeId(), row.getId());
+        }
+        if (old != null && old.getUserId() != row.getUserId()) {
+            byUser = unlink(byUser, old.getUserId(), old.getId());
+        }
+        if (old == null || old.getUserId() != row.getUserId()) {
+            byUser = link(byUser, row.getUserId(), row.getId());
+        }
+        return new Snapshot(recipes, reviews.put(row.getId(), row), users, recipesByUser, byRecipe, byUser,
+                usersByName, recipeDeletions, Math.max(highestId, row.getId()));
+    }
+
+    Snapshot deleteReview(long id) {
+        ReviewRow old = reviews.get(id);
+        if (old == null) {
+            return this;
+        }
+        return new Snapshot(recipes, reviews.remove(id), users, recipesByUser,
+                unlink(reviewsByRecipe, old.getRecipeId(), id), unlink(reviewsByUser, old.getUserId(), id),
+                usersByName, recipeDeletions, highestId);
+    }
+
+    Snapshot putUser(UserRow row) {
+        UserRow existing = user(row.getUsername());
+        if (existing != null && existing.getId() != row.getId()) {
+            throw new DataIntegrityViolationException("Duplicate username " + row.getUsername());
+        }
+        UserRow old = users.get(row.getId());
+        LongTrie<long[]> byName = usersByName;
+        if (old != null && !old.getUsername().equals(row.getUsername())) {
+            byName = unlinkName(byName, old.getUsername(), old.getId());
+        }
+        if (old == null || !old.getUsername().equals(row.getUsername())) {
+            long hash = hash(row.getUsername());
+            long[] ids = byName.get(hash);
+            long[] updated = ids == null ? new long[1] : Arrays.copyOf(ids, ids.length + 1);
+            updated[updated.length - 1] = row.getId();
+            byName = byName.put(hash, updated);
+        }
+        long highest = Math.max(Math.max(highestId, row.getId()), row.getMetaId());
+        for (Rows.RoleRow role : row.getRoles()) {
+            highest = Math.max(highest, role.getId());
+        }
+        return new Snapshot(recipes, reviews, users.put(row.getId(), row), recipesByUser, reviewsByRecipe,
+                reviewsByUser, byName, recipeDeletions, highest);
+    }
+
+    Snapshot deleteUser(long id) {
+        UserRow old = users.get(id);
+        if (old == null) {
+            return this;
+        }
+        if (!recipesOf(id).isEmpty() || !reviewsBy(id).isEmpty()) {
+            throw new DataIntegrityViolationException("User " + id + " still has recipes or reviews");
+        }
+        return new Snapshot(recipes, reviews, users.remove(id), recipesByUser.remove(id), reviewsByRecipe,
+                reviewsByUser.remove(id), unlinkName(usersByName, old.getUsername(), id), recipeDeletions,
+                highestId);
+    }
+
+    //the whole state as mutations in lists of at most batchSize, rows before those that reference them
+    List<List<Mutation>> asMutations(int batchSize) {
+        List<List<Mutation>> batches = new ArrayList<>();
+        List<Mutation> batch = new ArrayList<>(batchSize);
+        users.forEach((id, row) -> addTo(batches, batch, new Mutation.PutUser(row), batchSize));
+        recipes.forEach((id, row) -> addTo(batches, batch, new Mutation.PutRecipe(row), batchSize));
+        reviews.forEach((id, row) -> addTo(batches, batch, new Mutation.PutReview(row), batchSize));
+        recipeDeletions.forEach((id, at) ->
+                addTo(batches, batch, new Mutation.RecordRecipeDeletion(id, at), batchSize));
+        if (!batch.isEmpty()) {
+            batches.add(new ArrayList<>(batch));
+        }
+        return batches;
+    }
+
+    private static boolean addTo(List<List<Mutation>> batches, List<Mutation> batch, Mutation mutation, int batchSize) {
+        batch.add(mutation);
+        if (batch.size() == batchSize) {
+            batches.add(new ArrayList<>(batch));
+            batch.clear();
+        }
+        return true;
+    }
+
+    private static LongTrie<Boolean> orEmpty(LongTrie<Boolean> ids) {
+        return ids == null ? LongTrie.empty() : ids;
+    }
+
+    private static LongTrie<LongTrie<Boolean>> link(LongTrie<LongTrie<Boolean>> index, long parent, long child) {
+        return index.put(parent, orEmpty(index.get(parent)).put(child, Boolean.TRUE));
+    }
+
+    private static LongTrie<LongTrie<Boolean>> unlink(LongTrie<LongTrie<Boolean>> index, long parent, long child) {
+        LongTrie<Boolean> children = orEmpty(index.get(parent)).remove(child);
+        return children.isEmpty() ? index.remove(parent) : index.put(parent, children);
+    }
+
+    private static LongTrie<long[]> unlinkName(LongTrie<long[]> index, String username, long id) {
+        long hash = hash(username);
+        long[] ids = index.get(hash);
+        long[] remaining = Arrays.stream(ids).filter(other -> other != id).toArray();
+        return remaining.length == 0 ? index.remove(hash) : index.put(hash, remaining);
+    }
+
+    private static long hash(String username) {
+        return username.hashCode() & 0xFFFFFFFFL;
+    }
+}
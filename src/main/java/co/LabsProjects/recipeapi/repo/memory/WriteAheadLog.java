@@ -0,0 +1,194 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+//append-only file of commits, one length and CRC32 prefixed record each. A torn record at the end is cut off
+//on recovery, compaction rewrites the state into a new file and moves it over the log
+class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+
+    private final boolean fsync;
+
+    private FileChannel channel;
+
+    //why the log stopped taking appends, null while it is usable
+    private IOException failure;
+
+    WriteAheadLog(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    //replays every complete record in commit order, cuts off a torn one at the end and opens the log
+    void recover(Consumer<List<Mutation>> replay) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long valid = 0;
+        if (Files.exists(path)) {
+            long fileSize = Files.size(path);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                byte[] payload;
+                while ((payload = read(in, fileSize - valid)) != null) {
+                    replay.accept(deserialize(payload));
+                    valid += HEADER_BYTES + payload.length;
+                }
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            log.warn("Cutting a torn record of {} bytes off the end of {}", channel.size() - valid, path);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+    }
+
+    void append(List<Mutation> mutations) throws IOException {
+        checkUsable();
+        ByteBuffer record = encode(mutations);
+        long start = channel.position();
+        try {
+            writeRecord(channel, record);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            //the commit fails, so none of its record may stay in front of the next one
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                failure = e;
+            }
+            throw e;
+        }
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    //replaces the log with one holding just the given records
+    void rewrite(List<List<Mutation>> state) throws IOException {
+        checkUsable();
+        Path rewritten = path.resolveSibling(path.getFileName() + ".rewrite");
+        try {
+            try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (List<Mutation> mutations : state) {
+                    writeRecord(out, encode(mutations));
+                }
+                out.force(true);
+            }
+            Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            //the current channel still appends to the old log, which stays valid
+            Files.deleteIfExists(rewritten);
+            throw e;
+        }
+
+        FileChannel replaced = channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            //the old channel now writes to a file that is no longer the log
+            channel = replaced;
+            failure = e;
+            throw e;
+        }
+        replaced.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    //overridden by tests to fail part way through a record
+    void writeRecord(FileChannel out, ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            out.write(record);
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("The write-ahead log " + path + " could not be cut back after a failed write",
+                    failure);
+        }
+    }
+
+    private static ByteBuffer encode(List<Mutation> mutations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(new ArrayList<>(mutations));
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    //returns the payload of the next record, or null at the end of the log or at a torn record
+    private static byte[] read(DataInputStream in, long remaining) throws IOException {
+        byte[] payload;
+        int checksum;
+        try {
+            int length = in.readInt();
+            checksum = in.readInt();
+            if (length < 0 || length > remaining - HEADER_BYTES) {
+                return null;
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Mutation> deserialize(byte[] payload) throws IOException {
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (List<Mutation>) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable record in " + path, e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.UserChangedEvent;
+import co.LabsProjects.recipeapi.model.AccessToken;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityNotFoundException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+
+//issues and verifies HMAC-SHA256 signed access tokens; all nodes must share recipe-api.token.secret
+@Service
+public class AccessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    TokenDenyList denyList;
+
+    @Autowired
+    CustomUserDetailsService userDetailsService;
+
+    @Value("${recipe-api.token.secret:}")
+    String secret;
+
+    @Value("${recipe-api.token.ttl-seconds:900}")
+    long ttlSeconds;
+
+    //how long a token can be refreshed for before the password has to be presented again
+    @Value("${recipe-api.token.max-session-seconds:43200}")
+    long maxSessionSeconds;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    void initKey() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            log.warn("recipe-api.token.secret is not set, using a random key. Tokens will only be valid on this node until it restarts.");
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret);
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public String issue(CustomUserDetails user) {
+        long now = System.currentTimeMillis() / 1000;
+        return sign(new AccessToken(newTokenId(), user.getId(), denyList.credentialVersion(user.getId()),
+                user.getUsername(), roles(user), now, now + ttlSeconds, now));
+    }
+
+    //swaps a valid token for a new one and revokes the old, refused if the user's login or roles changed
+    public String refresh(AccessToken token) {
+        long now = System.currentTimeMillis() / 1000;
+        if (now - token.getAuthenticatedAt() > maxSessionSeconds) {
+            throw new BadCredentialsException("The session is too old to refresh, request a new token.");
+        }
+
+        CustomUserDetails user;
+        try {
+            user = userDetailsService.getUserByUserId(token.getUserId());
+        } catch (EntityNotFoundException e) {
+            throw new BadCredentialsException("The user no longer exists, request a new token.");
+        }
+        if (!user.isEnabled() || !user.isAccountNonLocked() || !user.isAccountNonExpired()
+                || !user.isCredentialsNonExpired()) {
+            throw new BadCredentialsException("The account can no longer log in.");
+        }
+        if (!user.getUsername().equals(token.getUsername())
+                || !new HashSet<>(roles(user)).equals(new HashSet<>(token.getRoles()))) {
+            throw new BadCredentialsException("The account has changed, request a new token.");
+        }
+
+        //only one of several concurrent refreshes of the same token gets to issue a replacement
+        if (!denyList.revoke(token.getTokenId(), token.getExpiresAt())) {
+            throw new BadCredentialsException("The access token has already been refreshed or revoked");
+        }
+        return sign(new AccessToken(newTokenId(), token.getUserId(), token.getCredentialVersion(), token.getUsername(),
+                token.getRoles(), now, now + ttlSeconds, token.getAuthenticatedAt()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        denyList.revokeUser(event.getUserId());
+    }
+
+    public void revoke(AccessToken token) {
+        denyList.revoke(token.getTokenId(), token.getExpiresAt());
+    }
+
+    public AccessToken verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            throw new BadCredentialsException("Malformed access token");
+        }
+        String payload = token.substring(0, dot);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Malformed access token");
+        }
+        //constant time comparison, so the signature cannot be guessed byte by byte from response times
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            throw new BadCredentialsException("Invalid access token signature");
+        }
+
+        AccessToken accessToken = parse(payload);
+        if (accessToken.getExpiresAt() <= System.currentTimeMillis() / 1000) {
+            throw new BadCredentialsException("The access token has expired");
+        }
+        if (denyList.isRevoked(accessToken.getTokenId())
+                || denyList.isUserRevoked(accessToken.getUserId(), accessToken.getCredentialVersion())) {
+            throw new BadCredentialsException("The access token has been revoked");
+        }
+        return accessToken;
+    }
+
+    private String sign(AccessToken token) {
+        List<String> roles = new ArrayList<>();
+        token.getRoles().forEach(role -> roles.add(role.name()));
+        String raw = String.join("|",
+                token.getTokenId(),
+                Long.toString(token.getUserId()),
+                Long.toString(token.getCredentialVersion()),
+                Long.toString(token.getIssuedAt()),
+                Long.toString(token.getExpiresAt()),
+                Long.toString(token.getAuthenticatedAt()),
+                String.join(",", roles),
+                token.getUsername());
+        String payload = ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    private AccessToken parse(String payload) {
+        try {
+            //the username goes last and is not split any further, so it may contain the separator
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\\|", 8);
+            List<Role.Roles> roles = new ArrayList<>();
+            for (String role : parts[6].split(",")) {
+                if (!role.isEmpty()) {
+                    roles.add(Role.Roles.valueOf(role));
+                }
+            }
+            return new AccessToken(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[7], roles,
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadCredentialsException("Malformed access token");
+        }
+    }
+
+    private static List<Role.Roles> roles(CustomUserDetails user) {
+        List<Role.Roles> roles = new ArrayList<>();
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            roles.add(Role.Roles.valueOf(authority.getAuthority()));
+        }
+        return roles;
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            //Mac instances are not thread safe and cheap to create compared to a BCrypt round
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    private String newTokenId() {
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+        return ENCODER.encodeToString(id);
+    }
+}
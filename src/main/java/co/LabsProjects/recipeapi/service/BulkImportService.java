@@ -0,0 +1,307 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.BulkImportedEvent;
+import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
+import co.LabsProjects.recipeapi.index.RecipeIndex;
+import co.LabsProjects.recipeapi.model.BulkImportReport;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+//imports recipes or reviews from NDJSON as the body is read, in chunks of recipe-api.bulk.chunk-size each in its
+//own transaction. A chunk the database rejects is retried line by line
+@Service
+public class BulkImportService {
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    ReviewRepo reviewRepo;
+
+    @Autowired
+    RecipeService recipeService;
+
+    @Autowired
+    List<RecipeIndex> recipeIndexes;
+
+    @Autowired
+    OwnershipIndex ownershipIndex;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${recipe-api.bulk.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${recipe-api.bulk.flush-size:50}")
+    int flushSize;
+
+    @Value("${recipe-api.bulk.max-reported-errors:1000}")
+    int maxReportedErrors;
+
+    //every line a recipe as POST /recipes accepts it, authored by the importing user
+    public BulkImportReport importRecipes(InputStream body, CustomUserDetails author) throws IOException {
+        return importLines(body, new RecipeWriter(author));
+    }
+
+    //every line a review as POST /review/{recipeId} accepts it, plus its recipeId
+    public BulkImportReport importReviews(InputStream body, CustomUserDetails author) throws IOException {
+        return importLines(body, new ReviewWriter(author));
+    }
+
+    private <T> BulkImportReport importLines(InputStream body, Writer<T> writer) throws IOException {
+        BulkImportReport report = new BulkImportReport(maxReportedErrors);
+        List<Line<T>> chunk = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long number = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            number++;
+            if (text.isBlank()) {
+                continue;
+            }
+            report.addLine();
+            Line<T> line = parse(number, text, writer, report);
+            if (line != null) {
+                chunk.add(line);
+            }
+            if (chunk.size() >= chunkSize) {
+                write(chunk, writer, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, writer, report);
+        }
+        return report;
+    }
+
+    private <T> Line<T> parse(long number, String text, Writer<T> writer, BulkImportReport report) {
+        try {
+            return new Line<>(number, text, writer.parse(text));
+        } catch (JsonProcessingException e) {
+            report.addFailure(number, "Invalid JSON: " + e.getOriginalMessage());
+        } catch (InvalidArgumentException e) {
+            report.addFailure(number, e.getMessage());
+        }
+        return null;
+    }
+
+    private <T> void write(List<Line<T>> chunk, Writer<T> writer, BulkImportReport report) {
+        List<Line<T>> accepted = writer.check(chunk, report);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<T> items = accepted.stream().map(line -> line.item).collect(Collectors.toList());
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.write(items));
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            if (accepted.size() == 1) {
+                report.addFailure(accepted.get(0).number, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                return;
+            }
+            //the rolled back entities already carry ids, so every line is parsed again before it is retried alone
+            for (Line<T> line : accepted) {
+                Line<T> again = parse(line.number, line.text, writer, report);
+                if (again != null) {
+                    write(List.of(again), writer, report);
+                }
+            }
+            return;
+        }
+        report.addImported(items.size());
+        writer.afterCommit(items);
+    }
+
+    private interface Writer<T> {
+
+        T parse(String json) throws JsonProcessingException, InvalidArgumentException;
+
+        //returns the lines that can be written, reporting the others
+        List<Line<T>> check(List<Line<T>> lines, BulkImportReport report);
+
+        //runs inside the chunk's transaction
+        void write(List<T> items);
+
+        void afterCommit(List<T> items);
+    }
+
+    @AllArgsConstructor
+    private static class Line<T> {
+
+        private final long number;
+
+        private final String text;
+
+        private final T item;
+    }
+
+    private class RecipeWriter implements Writer<Recipe> {
+
+        private final CustomUserDetails author;
+
+        RecipeWriter(CustomUserDetails author) {
+            this.author = author;
+        }
+
+        @Override
+        public Recipe parse(String json) throws JsonProcessingException, InvalidArgumentException {
+            Recipe recipe = objectMapper.readValue(json, Recipe.class);
+            recipe.setId(0);
+            recipe.setUser(author);
+            recipe.clearReviews();
+            if (recipe.getIngredients() != null) {
+                recipe.getIngredients().forEach(ingredient -> ingredient.setId(null));
+            }
+            if (recipe.getSteps() != null) {
+                recipe.getSteps().forEach(step -> step.setId(0));
+            }
+            recipe.validate();
+            return recipe;
+        }
+
+        @Override
+        public List<Line<Recipe>> check(List<Line<Recipe>> lines, BulkImportReport report) {
+            return lines;
+        }
+
+        @Override
+        public void write(List<Recipe> recipes) {
+            recipeRepo.insertAll(recipes, author.getId(), flushSize);
+        }
+
+        @Override
+        public void afterCommit(List<Recipe> recipes) {
+            //the insert left a detached reference in place of the author, which the summaries cannot read
+            recipes.forEach(recipe -> recipe.setUser(author));
+            recipes.forEach(recipe -> recipeIndexes.forEach(index -> index.index(recipe)));
+            List<Long> ids = recipes.stream().map(Recipe::getId).collect(Collectors.toList());
+            eventPublisher.publishEvent(BulkImportedEvent.recipes(ids, author.getId(), author.getUsername()));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ReviewLine {
+
+        private final long recipeId;
+
+        private final Review review;
+    }
+
+    private class ReviewWriter implements Writer<ReviewLine> {
+
+        private final CustomUserDetails author;
+
+        ReviewWriter(CustomUserDetails author) {
+            this.author = author;
+        }
+
+        @Override
+        public ReviewLine parse(String json) throws JsonProcessingException, InvalidArgumentException {
+            JsonNode node = objectMapper.readTree(json);
+            long recipeId = node.path("recipeId").asLong();
+            if (recipeId <= 0) {
+                throw new InvalidArgumentException("recipeId must have a value");
+            }
+            Review review = objectMapper.treeToValue(node, Review.class);
+            review.setId(0);
+            review.setUser(author);
+            review.validate();
+            return new ReviewLine(recipeId, review);
+        }
+
+        @Override
+        public List<Line<ReviewLine>> check(List<Line<ReviewLine>> lines, BulkImportReport report) {
+            //one query for the authors of every recipe the chunk reviews
+            Set<Long> recipeIds = lines.stream().map(line -> line.item.recipeId).collect(Collectors.toSet());
+            Map<Long, String> recipeAuthors = new HashMap<>();
+            for (Object[] row : recipeRepo.findAuthorUsernamesByIdIn(recipeIds)) {
+                recipeAuthors.put((Long) row[0], (String) row[1]);
+            }
+
+            List<Line<ReviewLine>> accepted = new ArrayList<>(lines.size());
+            for (Line<ReviewLine> line : lines) {
+                String recipeAuthor = recipeAuthors.get(line.item.recipeId);
+                if (recipeAuthor == null) {
+                    report.addFailure(line.number, "No recipe with ID " + line.item.recipeId + " could be found.");
+                } else if (recipeAuthor.equals(author.getUsername())) {
+                    report.addFailure(line.number, "Stop trying to upvote your own recipe!");
+                } else {
+                    accepted.add(line);
+                }
+            }
+            return accepted;
+        }
+
+        @Override
+        public void write(List<ReviewLine> reviews) {
+            //one counter update per recipe, in id order so that concurrent imports lock recipes in the same order,
+            //and before the inserts for the same reason as in ReviewService.postNewReview
+            Map<Long, long[]> ratings = new TreeMap<>();
+            for (ReviewLine line : reviews) {
+                long[] rating = ratings.computeIfAbsent(line.recipeId, id -> new long[2]);
+                rating[0] += line.review.getRating();
+                rating[1]++;
+            }
+            ratings.forEach((recipeId, rating) -> recipeService.applyReviewRating(recipeId, rating[0], (int) rating[1]));
+
+            List<Review> inserts = new ArrayList<>(reviews.size());
+            for (ReviewLine line : reviews) {
+                //insertAll only needs the recipe's id
+                line.review.setRecipe(Recipe.builder().id(line.recipeId).build());
+                inserts.add(line.review);
+            }
+            reviewRepo.insertAll(inserts, author.getId(), flushSize);
+        }
+
+        @Override
+        public void afterCommit(List<ReviewLine> reviews) {
+            List<Long> reviewIds = new ArrayList<>(reviews.size());
+            Set<Long> recipeIds = new LinkedHashSet<>();
+            for (ReviewLine line : reviews) {
+                ownershipIndex.putReviewOwner(line.review.getId(), author.getId());
+                reviewIds.add(line.review.getId());
+                recipeIds.add(line.recipeId);
+            }
+            eventPublisher.publishEvent(BulkImportedEvent.reviews(reviewIds, recipeIds, author.getId(), author.getUsername()));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.configuration.CachePolicyProperties;
+import co.LabsProjects.recipeapi.configuration.CountingCache;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.LocalMapStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+//publishes what GET /cache/stats reports as meters tagged with the cache name, bound once the application is
+//ready so the registry does not create the caches
+@Component
+public class CacheMetrics {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    CachePolicyProperties cachePolicyProperties;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    @Qualifier("hazelcastInstance")
+    HazelcastInstance hazelcastMember;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bind() {
+        MeterRegistry registry = meterRegistry;
+        //maps are created on first use, so the configured names are bound as well as those that already exist
+        Set<String> names = new TreeSet<>(cachePolicyProperties.getPolicies().keySet());
+        names.addAll(cacheManager.getCacheNames());
+        names.remove(PrincipalCache.PRINCIPALS);
+        names.remove(PrincipalCache.USERNAMES_BY_ID);
+        for (String name : names) {
+            bindCache(registry, name);
+        }
+
+        //the principal cache counts its own lookups
+        gets(registry, PrincipalCache.PRINCIPALS, "hit", principalCache, PrincipalCache::getHits);
+        gets(registry, PrincipalCache.PRINCIPALS, "miss", principalCache, PrincipalCache::getMisses);
+        bindMemberStats(registry, PrincipalCache.PRINCIPALS);
+    }
+
+    private void bindCache(MeterRegistry registry, String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache instanceof CountingCache) {
+            CountingCache counting = (CountingCache) cache;
+            gets(registry, name, "hit", counting, CountingCache::getHits);
+            gets(registry, name, "miss", counting, CountingCache::getMisses);
+        }
+        if (cache != null && cache.getNativeCache() instanceof IMap) {
+            IMap<?, ?> clientMap = (IMap<?, ?>) cache.getNativeCache();
+            FunctionCounter.builder("cache.near.gets", clientMap, map -> nearCache(map, true))
+                    .tags("cache", name, "result", "hit").register(registry);
+            FunctionCounter.builder("cache.near.gets", clientMap, map -> nearCache(map, false))
+                    .tags("cache", name, "result", "miss").register(registry);
+            FunctionCounter.builder("cache.near.evictions", clientMap, CacheMetrics::nearCacheEvictions)
+                    .tags("cache", name).register(registry);
+        }
+        bindMemberStats(registry, name);
+    }
+
+    private void bindMemberStats(MeterRegistry registry, String name) {
+        IMap<?, ?> memberMap = hazelcastMember.getMap(name);
+        Gauge.builder("cache.size", memberMap, map -> map.getLocalMapStats().getOwnedEntryCount())
+                .tag("cache", name).description("Entries owned by this node").register(registry);
+        FunctionCounter.builder("cache.evictions", memberMap, map -> map.getLocalMapStats().getEvictionCount())
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.expirations", memberMap, map -> map.getLocalMapStats().getExpirationCount())
+                .tag("cache", name).register(registry);
+    }
+
+    private static <T> void gets(MeterRegistry registry, String name, String result, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.gets", source, count)
+                .tags("cache", name, "result", result)
+                .register(registry);
+    }
+
+    private static double nearCache(IMap<?, ?> map, boolean hits) {
+        LocalMapStats stats = map.getLocalMapStats();
+        if (stats.getNearCacheStats() == null) {
+            return 0;
+        }
+        return hits ? stats.getNearCacheStats().getHits() : stats.getNearCacheStats().getMisses();
+    }
+
+    private static double nearCacheEvictions(IMap<?, ?> map) {
+        LocalMapStats stats = map.getLocalMapStats();
+        return stats.getNearCacheStats() == null ? 0 : stats.getNearCacheStats().getEvictions();
+    }
+}
@@ -0,0 +1,74 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.configuration.CountingCache;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nearcache.NearCacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//hit ratios of every cache per level, near cache then cluster, counted per node since it started
+@Service
+public class CacheStatsService {
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            stats.put(name, cacheStats(cacheManager.getCache(name)));
+        }
+        stats.put(PrincipalCache.PRINCIPALS, Map.of(
+                "hits", principalCache.getHits(),
+                "misses", principalCache.getMisses(),
+                "hitRatio", principalCache.getHitRatio()));
+        return stats;
+    }
+
+    private Map<String, Object> cacheStats(Cache cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = 0;
+        long misses = 0;
+        if (cache instanceof CountingCache) {
+            hits = ((CountingCache) cache).getHits();
+            misses = ((CountingCache) cache).getMisses();
+        }
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", ratio(hits, hits + misses));
+
+        NearCacheStats nearCache = cache.getNativeCache() instanceof IMap
+                ? ((IMap<?, ?>) cache.getNativeCache()).getLocalMapStats().getNearCacheStats()
+                : null;
+        if (nearCache != null) {
+            long nearHits = nearCache.getHits();
+            stats.put("nearCache", Map.of(
+                    "hits", nearHits,
+                    "misses", nearCache.getMisses(),
+                    "hitRatio", ratio(nearHits, nearHits + nearCache.getMisses()),
+                    "entries", nearCache.getOwnedEntryCount(),
+                    "evictions", nearCache.getEvictions(),
+                    "expirations", nearCache.getExpirations(),
+                    "invalidations", nearCache.getInvalidations()));
+            //whatever the near cache missed went to the cluster
+            long clusterHits = Math.max(hits - nearHits, 0);
+            stats.put("cluster", Map.of(
+                    "hits", clusterHits,
+                    "misses", misses,
+                    "hitRatio", ratio(clusterHits, clusterHits + misses)));
+        }
+        return stats;
+    }
+
+    private static double ratio(long hits, long total) {
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -1,10 +1,13 @@
 package co.LabsProjects.recipeapi.service;
 
+import co.LabsProjects.recipeapi.event.UserChangedEvent;
+import co.LabsProjects.recipeapi.model.CachedPrincipal;
 import co.LabsProjects.recipeapi.model.CustomUserDetails;
 import co.LabsProjects.recipeapi.model.Role;
 import co.LabsProjects.recipeapi.repo.UserRepo;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -13,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 
@@ -25,19 +29,36 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     PasswordEncoder encoder;
 
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        CachedPrincipal cached = principalCache.get(username);
+        if (cached != null) {
+            return cached.toUserDetails();
+        }
+
         CustomUserDetails optionalUser = userRepo.findByUsername(username);
 
         if (optionalUser == null) {
             throw new UsernameNotFoundException(username + " is not a valid username! Check for typos and try again.");
         }
 
+        principalCache.put(optionalUser);
         return optionalUser;
     }
 
     @Transactional(readOnly = true)
     public CustomUserDetails getUserByUserId(Long userId) throws EntityNotFoundException {
+        CachedPrincipal cached = principalCache.get(userId);
+        if (cached != null) {
+            return cached.toUserDetails();
+        }
+
         Optional<CustomUserDetails> optional = userRepo.findById(userId);
         CustomUserDetails user;
         if (optional.isEmpty()) {
@@ -45,6 +66,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         } else {
             user = optional.get();
         }
+        principalCache.put(user);
         //call unproxy() to ensure all related entities are loaded—no lazy load exceptions.
         return (CustomUserDetails) Hibernate.unproxy(user);
     }
@@ -68,12 +90,43 @@ public class CustomUserDetailsService implements UserDetailsService {
         checkPassword(userDetails.getPassword());
         userDetails.setPassword(encoder.encode(userDetails.getPassword()));
         try {
-            return userRepo.save(userDetails);
+            CustomUserDetails savedUser = userRepo.save(userDetails);
+            principalCache.invalidate(savedUser);
+            return savedUser;
         } catch (Exception e) {
             throw new IllegalStateException(e.getMessage(), e.getCause());
         }
     }
 
+    @Transactional
+    public void changePassword(String username, String newPassword) throws EntityNotFoundException {
+        CustomUserDetails user = userRepo.findByUsername(username);
+        if (user == null) {
+            throw new EntityNotFoundException("User not found.");
+        }
+
+        checkPassword(newPassword);
+        user.setPassword(encoder.encode(newPassword));
+        userRepo.save(user);
+        //the cached principal is dropped once this commits, see PrincipalCache
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
+    }
+
+    @Transactional
+    public CustomUserDetails updateRoles(Long userId, Collection<Role.Roles> roles) throws EntityNotFoundException {
+        CustomUserDetails user = userRepo.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found."));
+        if (roles == null || roles.isEmpty()) {
+            throw new IllegalStateException("A user must have at least one role");
+        }
+
+        user.getAuthorities().clear();
+        roles.stream().distinct().forEach(role -> user.getAuthorities().add(new Role(role)));
+        CustomUserDetails savedUser = userRepo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getUsername()));
+        return savedUser;
+    }
+
     private void checkPassword (String password) {
         if (password == null) {
             throw new IllegalStateException("You must set a password");
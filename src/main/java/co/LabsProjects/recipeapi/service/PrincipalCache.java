@@ -0,0 +1,101 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.UserChangedEvent;
+import co.LabsProjects.recipeapi.model.CachedPrincipal;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//cluster-wide cache of CachedPrincipals by username and by user id, removed once a credential change commits
+@Component
+public class PrincipalCache {
+
+    static final String PRINCIPALS = "principals";
+
+    static final String USERNAMES_BY_ID = "principalUsernames";
+
+    @Autowired
+    @Qualifier("hazelcastClient")
+    HazelcastInstance hazelcastClient;
+
+    //safety net in case an invalidation is ever missed
+    @Value("${recipe-api.principal-cache.ttl-seconds:300}")
+    long ttlSeconds;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private IMap<String, CachedPrincipal> principals;
+
+    private IMap<Long, String> usernamesById;
+
+    @PostConstruct
+    void connect() {
+        principals = hazelcastClient.getMap(PRINCIPALS);
+        usernamesById = hazelcastClient.getMap(USERNAMES_BY_ID);
+    }
+
+    public CachedPrincipal get(String username) {
+        return count(principals.get(username));
+    }
+
+    public CachedPrincipal get(long userId) {
+        String username = usernamesById.get(userId);
+        if (username == null) {
+            misses.increment();
+            return null;
+        }
+        return get(username);
+    }
+
+    public void put(CustomUserDetails user) {
+        principals.set(user.getUsername(), CachedPrincipal.from(user), ttlSeconds, TimeUnit.SECONDS);
+        usernamesById.set(user.getId(), user.getUsername(), ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public void invalidate(CustomUserDetails user) {
+        principals.delete(user.getUsername());
+        if (user.getId() != null) {
+            usernamesById.delete(user.getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        principals.delete(event.getUsername());
+        usernamesById.delete(event.getUserId());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private CachedPrincipal count(CachedPrincipal principal) {
+        if (principal == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return principal;
+    }
+}
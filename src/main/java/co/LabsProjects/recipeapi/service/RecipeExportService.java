@@ -0,0 +1,127 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//writes the catalog as NDJSON in id order, in keyset chunks each read in a short transaction of its own
+@Service
+public class RecipeExportService {
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //not there in the in-memory profile
+    @Autowired
+    ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    @Value("${recipe-api.export.chunk-size:500}")
+    int chunkSize;
+
+    @Value("${recipe-api.export.watermark-lag-seconds:60}")
+    long watermarkLagSeconds;
+
+    //the updatedSince for the next incremental export, set back by watermark-lag-seconds for writes in flight
+    public Instant watermark() {
+        return Instant.now().minusSeconds(watermarkLagSeconds);
+    }
+
+    //every recipe, or with updatedSince the changed ones followed by a delete line for each deleted one
+    public void exportRecipes(Instant updatedSince, OutputStream out) throws IOException {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        Object requestEntityManager = factory == null ? null
+                : TransactionSynchronizationManager.unbindResourceIfPossible(factory);
+        try {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long after = 0;
+            List<CachedRecipe> chunk;
+            while (!(chunk = readChunk(after, updatedSince)).isEmpty()) {
+                for (CachedRecipe recipe : chunk) {
+                    objectMapper.writeValue(generator, recipe);
+                    generator.writeRaw('\n');
+                }
+                //hand each chunk to the client as soon as it is written
+                generator.flush();
+                after = chunk.get(chunk.size() - 1).getId();
+            }
+            if (updatedSince != null) {
+                writeDeletions(updatedSince, generator);
+            }
+            generator.close();
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(factory, requestEntityManager);
+            }
+        }
+    }
+
+    //a line of just the id and "deleted": true for each recipe deleted since then, also in id order
+    private void writeDeletions(Instant since, JsonGenerator generator) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long after = 0;
+        List<Long> ids;
+        while (!(ids = readDeletedChunk(transaction, after, since)).isEmpty()) {
+            for (long id : ids) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", id);
+                generator.writeBooleanField("deleted", true);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    private List<Long> readDeletedChunk(TransactionTemplate transaction, long after, Instant since) {
+        return transaction.execute(status ->
+                recipeRepo.findIdsDeletedSince(after, since, PageRequest.of(0, chunkSize)));
+    }
+
+    private List<CachedRecipe> readChunk(long after, Instant updatedSince) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            PageRequest chunk = PageRequest.of(0, chunkSize);
+            List<Long> ids = updatedSince == null
+                    ? recipeRepo.findIdsAfter(after, chunk)
+                    : recipeRepo.findIdsChangedSince(after, updatedSince, chunk);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            //steps and reviews of the whole chunk are batch fetched while the entities are still attached
+            List<Recipe> recipes = recipeRepo.findDetailedByIdIn(ids);
+            recipes.forEach(Recipe::initialize);
+            return recipes.stream()
+                    .map(CachedRecipe::from)
+                    .sorted(Comparator.comparingLong(CachedRecipe::getId))
+                    .collect(Collectors.toList());
+        });
+    }
+}
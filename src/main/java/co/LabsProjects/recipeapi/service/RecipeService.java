@@ -3,17 +3,42 @@ package co.LabsProjects.recipeapi.service;
 import ch.qos.logback.core.boolex.EvaluationException;
 import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
 import co.LabsProjects.recipeapi.exception.NoSuchRecipeException;
+import co.LabsProjects.recipeapi.exception.PreconditionFailedException;
+import co.LabsProjects.recipeapi.event.CacheInvalidationListener;
+import co.LabsProjects.recipeapi.event.RecipeChangedEvent;
+import co.LabsProjects.recipeapi.index.IngredientIndex;
+import co.LabsProjects.recipeapi.index.RatingIndex;
+import co.LabsProjects.recipeapi.index.RecipeSearchIndex;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.CursorPage;
+import co.LabsProjects.recipeapi.model.EntityTag;
+import co.LabsProjects.recipeapi.model.EntityTags;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.RatingRangeQuery;
+import co.LabsProjects.recipeapi.model.RecipeFacets;
 import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeRanking;
+import co.LabsProjects.recipeapi.model.RecipeSearchPage;
+import co.LabsProjects.recipeapi.model.RecipeSortField;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import co.LabsProjects.recipeapi.model.Review;
 import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class RecipeService {
@@ -21,26 +46,66 @@ public class RecipeService {
     @Autowired
     RecipeRepo recipeRepo;
 
+    @Autowired
+    ReviewRepo reviewRepo;
+
+    @Autowired
+    ReviewRatingAggregator ratingAggregator;
+
+    @Autowired
+    RecipeSearchIndex searchIndex;
+
+    @Autowired
+    RatingIndex ratingIndex;
+
+    @Autowired
+    IngredientIndex ingredientIndex;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    CacheManager cacheManager;
+
     @Transactional
-    @CachePut(value = "recipes", key = "#recipe.id")
     public Recipe createNewRecipe(Recipe recipe) throws InvalidArgumentException {
         recipe.validate();
+        recipe.clearReviews();
         recipe = recipeRepo.save(recipe);
+        //the indexes pick the recipe up from the event once the transaction commits
+        eventPublisher.publishEvent(RecipeChangedEvent.created(recipe));
         recipe.generateLocationURI();
         return recipe;
     }
 
     @Cacheable(value = "recipes", key = "#id")
-    public Recipe getRecipeById(Long id) throws NoSuchRecipeException {
-        Optional<Recipe> recipeOptional = recipeRepo.findById(id);
+    @Transactional(readOnly = true)
+    public CachedRecipe getRecipeById(Long id) throws NoSuchRecipeException {
+        return CachedRecipe.from(findDetailedRecipe(id));
+    }
 
-        if (recipeOptional.isEmpty()) {
+    //the recipe's validators without loading it, from the recipes cache or else one query of versions
+    @Transactional(readOnly = true)
+    public EntityTag getRecipeTag(Long id) throws NoSuchRecipeException {
+        CachedRecipe cached = cacheManager.getCache(CacheInvalidationListener.RECIPES).get(id, CachedRecipe.class);
+        if (cached != null) {
+            return new EntityTag(cached.getEtag(), cached.getLastModified());
+        }
+        List<Object[]> versions = recipeRepo.findVersionsById(id);
+        if (versions.isEmpty()) {
             throw new NoSuchRecipeException("No recipe with ID " + id + " could be found.");
         }
+        return CachedRecipe.tagOf(versions);
+    }
 
-        Recipe recipe = recipeOptional.get();
-        recipe.generateLocationURI();
-        return recipe;
+    public String getRecipeAuthor(Long id) throws NoSuchRecipeException {
+        return recipeRepo.findAuthorUsernameById(id)
+                .orElseThrow(() -> new NoSuchRecipeException("No recipe with ID " + id + " could be found."));
+    }
+
+    //records a review added (countDelta 1), changed (0) or removed (-1), in the caller's transaction
+    public void applyReviewRating(Long recipeId, long ratingDelta, int countDelta) {
+        ratingAggregator.apply(recipeId, ratingDelta, countDelta);
     }
 
     public Recipe getRecipeByReviewId(Long reviewId){
@@ -49,83 +114,224 @@ public class RecipeService {
         return recipe;
     }
 
-    public List<Recipe> getRecipesByName(String name) throws NoSuchRecipeException {
-        List<Recipe> matchingRecipes = recipeRepo.findByNameContainingIgnoreCase(name);
+    @Cacheable(value = "recipePages", key = "#query.cacheKey()")
+    public CursorPage<RecipeSummary> getRecipesByName(RecipeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        CursorPage<RecipeSummary> matchingRecipes = findRecipePage(query);
 
-        if (matchingRecipes.isEmpty()) {
+        if (matchingRecipes.getItems().isEmpty() && query.getAfter() == null) {
             throw new NoSuchRecipeException("No recipes could be found with that name.");
         }
 
         return matchingRecipes;
     }
 
-    public List<Recipe> getRecipesByNameWithMaxDifficulty(String name, int difficultyRating) throws NoSuchRecipeException {
-        List<Recipe> recipes = recipeRepo.getByNameContainingIgnoreCaseAndDifficultyRatingLessThanEqual(name, difficultyRating);
+    @Cacheable(value = "recipePages", key = "#query.cacheKey()")
+    public CursorPage<RecipeSummary> getRecipesByNameWithMaxDifficulty(RecipeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        CursorPage<RecipeSummary> recipes = findRecipePage(query);
 
-        if (recipes.isEmpty()){
+        if (recipes.getItems().isEmpty() && query.getAfter() == null){
             throw new NoSuchRecipeException("No recipes could be found matching that criteria");
         }
 
         return recipes;
     }
 
-    @Cacheable(value = "recipes")
-    public List<Recipe> getAllRecipes() throws NoSuchRecipeException {
-        List<Recipe> recipes = recipeRepo.findAll();
+    @Cacheable(value = "recipePages", key = "#query.cacheKey()")
+    public CursorPage<RecipeSummary> getAllRecipes(RecipeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        CursorPage<RecipeSummary> recipes = findRecipePage(query);
 
-        if (recipes.isEmpty()) {
+        if (recipes.getItems().isEmpty() && query.getAfter() == null) {
             throw new NoSuchRecipeException("There are no recipes yet :( feel free to add one though");
         }
         return recipes;
     }
 
-    public List<Recipe> getRecipesByRatingGreaterThan(Double minimumRating) throws NoSuchRecipeException {
-        List<Recipe> recipes = recipeRepo.getByAverageReviewRatingGreaterThan(minimumRating);
+    //pages sorted by rating are read from the rating index, so only the other orders are cached
+    @Cacheable(value = "recipePages", key = "#query.cacheKey()",
+            condition = "#query.sort != T(co.LabsProjects.recipeapi.model.RecipeSortField).RATING")
+    public CursorPage<RecipeSummary> getRecipesByRatingGreaterThan(RecipeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        CursorPage<RecipeSummary> recipes;
+        if (query.getSort() == RecipeSortField.RATING) {
+            PageCursor cursor = query.decodeCursor();
+            List<RecipeSummary> rows = ratingIndex.range(RecipeRanking.AVERAGE, query.getMinRating(), false, null,
+                            query.isDescending(), cursor, query.getLimit() + 1).stream()
+                    .map(RatingIndex.Hit::getSummary)
+                    .collect(Collectors.toList());
+            recipes = CursorPage.of(rows, query.getLimit(), query::cursorAfter);
+        } else {
+            recipes = findRecipePage(query);
+        }
+
+        if (recipes.getItems().isEmpty() && query.getAfter() == null){
+            throw new NoSuchRecipeException("No recipes could be found with a rating greater than " + query.getMinRating());
+        }
+
+        return recipes;
+    }
+
+    @Cacheable(value = "recipePages", key = "#query.cacheKey()")
+    public CursorPage<RecipeSummary> getRecipesByUsername(RecipeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        CursorPage<RecipeSummary> recipes = findRecipePage(query);
 
-        if (recipes.isEmpty()){
-            throw new NoSuchRecipeException("No recipes could be found with a rating greater than " + minimumRating);
+        if (recipes.getItems().isEmpty() && query.getAfter() == null){
+            throw new NoSuchRecipeException("No recipes can be found for the user: " + query.getUsername());
         }
 
         return recipes;
     }
 
-    public List<Recipe> getRecipesByUsername(String username) throws NoSuchRecipeException {
-        List<Recipe> recipes = recipeRepo.getByUser_Username(username);
+    //a page of the recipes matching the query's filters, each facet counted without its own range
+    @Cacheable(value = "recipePages", key = "#query.cacheKey() + ':' + #withFacets")
+    public RecipeSearchPage filterRecipes(RecipeQuery query, boolean withFacets) throws InvalidArgumentException {
+        CursorPage<RecipeSummary> page = findRecipePage(query);
+        RecipeFacets facets = null;
+        if (withFacets && query.decodeCursor() == null) {
+            facets = RecipeFacets.of(
+                    recipeRepo.countGroupedBy(query.toBuilder().minDifficulty(null).maxDifficulty(null).build(),
+                            RecipeFacets.DIFFICULTY),
+                    recipeRepo.countGroupedBy(query.toBuilder().minMinutes(null).maxMinutes(null).build(),
+                            RecipeFacets.MINUTES));
+        }
+        return new RecipeSearchPage(page, facets);
+    }
 
-        if (recipes.isEmpty()){
-            throw new NoSuchRecipeException("No recipes can be found for the user: " + username);
+    public List<RecipeSummary> getTopRecipes(RecipeRanking ranking, int n) throws NoSuchRecipeException, InvalidArgumentException {
+        if (n < 1 || n > RecipeQuery.MAX_LIMIT) {
+            throw new InvalidArgumentException("n must be between 1 and " + RecipeQuery.MAX_LIMIT);
         }
+        List<RecipeSummary> recipes = ratingIndex.top(ranking, n).stream()
+                .map(RatingIndex.Hit::getSummary)
+                .collect(Collectors.toList());
 
+        if (recipes.isEmpty()) {
+            throw new NoSuchRecipeException("There are no recipes yet :( feel free to add one though");
+        }
         return recipes;
     }
 
-    @CacheEvict(value = "recipes", key = "#id")
+    public CursorPage<RecipeSummary> getRecipesByRatingRange(RatingRangeQuery query) throws NoSuchRecipeException, InvalidArgumentException {
+        PageCursor cursor = query.decodeCursor();
+        List<RatingIndex.Hit> rows = ratingIndex.range(query.getRanking(), query.getMin(), true, query.getMax(),
+                query.isDescending(), cursor, query.getLimit() + 1);
+        CursorPage<RatingIndex.Hit> hits = CursorPage.of(rows, query.getLimit(),
+                hit -> query.cursorAfter(hit.getScore(), hit.getSummary().getId()));
+
+        if (hits.getItems().isEmpty() && query.getAfter() == null) {
+            throw new NoSuchRecipeException("No recipes could be found with a rating in that range.");
+        }
+        List<RecipeSummary> recipes = hits.getItems().stream()
+                .map(RatingIndex.Hit::getSummary)
+                .collect(Collectors.toList());
+        return new CursorPage<>(recipes, hits.getNextCursor(), hits.getLimit());
+    }
+
+    public List<RecipeSummary> searchRecipes(String query, int limit) throws NoSuchRecipeException, InvalidArgumentException {
+        if (limit < 1 || limit > RecipeQuery.MAX_LIMIT) {
+            throw new InvalidArgumentException("Limit must be between 1 and " + RecipeQuery.MAX_LIMIT);
+        }
+        List<Long> rankedIds = searchIndex.search(query, limit);
+
+        if (rankedIds.isEmpty()) {
+            throw new NoSuchRecipeException("No recipes matched your search.");
+        }
+
+        //one primary key lookup for the page, then put the rows back in relevance order
+        Map<Long, RecipeSummary> summaries = recipeRepo.findSummariesByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    //recipes with every ingredient in include, one in any and none in exclude, from the ingredient index
+    public CursorPage<RecipeSummary> searchByIngredients(List<String> include, List<String> any, List<String> exclude,
+                                                         String after, int limit) throws NoSuchRecipeException, InvalidArgumentException {
+        if (include.isEmpty() && any.isEmpty() && exclude.isEmpty()) {
+            throw new InvalidArgumentException("Name at least one ingredient to include or exclude.");
+        }
+        RecipeQuery page = RecipeQuery.builder().after(after).limit(limit).build();
+        PageCursor cursor = page.decodeCursor();
+        List<Long> ids = ingredientIndex.search(include, any, exclude, cursor == null ? 0 : cursor.getLastId(), limit + 1);
+
+        if (ids.isEmpty() && after == null) {
+            throw new NoSuchRecipeException("No recipes matched those ingredients.");
+        }
+
+        Map<Long, RecipeSummary> summaries = ids.isEmpty() ? Map.of() : recipeRepo.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+        List<RecipeSummary> rows = ids.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return CursorPage.of(rows, limit, page::cursorAfter);
+    }
+
+    public int rebuildIngredientIndex() throws InterruptedException {
+        return ingredientIndex.rebuild();
+    }
+
+    private Recipe findDetailedRecipe(Long id) throws NoSuchRecipeException {
+        Optional<Recipe> recipeOptional = recipeRepo.findDetailedById(id);
+
+        if (recipeOptional.isEmpty()) {
+            throw new NoSuchRecipeException("No recipe with ID " + id + " could be found.");
+        }
+
+        Recipe recipe = recipeOptional.get();
+        //the entity graph covers the author and ingredients, this loads steps and reviews
+        recipe.initialize();
+        recipe.generateLocationURI();
+        return recipe;
+    }
+
+    private CursorPage<RecipeSummary> findRecipePage(RecipeQuery query) throws InvalidArgumentException {
+        PageCursor cursor = query.decodeCursor();
+        List<RecipeSummary> rows = recipeRepo.findPage(query, cursor);
+        return CursorPage.of(rows, query.getLimit(), query::cursorAfter);
+    }
+
+    @RetryOnConflict
     @Transactional
     public Recipe deleteRecipeById(Long id) throws NoSuchRecipeException {
         try {
-            Recipe recipe = getRecipeById(id);
+            Recipe recipe = findDetailedRecipe(id);
+            reviewRepo.deleteByRecipeId(id);
             recipeRepo.deleteById(id);
+            recipeRepo.recordDeletion(id);
+            Map<Long, String> deletedReviews = recipe.getReviews().stream()
+                    .collect(Collectors.toMap(Review::getId, Review::getAuthor, (a, b) -> a, HashMap::new));
+            eventPublisher.publishEvent(RecipeChangedEvent.deleted(id, deletedReviews));
             return recipe;
         } catch (NoSuchRecipeException e) {
             throw new NoSuchRecipeException(e.getMessage() + " Could not delete.");
         }
     }
 
-    @CachePut(value = "recipes", key = "#recipe.id")
+    @RetryOnConflict
     @Transactional
-    public Recipe updateRecipe(Recipe recipe, boolean forceIdCheck) throws NoSuchRecipeException, InvalidArgumentException {
-        try {
-            if (forceIdCheck) {
-                getRecipeById(recipe.getId());
-            }
-            recipe.validate();
-            recipe.setAverageReviewRating();
-            Recipe savedRecipe = recipeRepo.save(recipe);
-            savedRecipe.generateLocationURI();
-            return savedRecipe;
-        } catch (NoSuchRecipeException e) {
+    public Recipe updateRecipe(Recipe recipe, String ifMatch) throws NoSuchRecipeException, InvalidArgumentException, PreconditionFailedException {
+        Optional<Recipe> existing = recipeRepo.findDetailedById(recipe.getId());
+        if (existing.isEmpty()) {
             throw new NoSuchRecipeException("The recipe you passed in did not have an ID found in the database." +
                     " Double check that it is correct. Or maybe you meant to POST a recipe not PATCH one.");
         }
+
+        //apply the change to the stored recipe so the author, reviews and rating counters cannot be overwritten
+        Recipe savedRecipe = existing.get();
+        //the tag covers the reviews, so they are loaded for the comparison; @Version catches a change after it
+        if (ifMatch != null) {
+            savedRecipe.initialize();
+            if (!EntityTags.matches(ifMatch, CachedRecipe.from(savedRecipe).getEtag())) {
+                throw new PreconditionFailedException("The recipe has changed since you read it. Fetch it again and retry.");
+            }
+        }
+        savedRecipe.updateFrom(recipe);
+        savedRecipe.validate();
+        savedRecipe = recipeRepo.save(savedRecipe);
+        savedRecipe.initialize();
+        eventPublisher.publishEvent(RecipeChangedEvent.updated(savedRecipe));
+        savedRecipe.generateLocationURI();
+        return savedRecipe;
     }
 }
@@ -0,0 +1,13 @@
+package co.LabsProjects.recipeapi.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//retries the annotated transactional method after a short random back-off on an optimistic lock conflict or
+//deadlock, so it must re-read everything it decides on
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,312 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.KeyPrefixPredicate;
+import co.LabsProjects.recipeapi.event.RecipeChangedEvent;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//applies review ratings to the recipe's counters, as one UPDATE per change or, for a recipe past
+//recipe-api.ratings.hot-threshold, as sums written once per flush interval
+@Component
+public class ReviewRatingAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewRatingAggregator.class);
+
+    //how long a reconcile waits for buffered review writes that are committing before it gives up
+    static final long RECONCILE_WAIT_MS = 30_000;
+
+    static final String RUNS_MAP_NAME = "ratingReconcile";
+
+    //taken by the node that runs a reconcile
+    static final String CLAIM = "claim";
+
+    //present while a reconcile runs, every node pauses buffering
+    static final String RUNNING = "running";
+
+    //prefix of the entries of the nodes that have paused
+    static final String PAUSED = "paused:";
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("hazelcastClient")
+    HazelcastInstance hazelcastClient;
+
+    @Value("${recipe-api.ratings.hot-threshold:0}")
+    long hotThreshold;
+
+    @Value("${recipe-api.ratings.reconcile-batch-size:1000}")
+    long reconcileBatchSize;
+
+    //long enough for a whole run, also how long a crashed run keeps the other nodes paused
+    @Value("${recipe-api.ratings.reconcile-claim-seconds:3600}")
+    long claimSeconds;
+
+    long reconcileWaitMs = RECONCILE_WAIT_MS;
+
+    IMap<String, String> runs;
+
+    final String nodeId = UUID.randomUUID().toString();
+
+    //pauses for reconciles run by other nodes, off the event thread
+    private final ExecutorService pauses = Executors.newSingleThreadExecutor(r -> new Thread(r, "rating-reconcile"));
+
+    private final Map<Long, PendingRating> pending = new ConcurrentHashMap<>();
+
+    //review transactions that will buffer a delta when they commit, and flushes that have not completed
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    //set while a reconcile runs, hot recipes are written directly and the scheduled flush stands aside
+    private volatile boolean reconciling;
+
+    @PostConstruct
+    void subscribe() {
+        runs = hazelcastClient.getMap(RUNS_MAP_NAME);
+        runs.addEntryListener(new RunListener(), RUNNING, true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pauses.shutdownNow();
+    }
+
+    public void apply(long recipeId, long sumDelta, int countDelta) {
+        if (hotThreshold <= 0) {
+            recipeRepo.applyRatingDelta(recipeId, sumDelta, countDelta);
+            return;
+        }
+
+        PendingRating rating = pending.computeIfAbsent(recipeId, id -> new PendingRating());
+        rating.writes.increment();
+        //counted before reconciling is read, so a reconcile either sees this write in flight or this write sees it
+        if (rating.hot && enter()) {
+            //buffered only once the review write commits, a rolled back or retried attempt must not count
+            afterCompletion(committed -> {
+                if (committed) {
+                    rating.sum.add(sumDelta);
+                    rating.count.add(countDelta);
+                }
+                leave();
+            });
+        } else {
+            recipeRepo.applyRatingDelta(recipeId, sumDelta, countDelta);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recipe-api.ratings.flush-interval-ms:1000}")
+    @Transactional
+    public void flush() {
+        if (!enter()) {
+            //the reconcile flushes on its own
+            return;
+        }
+        try {
+            writePending();
+        } finally {
+            //after the put-backs writePending registered, so a waiting reconcile finds them
+            afterCompletion(committed -> leave());
+        }
+    }
+
+    //nightly on the node that claims the run first, once every node has written out its buffered deltas, one short
+    //transaction per id range
+    @Scheduled(cron = "${recipe-api.ratings.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        if (runs.putIfAbsent(CLAIM, nodeId, claimSeconds, TimeUnit.SECONDS) != null) {
+            log.debug("Rating counters are reconciled by another node");
+            return;
+        }
+        runs.set(RUNNING, nodeId, claimSeconds, TimeUnit.SECONDS);
+        try {
+            if (!pause() || !awaitPaused()) {
+                log.warn("Skipped reconciling rating counters, buffered writes did not complete");
+                return;
+            }
+            long maxId = recipeRepo.findMaxId().orElse(0L);
+            int recipes = 0;
+            for (long after = 0; after < maxId; after += reconcileBatchSize) {
+                long from = after;
+                Integer reconciled = new TransactionTemplate(transactionManager).execute(status ->
+                        recipeRepo.reconcileRatingsBetween(from, from + reconcileBatchSize));
+                recipes += reconciled == null ? 0 : reconciled;
+            }
+            if (recipes > 0) {
+                eventPublisher.publishEvent(RecipeChangedEvent.allRated());
+            }
+            log.info("Reconciled rating counters of {} recipes with the review table", recipes);
+        } finally {
+            runs.delete(RUNNING);
+            runs.removeAll(new KeyPrefixPredicate(PAUSED));
+            reconciling = false;
+        }
+    }
+
+    //stops buffering on this node and, once the review writes that are committing have, writes out what is buffered
+    boolean pause() {
+        reconciling = true;
+        long deadline = System.currentTimeMillis() + reconcileWaitMs;
+        while (inFlight.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writePending());
+        runs.set(PAUSED + nodeId, nodeId, claimSeconds, TimeUnit.SECONDS);
+        return true;
+    }
+
+    //until every member of the cluster has paused
+    private boolean awaitPaused() {
+        long deadline = System.currentTimeMillis() + reconcileWaitMs;
+        while (runs.keySet(new KeyPrefixPredicate(PAUSED)).size() < hazelcastClient.getCluster().getMembers().size()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writePending() {
+        for (Map.Entry<Long, PendingRating> entry : pending.entrySet()) {
+            PendingRating rating = entry.getValue();
+            long sum = rating.sum.sumThenReset();
+            int count = (int) rating.count.sumThenReset();
+            if (sum != 0 || count != 0) {
+                //put back for the next flush unless this transaction commits
+                afterCompletion(committed -> {
+                    if (!committed) {
+                        rating.sum.add(sum);
+                        rating.count.add(count);
+                    }
+                });
+                recipeRepo.applyRatingDelta(entry.getKey(), sum, count);
+                eventPublisher.publishEvent(RecipeChangedEvent.rated(entry.getKey()));
+            }
+
+            long writes = rating.writes.sumThenReset();
+            boolean wasHot = rating.hot;
+            rating.hot = writes >= hotThreshold;
+            if (!wasHot && !rating.hot && writes == 0) {
+                //nothing has been buffered in an entry that was not hot for a whole interval, so it can go
+                pending.remove(entry.getKey(), rating);
+            }
+        }
+    }
+
+    //false while a reconcile runs; otherwise the caller is in flight until it calls leave()
+    private boolean enter() {
+        inFlight.incrementAndGet();
+        if (reconciling) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void leave() {
+        inFlight.decrementAndGet();
+    }
+
+    //runs the action with whether the current transaction committed, straight away as committed outside of one
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private class RunListener implements EntryAddedListener<String, String>, EntryRemovedListener<String, String>,
+            EntryExpiredListener<String, String> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, String> event) {
+            if (!nodeId.equals(event.getValue())) {
+                pauses.execute(() -> {
+                    reconciling = true;
+                    //the run may have ended before this got to pause
+                    if (!runs.containsKey(RUNNING)) {
+                        reconciling = false;
+                    } else if (!pause()) {
+                        log.warn("Could not pause buffering for the rating reconcile of another node");
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, String> event) {
+            reconciling = false;
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<String, String> event) {
+            reconciling = false;
+        }
+    }
+
+    private static class PendingRating {
+
+        final LongAdder sum = new LongAdder();
+
+        final LongAdder count = new LongAdder();
+
+        final LongAdder writes = new LongAdder();
+
+        volatile boolean hot;
+    }
+}
@@ -1,21 +1,28 @@
 package co.LabsProjects.recipeapi.service;
 
+import co.LabsProjects.recipeapi.event.ReviewChangedEvent;
 import co.LabsProjects.recipeapi.exception.InvalidArgumentException;
 import co.LabsProjects.recipeapi.exception.NoSuchRecipeException;
 import co.LabsProjects.recipeapi.exception.NoSuchReviewException;
-import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.exception.PreconditionFailedException;
+import co.LabsProjects.recipeapi.model.CachedReview;
+import co.LabsProjects.recipeapi.model.CursorPage;
+import co.LabsProjects.recipeapi.model.EntityTags;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
 import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
 import co.LabsProjects.recipeapi.repo.ReviewRepo;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class ReviewService {
@@ -26,21 +33,26 @@ public class ReviewService {
     @Autowired
     RecipeService recipeService;
 
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Cacheable(value = "reviews", key = "#id")
-    public Review getReviewById(Long id) throws NoSuchReviewException {
+    public CachedReview getReviewById(Long id) throws NoSuchReviewException {
         Optional<Review> review = reviewRepo.findById(id);
 
         if (review.isEmpty()) {
             throw new NoSuchReviewException("The review with ID " + id + " could not be found.");
         }
-        return review.get();
+        return CachedReview.from(review.get());
     }
 
 
-    public ArrayList<Review> getReviewByRecipeId(Long recipeId) throws NoSuchRecipeException, NoSuchReviewException {
-        Recipe recipe = recipeService.getRecipeById(recipeId);
-
-        ArrayList<Review> reviews = new ArrayList<>(recipe.getReviews());
+    public List<CachedReview> getReviewByRecipeId(Long recipeId) throws NoSuchRecipeException, NoSuchReviewException {
+        //served from the cached recipe, which embeds its reviews
+        List<CachedReview> reviews = recipeService.getRecipeById(recipeId).getReviews();
 
         if (reviews.isEmpty()) {
             throw new NoSuchReviewException("There are no reviews for this recipe.");
@@ -48,59 +60,97 @@ public class ReviewService {
         return reviews;
     }
 
-    public List<Review> getReviewByUsername(String username) throws NoSuchReviewException {
-        List<Review> reviews = reviewRepo.findByUser_Username(username);
+    @Cacheable(value = "reviewPages", key = "#username + ':' + #after + ':' + #limit")
+    public CursorPage<CachedReview> getReviewByUsername(String username, String after, int limit) throws NoSuchReviewException, InvalidArgumentException {
+        if (limit < 1 || limit > RecipeQuery.MAX_LIMIT) {
+            throw new InvalidArgumentException("Limit must be between 1 and " + RecipeQuery.MAX_LIMIT);
+        }
+        long lastId = 0;
+        if (after != null && !after.isBlank()) {
+            PageCursor cursor = PageCursor.decode(after);
+            if (!cursor.getSort().equals("id") || cursor.isDescending()) {
+                throw new InvalidArgumentException("The page cursor was created for a different sort order.");
+            }
+            lastId = cursor.getLastId();
+        }
 
-        if (reviews.isEmpty()) {
+        List<CachedReview> rows = reviewRepo.findByUser_UsernameAndIdGreaterThanOrderByIdAsc(username, lastId, PageRequest.of(0, limit + 1))
+                .stream().map(CachedReview::from).collect(Collectors.toList());
+        CursorPage<CachedReview> reviews = CursorPage.of(rows, limit,
+                r -> new PageCursor("id", false, Long.toString(r.getId()), r.getId()).encode());
+
+        if (reviews.getItems().isEmpty() && lastId == 0) {
             throw new NoSuchReviewException("No reviews could be found for username " + username);
         }
 
         return reviews;
     }
 
-    @CachePut(value = "reviews", key = "#review.id")
-    public Recipe postNewReview(Review review, Long recipeId) throws NoSuchRecipeException, InvalidArgumentException {
-        Recipe recipe = recipeService.getRecipeById(recipeId);
+    @RetryOnConflict
+    @Transactional
+    public Review postNewReview(Review review, Long recipeId) throws NoSuchRecipeException, InvalidArgumentException {
+        String recipeAuthor = recipeService.getRecipeAuthor(recipeId);
 
-        if (review.getAuthor().equals(recipe.getAuthor())){
+        if (review.getAuthor().equals(recipeAuthor)){
             throw new InvalidArgumentException("Stop trying to upvote your own recipe!");
         }
         review.validate();
-        recipe.getReviews().add(review);
-        recipe.setAverageReviewRating();
-        recipeService.updateRecipe(recipe, false);
-        return recipe;
+        review.setId(0);
+        //the counter update locks the recipe row before the insert's foreign key check takes a shared lock on it,
+        //concurrent reviews of one recipe would otherwise deadlock upgrading their shared locks
+        recipeService.applyReviewRating(recipeId, review.getRating(), 1);
+        //a reference is enough to set the foreign key, the recipe and its reviews are never loaded
+        review.setRecipe(recipeRepo.getReferenceById(recipeId));
+        Review savedReview = reviewRepo.save(review);
+        publish(ReviewChangedEvent.Type.CREATED, savedReview);
+        savedReview.generateLocationURI();
+        return savedReview;
     }
 
+    @RetryOnConflict
     @Transactional
-    @CacheEvict(value = "reviews", key = "id")
-    public Review deleteReviewById(Long id) throws NoSuchReviewException, NoSuchRecipeException, InvalidArgumentException {
-        Review review = getReviewById(id);
+    public Review deleteReviewById(Long id) throws NoSuchReviewException {
+        Optional<Review> review = reviewRepo.findById(id);
 
-        if (null == review) {
+        if (review.isEmpty()) {
             throw new NoSuchReviewException("The review you are trying to delete does not exist.");
         }
 
-        Recipe recipe = recipeService.getRecipeByReviewId(id);
-        reviewRepo.deleteById(id);
-        reviewRepo.flush();
-        recipeService.updateRecipe(recipe, false);
-        return review;
+        reviewRepo.delete(review.get());
+        recipeService.applyReviewRating(review.get().getRecipeId(), -review.get().getRating(), -1);
+        publish(ReviewChangedEvent.Type.DELETED, review.get());
+        return review.get();
     }
 
-    @CachePut(value = "reviews", key = "#reviewToUpdate.id")
+    @RetryOnConflict
     @Transactional
-    public Review updateReviewById(Review reviewToUpdate) throws NoSuchReviewException, NoSuchRecipeException, InvalidArgumentException {
-        try {
-            Review review = getReviewById(reviewToUpdate.getId());
-        } catch (NoSuchReviewException e) {
+    public Review updateReviewById(Review reviewToUpdate, String ifMatch) throws NoSuchReviewException, InvalidArgumentException, PreconditionFailedException {
+        Optional<Review> existing = reviewRepo.findById(reviewToUpdate.getId());
+        if (existing.isEmpty()) {
             throw new NoSuchReviewException("The review you are trying to update. Maybe you meant to create one? If not," +
                     "please double check the ID you passed in.");
         }
-        reviewToUpdate.validate();
-        Recipe recipe = recipeService.getRecipeByReviewId(reviewToUpdate.getId());
-        reviewRepo.save(reviewToUpdate);
-        recipeService.updateRecipe(recipe, false);
-        return reviewToUpdate;
+
+        //only the description and rating can change, the author and recipe stay as stored
+        Review review = existing.get();
+        if (ifMatch != null && !EntityTags.matches(ifMatch, CachedReview.from(review).etag())) {
+            throw new PreconditionFailedException("The review has changed since you read it. Fetch it again and retry.");
+        }
+        int ratingDelta = reviewToUpdate.getRating() - review.getRating();
+        review.setDescription(reviewToUpdate.getDescription());
+        review.setRating(reviewToUpdate.getRating());
+        review.validate();
+        reviewRepo.save(review);
+        if (ratingDelta != 0) {
+            recipeService.applyReviewRating(review.getRecipeId(), ratingDelta, 0);
+        }
+        publish(ReviewChangedEvent.Type.UPDATED, review);
+        return review;
+    }
+
+    //caches and the ownership index are updated from this event once the transaction commits
+    private void publish(ReviewChangedEvent.Type type, Review review) {
+        eventPublisher.publishEvent(new ReviewChangedEvent(type, review.getId(), review.getRecipeId(),
+                review.getUser().getId(), review.getAuthor()));
     }
 }
@@ -0,0 +1,120 @@
+package co.LabsProjects.recipeapi.service;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//ids of revoked access tokens that have not expired yet, mirrored locally from a cluster map, and credential
+//versions that revoke every earlier token of a user
+@Component
+public class TokenDenyList {
+
+    static final String MAP_NAME = "revokedTokens";
+
+    static final String VERSIONS_MAP_NAME = "credentialVersions";
+
+    @Autowired
+    @Qualifier("hazelcastClient")
+    HazelcastInstance hazelcastClient;
+
+    //token id -> expiry in epoch seconds
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    //user id -> credential version
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    private IMap<String, Long> clusterRevoked;
+
+    private IMap<Long, Long> clusterVersions;
+
+    @Value("${recipe-api.token.ttl-seconds:900}")
+    long ttlSeconds;
+
+    @Value("${recipe-api.token.max-session-seconds:43200}")
+    long maxSessionSeconds;
+
+    @PostConstruct
+    void subscribe() {
+        clusterRevoked = hazelcastClient.getMap(MAP_NAME);
+        clusterRevoked.addEntryListener((EntryAddedListener<String, Long>) event ->
+                revoked.put(event.getKey(), event.getValue()), true);
+        //revocations made before this node started
+        revoked.putAll(clusterRevoked);
+
+        clusterVersions = hazelcastClient.getMap(VERSIONS_MAP_NAME);
+        clusterVersions.addEntryListener(new VersionListener(), true);
+        clusterVersions.forEach((userId, version) -> versions.merge(userId, version, Math::max));
+    }
+
+    //false if the token had been revoked already, of two refreshes of a token only the one that gets true proceeds
+    public boolean revoke(String tokenId, long expiresAt) {
+        long ttl = expiresAt - System.currentTimeMillis() / 1000;
+        if (ttl <= 0) {
+            return true;
+        }
+        boolean first = clusterRevoked.putIfAbsent(tokenId, expiresAt, ttl, TimeUnit.SECONDS) == null;
+        revoked.put(tokenId, expiresAt);
+        return first;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revoked.containsKey(tokenId);
+    }
+
+    //rejects every token issued to the user so far
+    public void revokeUser(long userId) {
+        clusterVersions.lock(userId);
+        try {
+            Long current = clusterVersions.get(userId);
+            long version = Math.max(System.currentTimeMillis(), current == null ? 0 : current + 1);
+            clusterVersions.set(userId, version, maxSessionSeconds + ttlSeconds, TimeUnit.SECONDS);
+            versions.merge(userId, version, Math::max);
+        } finally {
+            clusterVersions.unlock(userId);
+        }
+    }
+
+    //read from the grid rather than the local copy, so a token issued right after a change is not born revoked
+    public long credentialVersion(long userId) {
+        Long version = clusterVersions.get(userId);
+        return version == null ? 0 : version;
+    }
+
+    public boolean isUserRevoked(long userId, long credentialVersion) {
+        Long version = versions.get(userId);
+        return version != null && credentialVersion < version;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis() / 1000;
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        long keepUntil = System.currentTimeMillis() - (maxSessionSeconds + ttlSeconds) * 1000;
+        versions.values().removeIf(version -> version <= keepUntil);
+    }
+
+    private class VersionListener implements EntryAddedListener<Long, Long>, EntryUpdatedListener<Long, Long> {
+
+        @Override
+        public void entryAdded(EntryEvent<Long, Long> event) {
+            versions.merge(event.getKey(), event.getValue(), Math::max);
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<Long, Long> event) {
+            versions.merge(event.getKey(), event.getValue(), Math::max);
+        }
+    }
+}
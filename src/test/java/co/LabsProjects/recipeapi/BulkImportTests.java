@@ -0,0 +1,131 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.CachedReview;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import co.LabsProjects.recipeapi.service.ReviewService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//imports NDJSON with good and bad lines mixed, on the data set up by RecipeMainTest
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkImportTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	RecipeService recipeService;
+
+	@Autowired
+	ReviewService reviewService;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Test
+	@WithUserDetails("user1")
+	void importsValidRecipesAndReportsTheRest() throws Exception {
+		String body = String.join("\n",
+				recipeLine("bulk import soup"),
+				"{\"name\": \"bulk import broken\", ",
+				"",
+				"{\"name\":\"bulk import no steps\",\"minutesToMake\":5,\"difficultyRating\":1," +
+						"\"ingredients\":[{\"name\":\"salt\",\"amount\":\"1 g\"}],\"steps\":[]}",
+				//valid JSON and a valid recipe, but too long for the name column, so only the database rejects it
+				recipeLine("bulk import " + "x".repeat(300)),
+				recipeLine("bulk import stew"));
+
+		JsonNode report = importNdjson("/recipes/bulk", body);
+
+		assertThat(report.get("lines").asLong()).isEqualTo(5);
+		assertThat(report.get("imported").asLong()).isEqualTo(2);
+		assertThat(report.get("failed").asLong()).isEqualTo(3);
+		assertThat(report.get("errors").findValuesAsText("line")).containsExactly("2", "4", "5");
+
+		List<Recipe> imported = recipeRepo.findByNameContainingIgnoreCase("bulk import");
+		try {
+			assertThat(imported).extracting(Recipe::getName).containsExactlyInAnyOrder("bulk import soup", "bulk import stew");
+			assertThat(imported).allSatisfy(recipe -> assertThat(recipe.getAuthor()).isEqualTo("user1"));
+			//the search index is updated once the chunk commits
+			assertThat(recipeService.searchRecipes("bulk stew", 5)).hasSize(1);
+		} finally {
+			for (Recipe recipe : imported) {
+				recipeService.deleteRecipeById(recipe.getId());
+			}
+		}
+	}
+
+	@Test
+	@WithUserDetails("user1")
+	void importsValidReviewsAndUpdatesRatings() throws Exception {
+		//owned by user2, so user1 can review it
+		Recipe recipe = recipeRepo.findByNameContainingIgnoreCase("another another test recipe").get(0);
+		long ownRecipeId = recipeRepo.getByUser_Username("user1").get(0).getId();
+		String body = String.join("\n",
+				reviewLine(recipe.getId(), "bulk review one", 4),
+				reviewLine(recipe.getId(), "bulk review two", 8),
+				reviewLine(ownRecipeId, "bulk review of my own", 10),
+				reviewLine(Long.MAX_VALUE, "bulk review of nothing", 5),
+				"{\"description\":\"bulk review without recipe\",\"rating\":5}");
+
+		JsonNode report = importNdjson("/review/bulk", body);
+
+		assertThat(report.get("imported").asLong()).isEqualTo(2);
+		assertThat(report.get("errors").findValuesAsText("line")).containsExactly("3", "4", "5");
+
+		Recipe rated = recipeRepo.findById(recipe.getId()).orElseThrow();
+		assertThat(rated.getRatingCount()).isEqualTo(recipe.getRatingCount() + 2);
+		assertThat(rated.getRatingSum()).isEqualTo(recipe.getRatingSum() + 12);
+
+		//the cached recipe was evicted, so its reviews include the imported ones
+		List<Long> importedIds = reviewService.getReviewByRecipeId(recipe.getId()).stream()
+				.filter(review -> review.getDescription().startsWith("bulk review"))
+				.map(CachedReview::getId)
+				.collect(Collectors.toList());
+		assertThat(importedIds).hasSize(2);
+		for (Long id : importedIds) {
+			reviewService.deleteReviewById(id);
+		}
+	}
+
+	private JsonNode importNdjson(String path, String body) throws Exception {
+		String response = mockMvc.perform(post(path)
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content(body))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(response);
+	}
+
+	private static String recipeLine(String name) {
+		return "{\"name\":\"" + name + "\",\"minutesToMake\":20,\"difficultyRating\":3," +
+				"\"ingredients\":[{\"name\":\"water\",\"amount\":\"1 l\",\"state\":\"wet\"}]," +
+				"\"steps\":[{\"stepNumber\":1,\"description\":\"boil it\"}]}";
+	}
+
+	private static String reviewLine(long recipeId, String description, int rating) {
+		return "{\"recipeId\":" + recipeId + ",\"description\":\"" + description + "\",\"rating\":" + rating + "}";
+	}
+}
@@ -0,0 +1,178 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.controller.ResponseCache;
+import co.LabsProjects.recipeapi.event.CacheInvalidationListener;
+import co.LabsProjects.recipeapi.event.RecipeChangedEvent;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.map.IMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//no cached view of a recipe returns what was cached before a review write, on the data set up by RecipeMainTest
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CacheCoherenceTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	RecipeService recipeService;
+
+	@Autowired
+	ResponseCache responseCache;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	@Test
+	@WithUserDetails("user1")
+	void reviewWritesAreVisibleThroughEveryCache() throws Exception {
+		//owned by user2, so user1 can review it
+		Recipe recipe = recipeRepo.findByNameContainingIgnoreCase("another another test recipe").get(0);
+		long id = recipe.getId();
+		double ratingBefore = recipe.getAverageReviewRating();
+		long sumBefore = recipe.getRatingSum();
+		int reviewsBefore = recipe.getRatingCount();
+
+		//warm the recipe, its page and user1's review page
+		read("/recipes/" + id);
+		read("/recipes/search/username/user2");
+		read("/review/user/user1");
+
+		String created = mockMvc.perform(post("/review/" + id)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"description\":\"cached twice\",\"rating\":9}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		long reviewId = objectMapper.readTree(created).get("id").asLong();
+
+		double expected = (double) (sumBefore + 9) / (reviewsBefore + 1);
+		assertThat(read("/recipes/" + id).get("averageReviewRating").asDouble()).isEqualTo(expected);
+		assertThat(read("/recipes/" + id).get("reviews")).hasSize(reviewsBefore + 1);
+		assertThat(summaryRating(read("/recipes/search/username/user2"), id)).isEqualTo(expected);
+		assertThat(read("/review/user/user1").get("items").findValuesAsText("id")).contains(String.valueOf(reviewId));
+		assertThat(read("/review/" + reviewId).get("rating").asInt()).isEqualTo(9);
+
+		mockMvc.perform(patch("/review")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"id\":" + reviewId + ",\"description\":\"changed my mind\",\"rating\":3}"))
+				.andExpect(status().isOk());
+
+		expected = (double) (sumBefore + 3) / (reviewsBefore + 1);
+		assertThat(read("/recipes/" + id).get("averageReviewRating").asDouble()).isEqualTo(expected);
+		assertThat(summaryRating(read("/recipes/search/username/user2"), id)).isEqualTo(expected);
+		assertThat(read("/review/" + reviewId).get("rating").asInt()).isEqualTo(3);
+
+		mockMvc.perform(delete("/review/" + reviewId)).andExpect(status().isOk());
+
+		assertThat(read("/recipes/" + id).get("averageReviewRating").asDouble()).isEqualTo(ratingBefore);
+		assertThat(read("/recipes/" + id).get("reviews")).hasSize(reviewsBefore);
+		assertThat(summaryRating(read("/recipes/search/username/user2"), id)).isEqualTo(ratingBefore);
+		mockMvc.perform(get("/review/" + reviewId)).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void readThatLoadedBeforeAWriteDoesNotCacheAfterItsEviction() throws Exception {
+		long id = recipeRepo.findByNameContainingIgnoreCase("another another test recipe").get(0).getId();
+		Cache recipes = cacheManager.getCache(CacheInvalidationListener.RECIPES);
+		String key = ResponseCache.recipeKey(id);
+		CachedRecipe stale = recipeService.getRecipeById(id);
+		//removed past the caches, so the reader misses keys that have no entry and no tombstone
+		((IMap<?, ?>) recipes.getNativeCache()).delete(id);
+		((IMap<?, ?>) cacheManager.getCache(ResponseCache.CACHE).getNativeCache()).delete(key);
+
+		CountDownLatch loaded = new CountDownLatch(1);
+		CountDownLatch evicted = new CountDownLatch(1);
+		CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+			//both misses happen before the write, the puts of what they loaded after its eviction
+			assertThat(recipes.get(id)).isNull();
+			assertThat(responseCache.find(key, null)).isNull();
+			loaded.countDown();
+			await(evicted);
+			recipes.put(id, stale);
+			responseCache.store(key, stale, stale.getEtag(), stale.getLastModified(),
+					ResponseCache.recipeSurrogateKey(id), null);
+		});
+		assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+		//what the listener runs once the write has committed
+		eventPublisher.publishEvent(RecipeChangedEvent.updated(id));
+		evicted.countDown();
+		reader.get(5, TimeUnit.SECONDS);
+
+		assertThat(recipes.get(id)).isNull();
+		assertThat(responseCache.find(key, null)).isNull();
+
+		//without a write in between the same reads are cached
+		CompletableFuture.runAsync(() -> {
+			assertThat(recipes.get(id)).isNull();
+			assertThat(responseCache.find(key, null)).isNull();
+			recipes.put(id, stale);
+			responseCache.store(key, stale, stale.getEtag(), stale.getLastModified(),
+					ResponseCache.recipeSurrogateKey(id), null);
+		}).get(5, TimeUnit.SECONDS);
+		assertThat(recipes.get(id)).isNotNull();
+		assertThat(responseCache.find(key, null)).isNotNull();
+		eventPublisher.publishEvent(RecipeChangedEvent.updated(id));
+	}
+
+	private JsonNode read(String url) throws Exception {
+		String body = mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private static double summaryRating(JsonNode page, long id) {
+		for (JsonNode summary : page.get("items")) {
+			if (summary.get("id").asLong() == id) {
+				return summary.get("averageReviewRating").asDouble();
+			}
+		}
+		throw new AssertionError("Recipe " + id + " is not on the page");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
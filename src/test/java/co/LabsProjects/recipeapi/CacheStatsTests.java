@@ -0,0 +1,48 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CacheStatsTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Test
+	@WithUserDetails("user2")
+	void repeatedReadsAreServedByTheNearCache() throws Exception {
+		long id = recipeRepo.findAll().get(0).getId();
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/recipes/" + id)).andExpect(status().isOk());
+		}
+
+		mockMvc.perform(get("/cache/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.recipes.hits", greaterThan(0)))
+				.andExpect(jsonPath("$.recipes.nearCache.hits", greaterThan(0)))
+				.andExpect(jsonPath("$.principals.hitRatio").isNumber());
+	}
+
+	@Test
+	@WithUserDetails("user1")
+	void statsAreOnlyForAdmins() throws Exception {
+		mockMvc.perform(get("/cache/stats")).andExpect(status().isForbidden());
+	}
+}
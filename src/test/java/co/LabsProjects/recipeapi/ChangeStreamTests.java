@@ -0,0 +1,86 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.event.RecipeChangedEvent;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//changes arrive through the cluster topic only at the subscribers they concern
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeStreamTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	@Test
+	void recipeStreamOnlyCarriesChangesOfThatRecipe() throws Exception {
+		List<Recipe> recipes = recipeRepo.findAll();
+		long watched = recipes.get(0).getId();
+		long other = recipes.get(1).getId();
+		MockHttpServletResponse stream = subscribe("/recipes/" + watched + "/stream");
+		MockHttpServletResponse everything = subscribe("/recipes/stream");
+
+		//published in this order on one topic, so once the second has arrived the first has been routed too
+		eventPublisher.publishEvent(RecipeChangedEvent.updated(other));
+		eventPublisher.publishEvent(RecipeChangedEvent.updated(watched));
+
+		String events = await(stream, "\"recipeId\":" + watched);
+		assertThat(events).contains("event:recipe").contains("\"type\":\"UPDATED\"");
+		assertThat(events).doesNotContain("\"recipeId\":" + other);
+		assertThat(await(everything, "\"recipeId\":" + watched)).contains("\"recipeId\":" + other);
+	}
+
+	@Test
+	void ratingReconciliationAsksEverySubscriberToResync() throws Exception {
+		MockHttpServletResponse stream = subscribe("/recipes/" + recipeRepo.findAll().get(0).getId() + "/stream");
+
+		eventPublisher.publishEvent(RecipeChangedEvent.allRated());
+
+		assertThat(await(stream, "event:resync")).isNotEmpty();
+	}
+
+	@Test
+	void streamOfUnknownRecipeIsNotFound() throws Exception {
+		mockMvc.perform(get("/recipes/" + Long.MAX_VALUE + "/stream"))
+				.andExpect(status().isNotFound());
+	}
+
+	private MockHttpServletResponse subscribe(String path) throws Exception {
+		return mockMvc.perform(get(path))
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse();
+	}
+
+	private static String await(MockHttpServletResponse stream, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 10_000;
+		String events = stream.getContentAsString();
+		while (!events.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			events = stream.getContentAsString();
+		}
+		assertThat(events).contains(expected);
+		return events;
+	}
+}
@@ -0,0 +1,168 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.configuration.RetryOnConflictAspect;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import co.LabsProjects.recipeapi.service.ReviewService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//many threads writing to one recipe, every write has to land exactly once; -Dstress.threads, -Dstress.writes
+@SpringBootTest(classes = RecipeApiApplication.class)
+@ActiveProfiles("test")
+class ConcurrentWriteStressTests {
+
+	private static final int THREADS = Integer.getInteger("stress.threads", 16);
+
+	private static final int WRITES = Integer.getInteger("stress.writes", 2000);
+
+	@Autowired
+	RecipeService recipeService;
+
+	@Autowired
+	ReviewService reviewService;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	UserRepo userRepo;
+
+	@Autowired
+	RetryOnConflictAspect retryAspect;
+
+	private final List<Long> createdRecipes = new ArrayList<>();
+
+	@AfterEach
+	void deleteRecipes() throws Exception {
+		for (Long id : createdRecipes) {
+			recipeService.deleteRecipeById(id);
+		}
+	}
+
+	@Test
+	void concurrentReviewsAreAllCounted() throws Exception {
+		long recipeId = createRecipe();
+		CustomUserDetails reviewer = userRepo.findByUsername("user1");
+		AtomicLong ratingSum = new AtomicLong();
+
+		long retriesBefore = retryAspect.getRetries();
+		long elapsed = run(WRITES, i -> {
+			int rating = 1 + i % 10;
+			reviewService.postNewReview(Review.builder()
+					.description("stress review " + i)
+					.rating(rating)
+					.user(reviewer)
+					.build(), recipeId);
+			ratingSum.addAndGet(rating);
+		});
+		report("reviews", WRITES, elapsed, retryAspect.getRetries() - retriesBefore);
+
+		Recipe recipe = recipeRepo.findById(recipeId).orElseThrow();
+		assertThat(recipe.getRatingCount()).isEqualTo(WRITES);
+		assertThat(recipe.getRatingSum()).isEqualTo(ratingSum.get());
+		assertThat(recipe.getAverageReviewRating()).isEqualTo((double) ratingSum.get() / WRITES);
+		assertThat(reviewService.getReviewByRecipeId(recipeId)).hasSize(WRITES);
+	}
+
+	@Test
+	void concurrentEditsAreNeitherLostNorRejected() throws Exception {
+		long recipeId = createRecipe();
+		long versionBefore = recipeRepo.findById(recipeId).orElseThrow().getVersion();
+		int edits = Math.max(WRITES / 20, THREADS);
+
+		//every edit reads and rewrites the whole recipe, so contention is much higher than for reviews
+		Object previousAttempts = ReflectionTestUtils.getField(retryAspect, "maxAttempts");
+		ReflectionTestUtils.setField(retryAspect, "maxAttempts", 100);
+		try {
+			long retriesBefore = retryAspect.getRetries();
+			long elapsed = run(edits, i -> recipeService.updateRecipe(recipe(recipeId, i), null));
+			report("edits", edits, elapsed, retryAspect.getRetries() - retriesBefore);
+		} finally {
+			ReflectionTestUtils.setField(retryAspect, "maxAttempts", previousAttempts);
+		}
+
+		//each committed edit bumps the version exactly once, a lost update would leave it short
+		Recipe recipe = recipeRepo.findById(recipeId).orElseThrow();
+		assertThat(recipe.getVersion() - versionBefore).isEqualTo(edits);
+	}
+
+	private long createRecipe() throws Exception {
+		Recipe recipe = recipe(0, 0);
+		recipe.setUser(userRepo.findByUsername("user2"));
+		long id = recipeService.createNewRecipe(recipe).getId();
+		createdRecipes.add(id);
+		return id;
+	}
+
+	private static Recipe recipe(long id, int edit) {
+		List<Ingredient> ingredients = new ArrayList<>();
+		ingredients.add(Ingredient.builder().name("stress ingredient").amount(edit + " g").state("dry").build());
+		List<Step> steps = new ArrayList<>();
+		steps.add(Step.builder().stepNumber(1).description("stress step " + edit).build());
+		return Recipe.builder()
+				.id(id)
+				.name("stress recipe")
+				.minutesToMake(edit)
+				.difficultyRating(edit % 10)
+				.ingredients(ingredients)
+				.steps(steps)
+				.build();
+	}
+
+	private static long run(int writes, Write write) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		AtomicInteger next = new AtomicInteger();
+		List<Callable<Void>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			workers.add(() -> {
+				for (int i = next.getAndIncrement(); i < writes; i = next.getAndIncrement()) {
+					write.run(i);
+				}
+				return null;
+			});
+		}
+		long start = System.nanoTime();
+		try {
+			for (Future<Void> worker : executor.invokeAll(workers)) {
+				//rethrows the first failed write
+				worker.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static void report(String what, int writes, long elapsedNanos, long retries) {
+		double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+		System.out.printf("%d %s on %d threads in %.2f s (%.0f/s), %d retries%n",
+				writes, what, THREADS, seconds, writes / seconds, retries);
+	}
+
+	private interface Write {
+		void run(int i) throws Exception;
+	}
+}
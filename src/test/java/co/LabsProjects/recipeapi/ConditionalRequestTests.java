@@ -0,0 +1,89 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.controller.ResponseCache;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Test
+	void unchangedRecipeIsNotSentAgain() throws Exception {
+		long id = recipeRepo.findAll().get(0).getId();
+		String etag = mockMvc.perform(get("/recipes/" + id))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public, s-maxage=3600"))
+				.andExpect(header().string("Surrogate-Key", "recipe-" + id))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotBlank();
+
+		mockMvc.perform(get("/recipes/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		mockMvc.perform(get("/recipes/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"r0-l0-0\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void revalidationIsAnsweredWithoutRenderingTheRecipe() throws Exception {
+		long id = recipeRepo.findAll().get(0).getId();
+		String etag = mockMvc.perform(get("/recipes/" + id))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		cacheManager.getCache(ResponseCache.CACHE).evict(ResponseCache.recipeKey(id));
+
+		mockMvc.perform(get("/recipes/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(header().string("Surrogate-Key", "recipe-" + id))
+				.andExpect(content().string(""));
+
+		assertThat(cacheManager.getCache(ResponseCache.CACHE).get(ResponseCache.recipeKey(id))).isNull();
+	}
+
+	@Test
+	@WithUserDetails("user1")
+	void patchWithAStaleTagIsRejected() throws Exception {
+		Recipe recipe = recipeRepo.findByNameContainingIgnoreCase("another test recipe").stream()
+				.filter(r -> r.getName().equals("another test recipe"))
+				.findFirst().orElseThrow();
+
+		mockMvc.perform(patch("/recipes")
+						.header(HttpHeaders.IF_MATCH, "\"r-1-l0-0\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"id\":" + recipe.getId() + ",\"name\":\"overwritten\",\"minutesToMake\":1,\"difficultyRating\":1," +
+								"\"ingredients\":[{\"name\":\"x\",\"amount\":\"1\"}],\"steps\":[{\"stepNumber\":1,\"description\":\"x\"}]}"))
+				.andExpect(status().isPreconditionFailed());
+
+		assertThat(recipeRepo.findById(recipe.getId()).orElseThrow().getName()).isEqualTo("another test recipe");
+	}
+}
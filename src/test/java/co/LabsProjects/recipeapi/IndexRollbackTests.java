@@ -0,0 +1,98 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.index.IngredientIndex;
+import co.LabsProjects.recipeapi.index.OwnershipIndex;
+import co.LabsProjects.recipeapi.index.RecipeSearchIndex;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//a recipe created or deleted in a transaction that rolls back leaves the indexes as they were
+@SpringBootTest(classes = RecipeApiApplication.class)
+@ActiveProfiles("test")
+class IndexRollbackTests {
+
+	@Autowired
+	RecipeService recipeService;
+
+	@Autowired
+	UserRepo userRepo;
+
+	@Autowired
+	RecipeSearchIndex searchIndex;
+
+	@Autowired
+	IngredientIndex ingredientIndex;
+
+	@Autowired
+	OwnershipIndex ownershipIndex;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void rolledBackCreateIsNotIndexed() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			create("rolled back zucchini", "zucchini");
+			status.setRollbackOnly();
+		});
+
+		assertThat(searchIndex.search("zucchini", 10)).isEmpty();
+		assertThat(ingredientIndex.search(List.of("zucchini"), List.of(), List.of(), 0, 10)).isEmpty();
+	}
+
+	@Test
+	void rolledBackDeleteStaysIndexed() throws Exception {
+		Recipe recipe = new TransactionTemplate(transactionManager).execute(status -> create("committed okra", "okra"));
+		long id = recipe.getId();
+		assertThat(searchIndex.search("okra", 10)).containsExactly(id);
+
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				try {
+					recipeService.deleteRecipeById(id);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+				status.setRollbackOnly();
+			});
+
+			assertThat(searchIndex.search("okra", 10)).containsExactly(id);
+			assertThat(ingredientIndex.search(List.of("okra"), List.of(), List.of(), 0, 10)).containsExactly(id);
+			assertThat(ownershipIndex.getRecipeOwner(id)).isPresent();
+		} finally {
+			recipeService.deleteRecipeById(id);
+		}
+		assertThat(searchIndex.search("okra", 10)).isEmpty();
+	}
+
+	private Recipe create(String name, String ingredient) {
+		List<Ingredient> ingredients = new ArrayList<>(List.of(Ingredient.builder().name(ingredient).amount("1").build()));
+		List<Step> steps = new ArrayList<>(List.of(Step.builder().stepNumber(1).description("cook it").build()));
+		try {
+			return recipeService.createNewRecipe(Recipe.builder()
+					.name(name)
+					.difficultyRating(1)
+					.minutesToMake(1)
+					.ingredients(ingredients)
+					.steps(steps)
+					.user(userRepo.findByUsername("user1"))
+					.build());
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//the Prometheus scrape carries every family of meters we rely on
+@Tag("jpa")
+@SpringBootTest(classes = RecipeApiApplication.class, properties = "recipe-api.metrics.hibernate-statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+class MetricsTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Test
+	void prometheusScrapeCoversEndpointsCachesDatabaseAndPasswords() throws Exception {
+		long id = recipeRepo.findAll().get(0).getId();
+		mockMvc.perform(get("/recipes/" + id)).andExpect(status().isOk());
+		mockMvc.perform(get("/recipes/" + id)).andExpect(status().isOk());
+		mockMvc.perform(get("/review/user/user1").with(httpBasic("user1", "password1")));
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("user2", "password2")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				//latency percentiles per endpoint
+				.containsPattern("http_server_requests_seconds\\{[^}]*quantile=\"0.999\"[^}]*uri=\"/recipes/\\{id}\"")
+				//statements per request
+				.contains("http_server_requests_statements_count{")
+				//application level cache hits and misses, and member side sizes
+				.contains("cache_gets_total{application=\"recipe-api\",cache=\"recipes\",result=\"hit\",}")
+				.contains("cache_gets_total{application=\"recipe-api\",cache=\"recipes\",result=\"miss\",}")
+				.contains("cache_size{application=\"recipe-api\",cache=\"recipes\",}")
+				.contains("cache_near_gets_total{")
+				//Hibernate statistics and connection pool waits
+				.contains("hibernate_query_executions_total")
+				.contains("hibernate_entities_loads_total")
+				.contains("hibernate_collections_fetches_total")
+				.contains("hikaricp_connections_acquire_seconds")
+				//BCrypt
+				.contains("security_password_matches_seconds_count");
+	}
+
+	@Test
+	void prometheusScrapeNeedsAnAdmin() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/prometheus").with(httpBasic("user1", "password1"))).andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,47 @@
+package co.LabsProjects.recipeapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//a password change reaches the next Basic login although the login before cached the principal
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordChangeTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	void changedPasswordIsUsedByTheNextLogin() throws Exception {
+		//caches user1's principal
+		mockMvc.perform(get("/user").with(httpBasic("user1", "password1"))).andExpect(status().isOk());
+
+		changePassword("password1", "changed password");
+		try {
+			mockMvc.perform(get("/user").with(httpBasic("user1", "password1"))).andExpect(status().isUnauthorized());
+			mockMvc.perform(get("/user").with(httpBasic("user1", "changed password"))).andExpect(status().isOk());
+		} finally {
+			changePassword("changed password", "password1");
+		}
+		mockMvc.perform(get("/user").with(httpBasic("user1", "password1"))).andExpect(status().isOk());
+	}
+
+	private void changePassword(String oldPassword, String newPassword) throws Exception {
+		mockMvc.perform(patch("/user/password")
+						.with(httpBasic("user1", oldPassword))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"password\":\"" + newPassword + "\"}"))
+				.andExpect(status().isOk());
+	}
+}
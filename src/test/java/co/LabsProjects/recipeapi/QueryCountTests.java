@@ -0,0 +1,149 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.ReviewRepo;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//counts the JDBC statements each read endpoint prepares for one request
+@Tag("jpa")
+@SpringBootTest(classes = RecipeApiApplication.class,
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryCountTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	ReviewRepo reviewRepo;
+
+	@Autowired
+	UserRepo userRepo;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		//a cache hit would not run any query at all, so always start cold
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void listEndpointsRunASingleSelect() throws Exception {
+		assertStatements("/recipes", 1);
+		assertStatements("/recipes?sort=averageReviewRating&direction=desc", 1);
+		assertStatements("/recipes/search/name/recipe", 1);
+		assertStatements("/recipes/search/name/recipe/max-difficulty/10", 1);
+		assertStatements("/recipes/search/rating/0", 1);
+		assertStatements("/recipes/search/username/user1", 1);
+		assertStatements("/recipes/filter?maxDifficulty=5&ingredient=flour&facets=false", 1);
+	}
+
+	@Test
+	void filterCountsFacetsOnTheFirstPageOnly() throws Exception {
+		//the page, then one grouped count per facet
+		assertStatements("/recipes/filter?maxMinutes=60", 3);
+	}
+
+	@Test
+	void recipeDetailDoesNotDependOnCollectionSizes() throws Exception {
+		//one ingredient, two steps and one review
+		long small = recipeRepo.findByNameContainingIgnoreCase("test recipe").stream()
+				.filter(recipe -> recipe.getName().equals("test recipe"))
+				.findFirst().orElseThrow().getId();
+
+		//six of each, the reviews by both users
+		CustomUserDetails user1 = userRepo.findByUsername("user1");
+		CustomUserDetails user2 = userRepo.findByUsername("user2");
+		List<Ingredient> ingredients = new ArrayList<>();
+		List<Step> steps = new ArrayList<>();
+		for (int i = 1; i <= 6; i++) {
+			ingredients.add(Ingredient.builder().name("ingredient " + i).amount("1").build());
+			steps.add(Step.builder().stepNumber(i).description("step " + i).build());
+		}
+		Recipe large = recipeRepo.save(Recipe.builder()
+				.name("query count recipe")
+				.difficultyRating(1)
+				.minutesToMake(1)
+				.ingredients(ingredients)
+				.steps(steps)
+				.user(user1)
+				.build());
+		List<Review> reviews = new ArrayList<>();
+		for (int i = 1; i <= 6; i++) {
+			reviews.add(reviewRepo.save(Review.builder().description("review " + i).rating(i)
+					.user(i % 2 == 0 ? user1 : user2).recipe(large).build()));
+		}
+
+		try {
+			//recipe with author and ingredients, steps, reviews, then batched review authors and their roles
+			long smallStatements = detailStatements(small);
+			assertThat(smallStatements).isLessThanOrEqualTo(6);
+			assertThat(detailStatements(large.getId())).isEqualTo(smallStatements);
+		} finally {
+			reviewRepo.deleteAll(reviews);
+			recipeRepo.deleteById(large.getId());
+		}
+	}
+
+	@Test
+	@WithUserDetails("user1")
+	void userReviewsAreLoadedInBatches() throws Exception {
+		//reviews, then the batched authors and their roles
+		mockMvc.perform(get("/review/user/user1")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	private long detailStatements(long id) throws Exception {
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		statistics.clear();
+		mockMvc.perform(get("/recipes/" + id)).andExpect(status().isOk());
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void assertStatements(String url, long expected) throws Exception {
+		statistics.clear();
+		//an error response, such as a 404 or a rejected cursor, would pass with fewer statements
+		mockMvc.perform(get(url)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount())
+				.as("statements for " + url)
+				.isEqualTo(expected);
+	}
+}
@@ -6,6 +6,7 @@ import co.LabsProjects.recipeapi.model.*;
 import co.LabsProjects.recipeapi.repo.RecipeRepo;
 import co.LabsProjects.recipeapi.repo.UserRepo;
 import co.LabsProjects.recipeapi.service.RecipeService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,7 +29,9 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -58,6 +62,15 @@ class RecipeApiApplicationTests {
 	@Autowired
 	UserRepo userRepo;
 
+	@Autowired
+	CacheManager cacheManager;
+
+	@BeforeEach
+	void clearCaches() {
+		//the response cache sits in front of the mocked service, so a response cached by one test would hide the next mock
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
 	@Test
 	@Order(1)
 	@WithUserDetails("user1")
@@ -95,7 +108,7 @@ class RecipeApiApplicationTests {
 				.user(user2)
 				.build();
 
-		when(recipeService.getRecipeById(anyLong())).thenReturn(recipe1);
+		when(recipeService.getRecipeById(anyLong())).thenReturn(CachedRecipe.from(recipe1));
 
 
 		//set up GET request
@@ -209,7 +222,7 @@ class RecipeApiApplicationTests {
 				.id(4)
 				.build();
 
-		when(recipeService.getAllRecipes()).thenReturn(Arrays.asList(recipe1, recipe2, recipe3, recipe4));
+		when(recipeService.getAllRecipes(any(RecipeQuery.class))).thenReturn(new CursorPage<>(summariesOf(recipe1, recipe2, recipe3, recipe4), null, 20));
 
 		//set up get request for all recipe endpoint
 		mockMvc.perform(get("/recipes"))
@@ -221,25 +234,28 @@ class RecipeApiApplicationTests {
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 
 				//expect there are 4 entries
-				.andExpect(jsonPath("$", hasSize(4)))
+				.andExpect(jsonPath("$.items", hasSize(4)))
+
+				//expect there is no next page
+				.andExpect(jsonPath("$.nextCursor").doesNotExist())
 
 				//expect the first entry to have ID 1
-				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$.items[0].id").value(1))
 
 				//expect the first entry to have name test recipe
-				.andExpect(jsonPath("$[0].name").value("test recipe"))
+				.andExpect(jsonPath("$.items[0].name").value("test recipe"))
 
 				//expect the second entry to have id 2
-				.andExpect(jsonPath("$[1].id").value(2))
+				.andExpect(jsonPath("$.items[1].id").value(2))
 
 				//expect the second entry to have a minutesToMake value of 2
-				.andExpect(jsonPath("$[1].minutesToMake").value(2))
+				.andExpect(jsonPath("$.items[1].minutesToMake").value(2))
 
 				//expect the third entry to have id 3
-				.andExpect(jsonPath("$[2].id").value(3))
+				.andExpect(jsonPath("$.items[2].id").value(3))
 
 				//expect the third entry to have difficulty rating
-				.andExpect(jsonPath("$[2].difficultyRating").value(5));
+				.andExpect(jsonPath("$.items[2].difficultyRating").value(5));
 	}
 
 	@Test
@@ -345,7 +361,7 @@ class RecipeApiApplicationTests {
 	public void testGetAllRecipesFailureBehavior() throws Exception {
 
 		//delete all entries to force error
-		when(recipeService.getAllRecipes()).thenThrow(new NoSuchRecipeException("There are no recipes yet :( feel free to add one though"));
+		when(recipeService.getAllRecipes(any(RecipeQuery.class))).thenThrow(new NoSuchRecipeException("There are no recipes yet :( feel free to add one though"));
 
 		//perform GET all recipes
 		mockMvc.perform(get("/recipes"))
@@ -434,8 +450,10 @@ class RecipeApiApplicationTests {
 				.id(4)
 				.build();
 
-		when(recipeService.getRecipesByName(eq("recipe"))).thenReturn(Arrays.asList(recipe1, recipe2, recipe3));
-		when(recipeService.getRecipesByName(eq("potato"))).thenReturn(Arrays.asList(recipe4));
+		when(recipeService.getRecipesByName(argThat(q -> q != null && "recipe".equals(q.getName()))))
+				.thenReturn(new CursorPage<>(summariesOf(recipe1, recipe2, recipe3), null, 20));
+		when(recipeService.getRecipesByName(argThat(q -> q != null && "potato".equals(q.getName()))))
+				.thenReturn(new CursorPage<>(summariesOf(recipe4), null, 20));
 
 		//set up get request to search for recipes with names including the word recipe
 		MvcResult mvcResult = mockMvc.perform(get("/recipes/search/name/recipe"))
@@ -449,13 +467,13 @@ class RecipeApiApplicationTests {
 		//pull json byte array from the result
 		byte[] jsonByteArray = mvcResult.getResponse().getContentAsByteArray();
 		//convert the json bytes to an array of Recipe objects
-		Recipe[] returnedRecipes = TestUtil.convertJsonBytesToObject(jsonByteArray, Recipe[].class);
+		RecipeSummary[] returnedRecipes = TestUtil.convertPageItemsToObject(jsonByteArray, RecipeSummary[].class);
 
 		//confirm 3 recipes were returned
 		assertThat(returnedRecipes.length).isEqualTo(3);
 
 
-		for(Recipe r: returnedRecipes) {
+		for(RecipeSummary r: returnedRecipes) {
 			//confirm none of the recipes are null
 			assertThat(r).isNotNull();
 			//confirm they all have IDs
@@ -474,7 +492,7 @@ class RecipeApiApplicationTests {
 				.andReturn().getResponse().getContentAsByteArray();
 
 		//get recipes as a java array
-		returnedRecipes = TestUtil.convertJsonBytesToObject(jsonBytes, Recipe[].class);
+		returnedRecipes = TestUtil.convertPageItemsToObject(jsonBytes, RecipeSummary[].class);
 
 		//confirm only one recipe was returned
 		assertThat(returnedRecipes.length).isEqualTo(1);
@@ -490,7 +508,7 @@ class RecipeApiApplicationTests {
 	@Order(7)
 	public void testGetRecipeByNameFailureBehavior() throws Exception {
 
-		when(recipeService.getRecipesByName(anyString())).thenThrow(new NoSuchRecipeException("No recipes could be found with that name."));
+		when(recipeService.getRecipesByName(any(RecipeQuery.class))).thenThrow(new NoSuchRecipeException("No recipes could be found with that name."));
 
 		byte[] contentAsByteArray = mockMvc.perform(get("/recipes/search/name/should not exist"))
 				//expect 404 NOT FOUND
@@ -575,4 +593,8 @@ class RecipeApiApplicationTests {
 	void contextLoads() {
 	}
 
+	private static List<RecipeSummary> summariesOf(Recipe... recipes) {
+		return Arrays.stream(recipes).map(RecipeSummary::from).collect(Collectors.toList());
+	}
+
 }
@@ -0,0 +1,63 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.service.RecipeExportService;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//exports two recipes at a time with an open-in-view EntityManager bound, none of the chunks may end up in it
+@Tag("jpa")
+@SpringBootTest(classes = RecipeApiApplication.class, properties = "recipe-api.export.chunk-size=2")
+@ActiveProfiles("test")
+class RecipeExportChunkTests {
+
+	@Autowired
+	RecipeExportService exportService;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void chunksDoNotPileUpInTheRequestEntityManager() throws Exception {
+		//what open-in-view binds to the thread writing a streamed response
+		EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+		EntityManagerHolder holder = new EntityManagerHolder(requestEntityManager);
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, holder);
+		List<Integer> managedAfterChunk = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				managedAfterChunk.add(requestEntityManager.unwrap(Session.class).getStatistics().getEntityCount());
+			}
+		};
+		try {
+			exportService.exportRecipes(null, out);
+			assertThat(TransactionSynchronizationManager.getResource(entityManagerFactory)).isSameAs(holder);
+		} finally {
+			TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+			requestEntityManager.close();
+		}
+
+		assertThat(managedAfterChunk).hasSizeGreaterThan(1).containsOnly(0);
+		long lines = out.toString(StandardCharsets.UTF_8).lines().count();
+		assertThat(lines).isEqualTo(recipeRepo.count());
+	}
+}
@@ -0,0 +1,128 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//exports the catalog set up by RecipeMainTest, in full, gzipped and incrementally
+@SpringBootTest(classes = RecipeApiApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeExportTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	RecipeService recipeService;
+
+	@Autowired
+	UserRepo userRepo;
+
+	@Test
+	void exportsEveryRecipeOncePerLineInIdOrder() throws Exception {
+		MockHttpServletResponse response = export("/recipes/export", null);
+
+		List<Long> ids = ids(response.getContentAsString());
+		assertThat(ids).isSortedAccordingTo(Long::compare).doesNotHaveDuplicates();
+		assertThat(ids).hasSize((int) recipeRepo.count());
+		assertThat(response.getHeader("X-Export-Watermark")).isNotNull();
+	}
+
+	@Test
+	void gzipsWhenAccepted() throws Exception {
+		MockHttpServletResponse response = export("/recipes/export", "gzip");
+
+		assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))
+				.readAllBytes(), StandardCharsets.UTF_8);
+		assertThat(ids(ndjson)).hasSize((int) recipeRepo.count());
+	}
+
+	@Test
+	void exportsOnlyRecipesChangedSince() throws Exception {
+		MockHttpServletResponse response = export("/recipes/export?updatedSince=" + Instant.now().plusSeconds(3600), null);
+
+		assertThat(response.getContentAsString()).isEmpty();
+	}
+
+	@Test
+	void reportsRecipesDeletedSince() throws Exception {
+		Instant before = Instant.now().minusSeconds(1);
+		long id = recipeService.createNewRecipe(Recipe.builder()
+				.name("exported then deleted")
+				.difficultyRating(1)
+				.minutesToMake(1)
+				.ingredients(new ArrayList<>(List.of(Ingredient.builder().name("salt").amount("1").build())))
+				.steps(new ArrayList<>(List.of(Step.builder().stepNumber(1).description("cook it").build())))
+				.user(userRepo.findByUsername("user1"))
+				.build()).getId();
+		recipeService.deleteRecipeById(id);
+
+		MockHttpServletResponse response = export("/recipes/export?updatedSince=" + before, null);
+
+		JsonNode deleted = null;
+		for (String line : response.getContentAsString().split("\n")) {
+			JsonNode node = line.isEmpty() ? null : objectMapper.readTree(line);
+			if (node != null && node.get("id").asLong() == id) {
+				assertThat(deleted).isNull();
+				deleted = node;
+			}
+		}
+		assertThat(deleted).isNotNull();
+		assertThat(deleted.get("deleted").asBoolean()).isTrue();
+	}
+
+	private MockHttpServletResponse export(String path, String acceptEncoding) throws Exception {
+		MvcResult started = mockMvc.perform(acceptEncoding == null ? get(path) : get(path).header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+
+	private List<Long> ids(String ndjson) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (String line : ndjson.split("\n")) {
+			if (!line.isEmpty()) {
+				JsonNode recipe = objectMapper.readTree(line);
+				ids.add(recipe.get("id").asLong());
+			}
+		}
+		return ids;
+	}
+}
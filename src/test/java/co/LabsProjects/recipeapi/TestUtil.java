@@ -30,4 +30,10 @@ public class TestUtil {
         //read the byte array containing the JSON and translate it into an object.
         return reader.readValue(bytes);
     }
+
+    public static <T> T convertPageItemsToObject(byte[] bytes, Class<T> clazz) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        //pages wrap their content in an items array next to the cursor, only the items are mapped
+        return mapper.readerFor(clazz).readValue(mapper.readTree(bytes).get("items"));
+    }
 }
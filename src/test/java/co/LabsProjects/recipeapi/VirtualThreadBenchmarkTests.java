@@ -0,0 +1,151 @@
+package co.LabsProjects.recipeapi;
+
+import co.LabsProjects.recipeapi.configuration.VirtualThreadConfiguration;
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import co.LabsProjects.recipeapi.service.RecipeService;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//requests blocked on a slow dependency, on platform and on virtual threads; only ./gradlew benchmark runs it
+@Tag("benchmark")
+class VirtualThreadBenchmarkTests {
+
+	private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 5000);
+
+	private static final int REQUESTS = Integer.getInteger("benchmark.requests", 50000);
+
+	private static final long LATENCY_MS = Long.getLong("benchmark.latency-ms", 50);
+
+	@Test
+	void platformThreadsAgainstVirtualThreads() throws Exception {
+		Result platform = run(false);
+		Assumptions.assumeTrue(VirtualThreadConfiguration.isAvailable(),
+				"Java " + Runtime.version() + " has no virtual threads");
+		Result virtual = run(true);
+
+		System.out.printf("%d requests, %d connections, %d ms blocking per request%n", REQUESTS, CONNECTIONS, LATENCY_MS);
+		System.out.println(platform.describe("platform"));
+		System.out.println(virtual.describe("virtual"));
+		assertThat(platform.failures).isZero();
+		assertThat(virtual.failures).isZero();
+	}
+
+	private static Result run(boolean virtualThreads) throws Exception {
+		try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+				new SpringApplicationBuilder(RecipeApiApplication.class, SlowEndpoint.class)
+						.profiles("test")
+						.properties("server.port=0",
+								"recipe-api.virtual-threads.enabled=" + virtualThreads,
+								"server.tomcat.max-connections=" + (CONNECTIONS + 1000),
+								"server.tomcat.accept-count=" + CONNECTIONS)
+						.run()) {
+			URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/recipes/benchmark/slow");
+			//warm up the JIT, the connection pool and the caches before measuring
+			load(uri, Math.min(REQUESTS, CONNECTIONS * 2));
+			return load(uri, REQUESTS);
+		}
+	}
+
+	private static Result load(URI uri, int requests) throws InterruptedException {
+		ExecutorService clientThreads = Executors.newFixedThreadPool(8);
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.executor(clientThreads)
+				.build();
+		HttpRequest request = HttpRequest.newBuilder(uri).build();
+		Semaphore connections = new Semaphore(CONNECTIONS);
+		CountDownLatch done = new CountDownLatch(requests);
+		AtomicInteger failures = new AtomicInteger();
+		long[] latencies = new long[requests];
+
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			connections.acquire();
+			int n = i;
+			long sent = System.nanoTime();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+				latencies[n] = System.nanoTime() - sent;
+				if (error != null || response.statusCode() != 200) {
+					failures.incrementAndGet();
+				}
+				connections.release();
+				done.countDown();
+			});
+		}
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		clientThreads.shutdownNow();
+		return new Result(requests, elapsed, latencies, failures.get());
+	}
+
+	private static class Result {
+
+		private final double throughput;
+
+		private final long p50Micros;
+
+		private final long p99Micros;
+
+		private final int failures;
+
+		Result(int requests, long elapsedNanos, long[] latencies, int failures) {
+			this.throughput = requests / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+			Arrays.sort(latencies);
+			this.p50Micros = TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.50)]);
+			this.p99Micros = TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.99)]);
+			this.failures = failures;
+		}
+
+		String describe(String mode) {
+			return String.format("%-8s %8.0f req/s   p50 %7d us   p99 %7d us   %d failed",
+					mode, throughput, p50Micros, p99Micros, failures);
+		}
+	}
+
+	//registered as a source of the benchmark application only, it is not a component so other tests never see it
+	@RequestMapping("/recipes/benchmark")
+	@ResponseBody
+	static class SlowEndpoint {
+
+		@Autowired
+		RecipeService recipeService;
+
+		@Autowired
+		RecipeRepo recipeRepo;
+
+		private volatile Long recipeId;
+
+		@GetMapping("/slow")
+		public CachedRecipe slow() throws Exception {
+			//stands in for a slow database or cluster call, the request thread is blocked for all of it
+			Thread.sleep(LATENCY_MS);
+			if (recipeId == null) {
+				recipeId = recipeRepo.findIdsAfter(0, PageRequest.of(0, 1)).get(0);
+			}
+			return recipeService.getRecipeById(recipeId);
+		}
+	}
+}
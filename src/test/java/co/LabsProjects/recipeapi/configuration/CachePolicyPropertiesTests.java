@@ -0,0 +1,48 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachePolicyPropertiesTests {
+
+	@Test
+	void entryLimitedPolicy() {
+		CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+		policy.setMaxEntries(1000);
+		policy.setEviction(EvictionPolicy.LFU);
+		policy.setTtlSeconds(60);
+		policy.setBackupCount(2);
+
+		MapConfig config = policy.toMapConfig("recipes");
+		assertThat(config.getName()).isEqualTo("recipes");
+		assertThat(config.getEvictionConfig().getMaxSizePolicy()).isEqualTo(MaxSizePolicy.PER_NODE);
+		assertThat(config.getEvictionConfig().getSize()).isEqualTo(1000);
+		assertThat(config.getEvictionConfig().getEvictionPolicy()).isEqualTo(EvictionPolicy.LFU);
+		assertThat(config.getTimeToLiveSeconds()).isEqualTo(60);
+		assertThat(config.getBackupCount()).isEqualTo(2);
+	}
+
+	@Test
+	void heapLimitedPolicy() {
+		CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+		policy.setMaxHeapMb(64);
+
+		MapConfig config = policy.toMapConfig("recipePages");
+		assertThat(config.getEvictionConfig().getMaxSizePolicy()).isEqualTo(MaxSizePolicy.USED_HEAP_SIZE);
+		assertThat(config.getEvictionConfig().getSize()).isEqualTo(64);
+	}
+
+	@Test
+	void rejectsTwoLimits() {
+		CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+		policy.setMaxEntries(10);
+		policy.setMaxHeapMb(10);
+
+		assertThatThrownBy(() -> policy.toMapConfig("reviews")).isInstanceOf(IllegalStateException.class);
+	}
+}
@@ -0,0 +1,127 @@
+package co.LabsProjects.recipeapi.configuration;
+
+import co.LabsProjects.recipeapi.model.CachedRecipe;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Review;
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.model.Step;
+import co.LabsProjects.recipeapi.model.UserMeta;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//bytes and round trip time of a cached recipe as a Java-serialized entity and as a Compact CachedRecipe
+class CacheSerializationBenchmarkTests {
+
+	static final int WARMUP = 2_000;
+
+	static final int ITERATIONS = 20_000;
+
+	static HazelcastInstance member;
+
+	static SerializationService serialization;
+
+	@BeforeAll
+	static void startMember() {
+		Config config = new Config();
+		config.setClusterName("serialization-benchmark");
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		CachingConfiguration.addCompactSerializers(config.getSerializationConfig().getCompactSerializationConfig());
+		member = Hazelcast.newHazelcastInstance(config);
+		serialization = ((SerializationServiceSupport) member).getSerializationService();
+	}
+
+	@AfterAll
+	static void stopMember() {
+		member.shutdown();
+	}
+
+	@Test
+	void compactCacheValueIsSmallerThanTheEntity() {
+		Recipe recipe = sampleRecipe();
+		CachedRecipe cached = CachedRecipe.from(recipe);
+
+		Result entity = measure("Java serialized Recipe", recipe);
+		Result compact = measure("Compact CachedRecipe", cached);
+
+		assertThat(compact.bytes).isLessThan(entity.bytes);
+	}
+
+	private static Result measure(String label, Object value) {
+		for (int i = 0; i < WARMUP; i++) {
+			serialization.toObject(serialization.toData(value));
+		}
+		long start = System.nanoTime();
+		Data data = null;
+		for (int i = 0; i < ITERATIONS; i++) {
+			data = serialization.toData(value);
+			serialization.toObject(data);
+		}
+		Result result = new Result(data.totalSize(), (System.nanoTime() - start) / ITERATIONS);
+		System.out.printf("%-24s %6d bytes %8d ns per round trip%n", label, result.bytes, result.nanos);
+		return result;
+	}
+
+	private static Recipe sampleRecipe() {
+		List<Ingredient> ingredients = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			ingredients.add(Ingredient.builder().id((long) i).name("ingredient " + i).amount(i + " cups").state("dry").build());
+		}
+		List<Step> steps = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			steps.add(Step.builder().id(i).stepNumber(i + 1).description("do the thing in step " + (i + 1) + " until it is done").build());
+		}
+		List<Review> reviews = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			reviews.add(Review.builder().id(i).description("review number " + i).rating(1 + i % 10).user(user(100 + i)).build());
+		}
+		return Recipe.builder()
+				.id(1)
+				.name("benchmark recipe")
+				.user(user(1))
+				.minutesToMake(30)
+				.difficultyRating(5)
+				.ratingSum(110)
+				.ratingCount(20)
+				.averageReviewRating(5.5)
+				.ingredients(ingredients)
+				.steps(steps)
+				.reviews(reviews)
+				.build();
+	}
+
+	private static CustomUserDetails user(long id) {
+		return CustomUserDetails.builder()
+				.id(id)
+				.username("user" + id)
+				.password("$2a$10$abcdefghijklmnopqrstuvCjR4Uq0k3xHk5B9dB0p6sDxN8QUGu2")
+				.userMeta(UserMeta.builder().name("User " + id).email("user" + id + "@email.com").build())
+				.authorities(List.of(new Role(Role.Roles.ROLE_USER)))
+				.build();
+	}
+
+	static class Result {
+
+		final int bytes;
+
+		final long nanos;
+
+		Result(int bytes, long nanos) {
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package co.LabsProjects.recipeapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTests {
+
+	static final Map<String, String> BODY = Map.of("name", "a recipe with a long enough name");
+
+	ResponseCache responseCache;
+
+	@BeforeEach
+	void setUp() {
+		responseCache = new ResponseCache();
+		responseCache.cacheManager = new ConcurrentMapCacheManager();
+		responseCache.objectMapper = new ObjectMapper();
+		responseCache.gzipMinBytes = 16;
+		responseCache.maxAgeSeconds = 60;
+		responseCache.sharedMaxAgeSeconds = 3600;
+	}
+
+	@Test
+	void servesTheStoredBytes() {
+		assertThat(responseCache.find("recipe:1", null)).isNull();
+
+		ResponseEntity<byte[]> first = responseCache.store("recipe:1", BODY, "r1-l0", 0, "recipe-1", null);
+		ResponseEntity<byte[]> second = responseCache.find("recipe:1", null);
+
+		assertThat(new String(second.getBody())).isEqualTo("{\"name\":\"a recipe with a long enough name\"}");
+		assertThat(second.getBody()).isSameAs(first.getBody());
+		assertThat(second.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(second.getHeaders().getETag()).isEqualTo("\"r1-l0\"");
+		assertThat(second.getHeaders().getCacheControl()).isEqualTo("max-age=60, public, s-maxage=3600");
+		assertThat(second.getHeaders().getFirst(ResponseCache.SURROGATE_KEY)).isEqualTo("recipe-1");
+	}
+
+	@Test
+	void servesGzipToClientsThatAcceptIt() throws Exception {
+		responseCache.store("recipe:1", BODY, "r1-l0", 0, "recipe-1", null);
+		ResponseEntity<byte[]> response = responseCache.find("recipe:1", "deflate, gzip;q=0.8");
+
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		//a different representation of the same version gets its own strong tag
+		assertThat(response.getHeaders().getETag()).isEqualTo("\"r1-l0-gz\"");
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+			assertThat(new String(in.readAllBytes())).isEqualTo("{\"name\":\"a recipe with a long enough name\"}");
+		}
+	}
+
+	@Test
+	void honoursRefusedGzip() {
+		assertThat(ResponseCache.acceptsGzip("gzip;q=0")).isFalse();
+		assertThat(ResponseCache.acceptsGzip("br, GZIP")).isTrue();
+		assertThat(ResponseCache.acceptsGzip("identity")).isFalse();
+		assertThat(ResponseCache.acceptsGzip(null)).isFalse();
+	}
+}
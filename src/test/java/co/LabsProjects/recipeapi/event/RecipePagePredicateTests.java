@@ -0,0 +1,51 @@
+package co.LabsProjects.recipeapi.event;
+
+import co.LabsProjects.recipeapi.model.CursorPage;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSortField;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipePagePredicateTests {
+
+	static final CursorPage<RecipeSummary> SHOWS_SEVEN = new CursorPage<>(
+			List.of(new RecipeSummary(7, "soup", "user2", 3, 20, 6.5)), null, 20);
+
+	static final CursorPage<RecipeSummary> SHOWS_EIGHT = new CursorPage<>(
+			List.of(new RecipeSummary(8, "stew", "user1", 4, 90, 8)), null, 20);
+
+	@Test
+	void ratingChangeOnlyRemovesRatedPagesAndPagesShowingTheRecipe() {
+		RecipePagePredicate predicate = RecipePagePredicate.rated(Set.of(7L));
+
+		assertThat(predicate.apply(page(RecipeQuery.builder().build(), SHOWS_SEVEN))).isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().minRating(5.0).build(), SHOWS_EIGHT))).isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().sort(RecipeSortField.RATING).build(), SHOWS_EIGHT)))
+				.isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().build(), SHOWS_EIGHT))).isFalse();
+		assertThat(predicate.apply(page(RecipeQuery.builder().username("user2").build(), SHOWS_EIGHT))).isFalse();
+	}
+
+	@Test
+	void recipeChangeRemovesThePagesItCanEnter() {
+		RecipePagePredicate predicate = RecipePagePredicate.changed(7, "User:2");
+
+		assertThat(predicate.apply(page(RecipeQuery.builder().build(), SHOWS_EIGHT))).isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().username("user:2").build(), SHOWS_EIGHT))).isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().username("user1").build(), SHOWS_SEVEN))).isTrue();
+		assertThat(predicate.apply(page(RecipeQuery.builder().username("user1").build(), SHOWS_EIGHT))).isFalse();
+		assertThat(RecipePagePredicate.changed(7, null)
+				.apply(page(RecipeQuery.builder().username("user1").build(), SHOWS_EIGHT))).isTrue();
+	}
+
+	private static Map.Entry<Object, Object> page(RecipeQuery query, CursorPage<RecipeSummary> page) {
+		return new AbstractMap.SimpleEntry<>(query.cacheKey(), page);
+	}
+}
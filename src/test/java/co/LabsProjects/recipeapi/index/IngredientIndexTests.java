@@ -0,0 +1,102 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class IngredientIndexTests {
+
+	IngredientIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new IngredientIndex();
+		index.index(recipe(1, "Chicken breast", "garlic", "Butter"));
+		index.index(recipe(2, "chicken thighs", "Garlic", "olive  oil"));
+		index.index(recipe(3, "garlic", "Milk"));
+		index.index(recipe(4));
+	}
+
+	@Test
+	void includeNeedsEveryIngredient() {
+		assertThat(index.search(List.of("chicken", "garlic"), List.of(), List.of(), 0, 10)).containsExactly(1L, 2L);
+		assertThat(index.search(List.of("chicken", "saffron"), List.of(), List.of(), 0, 10)).isEmpty();
+	}
+
+	@Test
+	void matchesWholeNamesAndWords() {
+		assertThat(index.search(List.of("Olive Oil"), List.of(), List.of(), 0, 10)).containsExactly(2L);
+		assertThat(index.search(List.of("chicken breast"), List.of(), List.of(), 0, 10)).containsExactly(1L);
+	}
+
+	@Test
+	void anyAndExcludeCombine() {
+		assertThat(index.search(List.of("garlic"), List.of(), List.of("butter", "milk"), 0, 10)).containsExactly(2L);
+		assertThat(index.search(List.of(), List.of("butter", "milk"), List.of(), 0, 10)).containsExactly(1L, 3L);
+		//nothing to include starts from every recipe
+		assertThat(index.search(List.of(), List.of(), List.of("garlic"), 0, 10)).containsExactly(4L);
+	}
+
+	@Test
+	void pagesAfterAnId() {
+		assertThat(index.search(List.of("garlic"), List.of(), List.of(), 0, 2)).containsExactly(1L, 2L);
+		assertThat(index.search(List.of("garlic"), List.of(), List.of(), 2, 2)).containsExactly(3L);
+	}
+
+	@Test
+	void reindexingReplacesAndRemovingDeletes() {
+		index.index(recipe(3, "tofu"));
+		assertThat(index.search(List.of("milk"), List.of(), List.of(), 0, 10)).isEmpty();
+
+		index.remove(1);
+		assertThat(index.search(List.of("chicken"), List.of(), List.of(), 0, 10)).containsExactly(2L);
+		assertThat(index.size()).isEqualTo(3);
+	}
+
+	@Test
+	void rebuildLoadsEveryRangeFromTheDatabase() throws Exception {
+		//three ranges, one recipe in each, the one in the middle without ingredients
+		index.recipeRepo = mock(RecipeRepo.class);
+		index.rebuildThreads = 2;
+		when(index.recipeRepo.findMaxId()).thenReturn(Optional.of(25_000L));
+		List<Object[]> rows = List.of(
+				new Object[]{5L, "Chicken"}, new Object[]{5L, "lemon"},
+				new Object[]{15_000L, null},
+				new Object[]{25_000L, "chicken stock"});
+		when(index.recipeRepo.findIngredientNamesBetween(anyLong(), anyLong())).thenAnswer(invocation -> {
+			long after = invocation.getArgument(0);
+			long upTo = invocation.getArgument(1);
+			return rows.stream()
+					.filter(row -> (Long) row[0] > after && (Long) row[0] <= upTo)
+					.collect(Collectors.toList());
+		});
+
+		assertThat(index.rebuild()).isEqualTo(3);
+		verify(index.recipeRepo, times(3)).findIngredientNamesBetween(anyLong(), anyLong());
+		assertThat(index.search(List.of("chicken"), List.of(), List.of(), 0, 10)).containsExactly(5L, 25_000L);
+		assertThat(index.search(List.of(), List.of(), List.of("chicken"), 0, 10)).containsExactly(15_000L);
+		assertThat(index.search(List.of("garlic"), List.of(), List.of(), 0, 10)).isEmpty();
+	}
+
+	private static Recipe recipe(long id, String... ingredients) {
+		List<Ingredient> listed = new ArrayList<>();
+		Arrays.stream(ingredients).forEach(name -> listed.add(Ingredient.builder().name(name).amount("1").build()));
+		return Recipe.builder()
+				.id(id)
+				.name("recipe " + id)
+				.ingredients(listed)
+				.build();
+	}
+}
@@ -0,0 +1,59 @@
+package co.LabsProjects.recipeapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongLongMapTests {
+
+	@Test
+	void storesReplacesAndRemoves() {
+		LongLongMap map = new LongLongMap();
+		map.put(1, 10);
+		map.put(2, 20);
+		map.put(1, 11);
+
+		assertThat(map.get(1, -1)).isEqualTo(11);
+		assertThat(map.get(2, -1)).isEqualTo(20);
+		assertThat(map.get(3, -1)).isEqualTo(-1);
+		assertThat(map.size()).isEqualTo(2);
+
+		map.remove(1);
+		map.remove(3);
+		assertThat(map.get(1, -1)).isEqualTo(-1);
+		assertThat(map.size()).isEqualTo(1);
+	}
+
+	@Test
+	void matchesHashMapThroughGrowthAndRemoval() {
+		//enough keys to resize every stripe several times and leave long probe runs to shift back on removal
+		LongLongMap map = new LongLongMap();
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50_000; i++) {
+			long key = 1 + random.nextInt(20_000);
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			} else {
+				map.put(key, i);
+				expected.put(key, (long) i);
+			}
+		}
+
+		assertThat(map.size()).isEqualTo(expected.size());
+		for (long key = 1; key <= 20_000; key++) {
+			assertThat(map.get(key, -1)).isEqualTo(expected.getOrDefault(key, -1L));
+		}
+	}
+
+	@Test
+	void rejectsTheReservedKey() {
+		assertThatThrownBy(() -> new LongLongMap().put(0, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,125 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.PageCursor;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeRanking;
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RatingIndexTests {
+
+	RatingIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new RatingIndex();
+		index.priorMean = 6;
+		index.priorWeight = 10;
+		//one perfect review against hundreds of nearly perfect ones
+		index.index(recipe(1, 10, 1));
+		index.index(recipe(2, 4500, 500));
+		index.index(recipe(3, 40, 5));
+		index.index(recipe(4, 0, 0));
+	}
+
+	@Test
+	void averageRanksBySingleReview() {
+		assertThat(ids(index.top(RecipeRanking.AVERAGE, 10))).containsExactly(1L, 2L, 3L, 4L);
+	}
+
+	@Test
+	void bayesianAndWilsonRankManyReviewsFirst() {
+		assertThat(ids(index.top(RecipeRanking.BAYESIAN, 2))).containsExactly(2L, 3L);
+		assertThat(ids(index.top(RecipeRanking.WILSON, 2))).containsExactly(2L, 3L);
+		assertThat(index.top(RecipeRanking.WILSON, 1).get(0).getScore()).isBetween(8.5, 9.0);
+	}
+
+	@Test
+	void pagesThroughARangeWithCursors() {
+		List<RatingIndex.Hit> first = index.range(RecipeRanking.AVERAGE, 1.0, true, 9.5, true, null, 2);
+		assertThat(ids(first)).containsExactly(2L, 3L);
+
+		RatingIndex.Hit last = first.get(1);
+		PageCursor cursor = new PageCursor("average", true, Double.toString(last.getScore()), last.getSummary().getId());
+		assertThat(index.range(RecipeRanking.AVERAGE, 1.0, true, 9.5, true, cursor, 2)).isEmpty();
+		assertThat(ids(index.range(RecipeRanking.AVERAGE, null, true, null, false, null, 2))).containsExactly(4L, 3L);
+	}
+
+	@Test
+	void exclusiveMinimumLeavesOutThatScore() {
+		assertThat(ids(index.range(RecipeRanking.AVERAGE, 8.0, false, null, true, null, 10))).containsExactly(1L, 2L);
+		assertThat(ids(index.range(RecipeRanking.AVERAGE, 8.0, true, null, true, null, 10))).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void reindexingMovesAndRemovingDeletes() {
+		index.index(recipe(4, 100, 10));
+		assertThat(ids(index.top(RecipeRanking.AVERAGE, 10))).containsExactly(4L, 1L, 2L, 3L);
+
+		index.remove(1);
+		assertThat(ids(index.top(RecipeRanking.AVERAGE, 10))).containsExactly(4L, 2L, 3L);
+		assertThat(index.size()).isEqualTo(3);
+	}
+
+	@Test
+	void laterRefreshWinsWhenAnEarlierOneIsSlow() throws Exception {
+		RecipeRepo recipeRepo = mock(RecipeRepo.class);
+		index.recipeRepo = recipeRepo;
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(recipeRepo.findRatingsByIdIn(anyList()))
+				.thenAnswer(invocation -> {
+					reading.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					//what recipe 4 looked like before its second review committed
+					return rows(new Object[]{4L, 2.0, 2L, 1});
+				})
+				.thenAnswer(invocation -> rows(new Object[]{4L, 6.0, 12L, 2}));
+
+		CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> index.refresh(List.of(4L)));
+		assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> fast = CompletableFuture.runAsync(() -> index.refresh(List.of(4L)));
+		Thread.sleep(100);
+		//the second refresh waits to read until the first has applied what it read
+		verify(recipeRepo, times(1)).findRatingsByIdIn(anyList());
+
+		release.countDown();
+		slow.get(5, TimeUnit.SECONDS);
+		fast.get(5, TimeUnit.SECONDS);
+		assertThat(index.top(RecipeRanking.AVERAGE, 10).stream()
+				.filter(hit -> hit.getSummary().getId() == 4L)
+				.map(RatingIndex.Hit::getScore)).containsExactly(6.0);
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return new ArrayList<>(List.of(rows));
+	}
+
+	private static List<Long> ids(List<RatingIndex.Hit> hits) {
+		return hits.stream().map(hit -> hit.getSummary().getId()).collect(Collectors.toList());
+	}
+
+	private static Recipe recipe(long id, long ratingSum, int ratingCount) {
+		return Recipe.builder()
+				.id(id)
+				.name("recipe " + id)
+				.user(CustomUserDetails.builder().username("user1").build())
+				.ratingSum(ratingSum)
+				.ratingCount(ratingCount)
+				.averageReviewRating(ratingCount == 0 ? 0 : (double) ratingSum / ratingCount)
+				.build();
+	}
+}
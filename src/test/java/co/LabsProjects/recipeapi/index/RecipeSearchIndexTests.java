@@ -0,0 +1,81 @@
+package co.LabsProjects.recipeapi.index;
+
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.Step;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeSearchIndexTests {
+
+	RecipeSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new RecipeSearchIndex();
+		index.index(recipe(1, "Garlic chicken", "chicken", "roast the chicken with garlic"));
+		index.index(recipe(2, "Chocolate cake", "chocolate", "bake for 30 minutes"));
+		index.index(recipe(3, "Potato soup", "potato", "add chicken stock and simmer"));
+	}
+
+	@Test
+	void matchesWholeWordsAcrossFields() {
+		//recipe 1 has chicken in its name, ingredients and steps, recipe 3 only in a step
+		assertThat(index.search("chicken", 10)).containsExactly(1L, 3L);
+	}
+
+	@Test
+	void matchesPrefixes() {
+		assertThat(index.search("choc", 10)).containsExactly(2L);
+		assertThat(index.search("po so", 10)).containsExactly(3L);
+	}
+
+	@Test
+	void matchesPrefixesLongerThanTheIndexedOnesByTheWholePrefix() {
+		assertThat(index.search("chocola", 10)).containsExactly(2L);
+		assertThat(index.search("chocoli", 10)).isEmpty();
+	}
+
+	@Test
+	void matchesStepWordsOnlyWhole() {
+		assertThat(index.search("simmer", 10)).containsExactly(3L);
+		assertThat(index.search("simm", 10)).isEmpty();
+	}
+
+	@Test
+	void requiresEveryTerm() {
+		assertThat(index.search("chicken potato", 10)).containsExactly(3L);
+		assertThat(index.search("chicken cake", 10)).isEmpty();
+	}
+
+	@Test
+	void reindexingReplacesAndRemovingDeletes() {
+		index.index(recipe(2, "Vanilla cake", "vanilla", "bake"));
+		assertThat(index.search("chocolate", 10)).isEmpty();
+		assertThat(index.search("vanilla", 10)).containsExactly(2L);
+
+		index.remove(2);
+		assertThat(index.search("cake", 10)).isEmpty();
+		assertThat(index.search("van", 10)).isEmpty();
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void tokenizesOnPunctuationAndIgnoresCase() {
+		assertThat(RecipeSearchIndex.tokenize("Mac-and-CHEESE, 2 ways!")).isEqualTo(List.of("mac", "and", "cheese", "ways"));
+	}
+
+	private static Recipe recipe(long id, String name, String ingredient, String step) {
+		return Recipe.builder()
+				.id(id)
+				.name(name)
+				.ingredients(Set.of(Ingredient.builder().name(ingredient).amount("1").build()))
+				.steps(Set.of(Step.builder().stepNumber(1).description(step).build()))
+				.build();
+	}
+}
@@ -0,0 +1,59 @@
+package co.LabsProjects.recipeapi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityTagsTests {
+
+	@Test
+	void ifMatchUsesStrongComparison() {
+		assertThat(EntityTags.matches("\"r3-l1-abc\"", "r3-l1-abc")).isTrue();
+		assertThat(EntityTags.matches("\"r2-l1-abc\", \"r3-l1-abc-gz\"", "r3-l1-abc")).isTrue();
+		assertThat(EntityTags.matches("*", "r3-l1-abc")).isTrue();
+		assertThat(EntityTags.matches("W/\"r3-l1-abc\"", "r3-l1-abc")).isFalse();
+		assertThat(EntityTags.matches("\"r2-l1-abc\"", "r3-l1-abc")).isFalse();
+	}
+
+	@Test
+	void ifNoneMatchUsesWeakComparison() {
+		assertThat(EntityTags.matchingNoneMatch(List.of("\"r3-l1-abc\""), "r3-l1-abc")).isEqualTo("r3-l1-abc");
+		assertThat(EntityTags.matchingNoneMatch(List.of("\"r2\"", "W/\"r3-l1-abc-gz\""), "r3-l1-abc"))
+				.isEqualTo("r3-l1-abc-gz");
+		assertThat(EntityTags.matchingNoneMatch(List.of("*"), "r3-l1-abc")).isEqualTo("r3-l1-abc");
+		assertThat(EntityTags.matchingNoneMatch(List.of("\"r2-l1-abc\""), "r3-l1-abc")).isNull();
+	}
+
+	@Test
+	void recipeTagFromVersionsMatchesTheLoadedOne() {
+		Instant recipeChanged = Instant.ofEpochMilli(1000);
+		Instant reviewChanged = Instant.ofEpochMilli(2000);
+		EntityTag tag = CachedRecipe.tagOf(List.of(
+				new Object[]{3L, recipeChanged, 1L, 0L, reviewChanged},
+				new Object[]{3L, recipeChanged, 2L, 0L, recipeChanged}));
+
+		assertThat(tag.getEtag()).isEqualTo(CachedRecipe.etagOf(3, CachedReview.etagOf(List.of(review(1, 0), review(2, 0)))));
+		assertThat(tag.getLastModified()).isEqualTo(2000);
+		assertThat(CachedRecipe.tagOf(List.<Object[]>of(new Object[]{3L, recipeChanged, null, null, null})).getEtag())
+				.isEqualTo(CachedRecipe.etagOf(3, CachedReview.etagOf(List.of())));
+	}
+
+	@Test
+	void reviewListTagChangesWithEveryReview() {
+		CachedReview first = review(1, 0);
+		CachedReview second = review(2, 0);
+		String both = CachedReview.etagOf(List.of(first, second));
+
+		assertThat(CachedReview.etagOf(List.of(second, first))).isEqualTo(both);
+		assertThat(CachedReview.etagOf(List.of(first))).isNotEqualTo(both);
+		assertThat(CachedReview.etagOf(List.of(first, review(2, 1)))).isNotEqualTo(both);
+		assertThat(CachedReview.etagOf(List.of(first, review(3, 0)))).isNotEqualTo(both);
+	}
+
+	private static CachedReview review(long id, long version) {
+		return new CachedReview(id, "description", 5, 1, "user1", version, 0);
+	}
+}
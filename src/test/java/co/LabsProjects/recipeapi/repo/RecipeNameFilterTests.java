@@ -0,0 +1,71 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.RecipeApiApplication;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//a name filter matches LIKE wildcards and the escape character literally
+@SpringBootTest(classes = RecipeApiApplication.class)
+@ActiveProfiles("test")
+class RecipeNameFilterTests {
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	UserRepo userRepo;
+
+	List<Long> created = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		for (String name : List.of("wildcard 100% rye", "wildcard 1000 rye", "wildcard a_b", "wildcard axb",
+				"wildcard back\\slash", "wildcard backslash")) {
+			Recipe recipe = recipeRepo.save(Recipe.builder()
+					.name(name)
+					.difficultyRating(1)
+					.minutesToMake(1)
+					.user(userRepo.findByUsername("user1"))
+					.build());
+			created.add(recipe.getId());
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		created.forEach(recipeRepo::deleteById);
+	}
+
+	@Test
+	void wildcardCharactersMatchThemselves() {
+		assertThat(names("100%")).containsExactly("wildcard 100% rye");
+		assertThat(names("a_b")).containsExactly("wildcard a_b");
+		assertThat(names("back\\s")).containsExactly("wildcard back\\slash");
+	}
+
+	@Test
+	void plainTextStillMatchesAnywhere() {
+		assertThat(names("RYE")).containsExactly("wildcard 100% rye", "wildcard 1000 rye");
+	}
+
+	private List<String> names(String name) {
+		RecipeQuery query = RecipeQuery.builder().name(name).build();
+		return recipeRepo.findPage(query, null).stream()
+				.map(RecipeSummary::getName)
+				.filter(found -> found.startsWith("wildcard"))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,154 @@
+package co.LabsProjects.recipeapi.repo;
+
+import co.LabsProjects.recipeapi.RecipeApiApplication;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Ingredient;
+import co.LabsProjects.recipeapi.model.Recipe;
+import co.LabsProjects.recipeapi.model.RecipeFacets;
+import co.LabsProjects.recipeapi.model.RecipeQuery;
+import co.LabsProjects.recipeapi.model.RecipeSortField;
+import co.LabsProjects.recipeapi.model.Step;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//EXPLAINs the search statement of every filter combination and checks that no table is read whole
+@Tag("jpa")
+@SpringBootTest(classes = RecipeApiApplication.class, properties = {
+		"spring.jpa.properties.hibernate.criteria.literal_handling_mode=inline",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+				"co.LabsProjects.recipeapi.repo.RecipeSearchExplainTests$CapturingInspector"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RecipeSearchExplainTests {
+
+	static final int SEEDED_RECIPES = 3000;
+
+	@Autowired
+	RecipeRepo recipeRepo;
+
+	@Autowired
+	UserRepo userRepo;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	void seed() {
+		CustomUserDetails user2 = userRepo.findByUsername("user2");
+		List<Recipe> seeded = new ArrayList<>();
+		for (int i = 0; i < SEEDED_RECIPES; i++) {
+			seeded.add(Recipe.builder()
+					.name("explain seed " + i)
+					.user(user2)
+					.difficultyRating(10)
+					.minutesToMake(500)
+					.ingredients(new ArrayList<>(List.of(Ingredient.builder().name("explain seed " + i).amount("1").build())))
+					.steps(new ArrayList<>(List.of(Step.builder().stepNumber(1).description("seed").build())))
+					.build());
+		}
+		recipeRepo.saveAll(seeded);
+		jdbcTemplate.execute("analyze table recipe, ingredient, step");
+	}
+
+	@AfterAll
+	void removeSeed() {
+		String seededIds = "select id from recipe where name like 'explain seed %'";
+		jdbcTemplate.update("delete from ingredient where recipe_id in (" + seededIds + ")");
+		jdbcTemplate.update("delete from step where recipe_id in (" + seededIds + ")");
+		jdbcTemplate.update("delete from recipe where name like 'explain seed %'");
+	}
+
+	@BeforeEach
+	void setUp() {
+		CapturingInspector.statements.clear();
+		CapturingInspector.thread = Thread.currentThread();
+	}
+
+	@Test
+	void rangeFiltersUseIndexes() {
+		assertIndexed(RecipeQuery.builder().minDifficulty(2).maxDifficulty(5).build());
+		assertIndexed(RecipeQuery.builder().minMinutes(10).maxMinutes(45).build());
+		assertIndexed(RecipeQuery.builder().minRating(6.0).maxRating(9.0)
+				.sort(RecipeSortField.RATING).descending(true).build());
+	}
+
+	@Test
+	void authorAndIngredientFiltersUseIndexes() {
+		assertIndexed(RecipeQuery.builder().username("user1").build());
+		assertIndexed(RecipeQuery.builder().ingredient("flour").build());
+	}
+
+	@Test
+	void combinedFiltersUseIndexes() {
+		//a name is matched anywhere in it, so it is only supported next to an indexed filter
+		assertIndexed(RecipeQuery.builder().name("recipe").maxDifficulty(5).build());
+		assertIndexed(RecipeQuery.builder().name("recipe").minDifficulty(1).maxDifficulty(8).minMinutes(5)
+				.maxMinutes(60).minRating(1.0).maxRating(10.0).username("user1").ingredient("flour")
+				.sort(RecipeSortField.MINUTES).build());
+	}
+
+	@Test
+	void facetCountsUseIndexes() {
+		RecipeQuery all = RecipeQuery.builder().build();
+		recipeRepo.countGroupedBy(all, RecipeFacets.DIFFICULTY);
+		recipeRepo.countGroupedBy(all, RecipeFacets.MINUTES);
+		recipeRepo.countGroupedBy(RecipeQuery.builder().maxMinutes(30).build(), RecipeFacets.DIFFICULTY);
+		recipeRepo.countGroupedBy(RecipeQuery.builder().minDifficulty(3).build(), RecipeFacets.MINUTES);
+		assertCapturedIndexed();
+	}
+
+	private void assertIndexed(RecipeQuery query) {
+		recipeRepo.findPage(query, null);
+		assertCapturedIndexed();
+	}
+
+	private void assertCapturedIndexed() {
+		assertThat(CapturingInspector.statements).isNotEmpty();
+		for (String sql : CapturingInspector.statements) {
+			//the row limit is the only bound parameter left
+			for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql.replace("?", "21"))) {
+				Object table = row.get("table");
+				//<subqueryN> and <derivedN> are temporary tables built by the plan itself
+				if (table == null || table.toString().startsWith("<")) {
+					continue;
+				}
+				assertThat(row.get("type"))
+						.as("access to %s in %s", table, sql)
+						.isNotEqualTo("ALL");
+			}
+		}
+		CapturingInspector.statements.clear();
+	}
+
+	//keeps the selects of the test thread, the scheduled jobs run their own
+	public static class CapturingInspector implements StatementInspector {
+
+		static final List<String> statements = new CopyOnWriteArrayList<>();
+
+		static volatile Thread thread;
+
+		@Override
+		public String inspect(String sql) {
+			if (Thread.currentThread() == thread && sql.trim().toLowerCase().startsWith("select")) {
+				statements.add(sql);
+			}
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.repo.memory.Rows.RecipeRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.RoleRow;
+import co.LabsProjects.recipeapi.repo.memory.Rows.UserRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void transactionsReadTheSnapshotTheyBeganOn() throws IOException {
+		InMemoryStore store = open("");
+		store.write(new Mutation.PutUser(user(1, "user1")));
+		InMemoryStore.Transaction reader = store.begin();
+
+		store.write(new Mutation.PutRecipe(recipe(2, 1, 0)));
+
+		assertThat(reader.working.recipes.get(2)).isNull();
+		assertThat(store.view().recipes.get(2)).isNotNull();
+		assertThat(store.view().recipesOf(1).get(2)).isTrue();
+	}
+
+	@Test
+	void conflictingWritesFailAndRatingDeltasMerge() throws IOException {
+		InMemoryStore store = open("");
+		store.write(new Mutation.PutUser(user(1, "user1")));
+		store.write(new Mutation.PutRecipe(recipe(2, 1, 0)));
+
+		InMemoryStore.Transaction edit = store.begin();
+		InMemoryStore.Transaction rating = store.begin();
+		edit.apply(new Mutation.PutRecipe(recipe(2, 1, 1)));
+		rating.apply(new Mutation.RateRecipe(2, 8, 1, Instant.now()));
+		store.commit(rating);
+		store.write(new Mutation.RateRecipe(2, 4, 1, Instant.now()));
+
+		assertThatThrownBy(() -> store.commit(edit)).isInstanceOf(OptimisticLockingFailureException.class);
+		RecipeRow rated = store.view().recipes.get(2);
+		assertThat(rated.getRatingSum()).isEqualTo(12);
+		assertThat(rated.getRatingCount()).isEqualTo(2);
+		assertThat(rated.getAverageReviewRating()).isEqualTo(6.0);
+	}
+
+	@Test
+	void enforcesUniqueUsernamesAndForeignKeys() throws IOException {
+		InMemoryStore store = open("");
+		store.write(new Mutation.PutUser(user(1, "user1")));
+
+		assertThatThrownBy(() -> store.write(new Mutation.PutUser(user(2, "user1"))))
+				.isInstanceOf(DataIntegrityViolationException.class);
+		assertThatThrownBy(() -> store.write(new Mutation.PutRecipe(recipe(3, 2, 0))))
+				.isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(store.view().users.size()).isEqualTo(1);
+	}
+
+	@Test
+	void recoversCommitsFromTheLogAndCutsOffATornRecord() throws IOException {
+		Path wal = directory.resolve("store.wal");
+		InMemoryStore store = open(wal.toString());
+		store.write(new Mutation.PutUser(user(store.nextId(), "user1")));
+		store.write(new Mutation.PutRecipe(recipe(store.nextId(), 1, 0)));
+		store.close();
+		long complete = Files.size(wal);
+		//the first bytes of a record whose append never finished
+		Files.write(wal, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+		InMemoryStore recovered = open(wal.toString());
+
+		assertThat(recovered.view().users.size()).isEqualTo(1);
+		assertThat(recovered.view().recipes.get(2).getName()).isEqualTo("recipe 2");
+		//the sequence resumes past every stored id, the user's meta row (201) being the highest
+		assertThat(recovered.nextId()).isEqualTo(202);
+		assertThat(Files.size(wal)).isEqualTo(complete);
+		recovered.close();
+	}
+
+	@Test
+	void failedAppendIsCutOffSoLaterCommitsRecover() throws IOException {
+		Path path = directory.resolve("store.wal");
+		boolean[] failNext = {false};
+		WriteAheadLog wal = new WriteAheadLog(path, false) {
+			@Override
+			void writeRecord(FileChannel out, ByteBuffer record) throws IOException {
+				if (failNext[0]) {
+					failNext[0] = false;
+					//half of the record reaches the file before the disk fills up
+					record.limit(record.limit() / 2);
+					super.writeRecord(out, record);
+					throw new IOException("No space left on device");
+				}
+				super.writeRecord(out, record);
+			}
+		};
+		wal.recover(mutations -> {});
+		wal.append(List.of(new Mutation.PutUser(user(1, "user1"))));
+		failNext[0] = true;
+		assertThatThrownBy(() -> wal.append(List.of(new Mutation.PutRecipe(recipe(2, 1, 0)))))
+				.isInstanceOf(IOException.class);
+		wal.append(List.of(new Mutation.PutRecipe(recipe(3, 1, 0))));
+		wal.close();
+
+		InMemoryStore recovered = open(path.toString());
+
+		assertThat(recovered.view().recipes.get(2)).isNull();
+		assertThat(recovered.view().recipes.get(3).getName()).isEqualTo("recipe 3");
+		recovered.close();
+	}
+
+	@Test
+	void rewritesTheLogOnceItOutgrowsTheCheckpointSize() throws IOException {
+		Path wal = directory.resolve("store.wal");
+		InMemoryStore store = open(wal.toString());
+		store.checkpointMb = 0;
+		store.write(new Mutation.PutUser(user(1, "user1")));
+		for (int i = 0; i < 50; i++) {
+			store.write(new Mutation.RateRecipe(99, 1, 1, Instant.now()));
+			store.write(new Mutation.PutRecipe(recipe(2, 1, i)));
+		}
+		store.close();
+
+		InMemoryStore recovered = open(wal.toString());
+
+		assertThat(recovered.view().recipes.get(2).getVersion()).isEqualTo(49);
+		recovered.close();
+	}
+
+	private static InMemoryStore open(String walPath) throws IOException {
+		InMemoryStore store = new InMemoryStore();
+		store.walPath = walPath;
+		store.walFsync = false;
+		store.checkpointMb = 64;
+		store.open();
+		return store;
+	}
+
+	private static UserRow user(long id, String username) {
+		return new UserRow(id, username, "password", true, true, true, true,
+				List.of(new RoleRow(100 + id, Role.Roles.ROLE_USER)), 200 + id, username, username + "@example.com");
+	}
+
+	private static RecipeRow recipe(long id, long userId, long version) {
+		return new RecipeRow(id, "recipe " + id, userId, 10, 5, 0, 0, 0, version, Instant.now(), List.of(), List.of());
+	}
+}
@@ -0,0 +1,86 @@
+package co.LabsProjects.recipeapi.repo.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongTrieTests {
+
+	@Test
+	void updatesLeaveEarlierVersionsUnchanged() {
+		LongTrie<String> empty = LongTrie.empty();
+		LongTrie<String> one = empty.put(1, "a");
+		LongTrie<String> two = one.put(2, "b");
+		LongTrie<String> replaced = two.put(1, "c");
+		LongTrie<String> removed = replaced.remove(2);
+
+		assertThat(empty.get(1)).isNull();
+		assertThat(one.get(1)).isEqualTo("a");
+		assertThat(one.get(2)).isNull();
+		assertThat(two.size()).isEqualTo(2);
+		assertThat(replaced.get(1)).isEqualTo("c");
+		assertThat(two.get(1)).isEqualTo("a");
+		assertThat(removed.get(2)).isNull();
+		assertThat(replaced.get(2)).isEqualTo("b");
+		assertThat(removed.size()).isEqualTo(1);
+	}
+
+	@Test
+	void growsForLargeKeys() {
+		LongTrie<String> trie = LongTrie.<String>empty().put(3, "small").put(Long.MAX_VALUE, "largest");
+
+		assertThat(trie.get(3)).isEqualTo("small");
+		assertThat(trie.get(Long.MAX_VALUE)).isEqualTo("largest");
+		assertThat(trie.get(Long.MAX_VALUE - 1)).isNull();
+		assertThat(trie.lastKey()).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test
+	void matchesTreeMapThroughUpdatesAndIteration() {
+		LongTrie<Long> trie = LongTrie.empty();
+		TreeMap<Long, Long> expected = new TreeMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50_000; i++) {
+			long key = 1 + random.nextInt(20_000);
+			if (random.nextInt(3) == 0) {
+				trie = trie.remove(key);
+				expected.remove(key);
+			} else {
+				trie = trie.put(key, (long) i);
+				expected.put(key, (long) i);
+			}
+		}
+
+		assertThat(trie.size()).isEqualTo(expected.size());
+		assertThat(trie.lastKey()).isEqualTo(expected.lastKey());
+		List<Long> keys = new ArrayList<>();
+		trie.forEach((key, value) -> {
+			assertThat(value).isEqualTo(expected.get(key));
+			keys.add(key);
+			return true;
+		});
+		assertThat(keys).containsExactlyElementsOf(expected.keySet());
+	}
+
+	@Test
+	void iteratesFromAKeyUntilTheVisitorStops() {
+		LongTrie<Long> trie = LongTrie.empty();
+		for (long key = 10; key <= 1000; key += 10) {
+			trie = trie.put(key, key);
+		}
+
+		List<Long> keys = new ArrayList<>();
+		trie.forEachFrom(255, (key, value) -> {
+			keys.add(key);
+			return keys.size() < 3;
+		});
+
+		assertThat(keys).containsExactly(260L, 270L, 280L);
+		assertThat(LongTrie.empty().lastKey()).isEqualTo(-1);
+	}
+}
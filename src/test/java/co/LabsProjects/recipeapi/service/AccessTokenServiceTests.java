@@ -0,0 +1,136 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.UserChangedEvent;
+import co.LabsProjects.recipeapi.model.AccessToken;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AccessTokenServiceTests {
+
+	AccessTokenService service;
+
+	TokenDenyList denyList;
+
+	CustomUserDetailsService userDetailsService;
+
+	@BeforeEach
+	void setUp() {
+		denyList = mock(TokenDenyList.class);
+		when(denyList.revoke(anyString(), anyLong())).thenReturn(true);
+		userDetailsService = mock(CustomUserDetailsService.class);
+		when(userDetailsService.getUserByUserId(7L)).thenReturn(user());
+		service = new AccessTokenService();
+		service.denyList = denyList;
+		service.userDetailsService = userDetailsService;
+		service.secret = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+		service.ttlSeconds = 900;
+		service.maxSessionSeconds = 3600;
+		service.initKey();
+	}
+
+	@Test
+	void issuedTokenVerifiesToTheSameUser() {
+		String token = service.issue(user());
+
+		AccessToken verified = service.verify(token);
+
+		assertThat(verified.getUserId()).isEqualTo(7L);
+		assertThat(verified.getUsername()).isEqualTo("user|with|bars");
+		assertThat(verified.getRoles()).containsExactly(Role.Roles.ROLE_USER, Role.Roles.ROLE_ADMIN);
+		assertThat(verified.toPrincipal().getAuthorities()).hasSize(2);
+	}
+
+	@Test
+	void tamperedTokenIsRejected() {
+		String token = service.issue(user());
+		String[] parts = token.split("\\.");
+		String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("x|1|0|0|99999999999|0|ROLE_ADMIN|admin".getBytes());
+
+		assertThatThrownBy(() -> service.verify(forgedPayload + "." + parts[1]))
+				.isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void revokedTokenIsRejected() {
+		String token = service.issue(user());
+		when(denyList.isRevoked(anyString())).thenReturn(true);
+
+		assertThatThrownBy(() -> service.verify(token)).isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void refreshRevokesTheOldToken() {
+		AccessToken original = service.verify(service.issue(user()));
+
+		AccessToken refreshed = service.verify(service.refresh(original));
+
+		verify(denyList).revoke(original.getTokenId(), original.getExpiresAt());
+		assertThat(refreshed.getTokenId()).isNotEqualTo(original.getTokenId());
+		assertThat(refreshed.getAuthenticatedAt()).isEqualTo(original.getAuthenticatedAt());
+	}
+
+	@Test
+	void tokenIsRefreshedOnlyOnce() {
+		AccessToken original = service.verify(service.issue(user()));
+		when(denyList.revoke(original.getTokenId(), original.getExpiresAt())).thenReturn(false);
+
+		assertThatThrownBy(() -> service.refresh(original)).isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void refreshIsRefusedOnceTheRolesChanged() {
+		AccessToken original = service.verify(service.issue(user()));
+		CustomUserDetails demoted = user();
+		demoted.setAuthorities(List.of(new Role(Role.Roles.ROLE_USER)));
+		when(userDetailsService.getUserByUserId(7L)).thenReturn(demoted);
+
+		assertThatThrownBy(() -> service.refresh(original)).isInstanceOf(BadCredentialsException.class);
+		verify(denyList, never()).revoke(anyString(), anyLong());
+	}
+
+	@Test
+	void refreshIsRefusedForADisabledUser() {
+		AccessToken original = service.verify(service.issue(user()));
+		CustomUserDetails disabled = user();
+		disabled.setEnabled(false);
+		when(userDetailsService.getUserByUserId(7L)).thenReturn(disabled);
+
+		assertThatThrownBy(() -> service.refresh(original)).isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void tokensFromBeforeACredentialChangeAreRejected() {
+		when(denyList.credentialVersion(7L)).thenReturn(100L);
+		String token = service.issue(user());
+		assertThat(service.verify(token).getCredentialVersion()).isEqualTo(100L);
+
+		service.onUserChanged(new UserChangedEvent(7L, "user|with|bars"));
+		verify(denyList).revokeUser(7L);
+		when(denyList.isUserRevoked(7L, 100L)).thenReturn(true);
+
+		assertThatThrownBy(() -> service.verify(token)).isInstanceOf(BadCredentialsException.class);
+	}
+
+	private static CustomUserDetails user() {
+		return CustomUserDetails.builder()
+				.id(7L)
+				.username("user|with|bars")
+				.password("hash")
+				.authorities(Arrays.asList(new Role(Role.Roles.ROLE_USER), new Role(Role.Roles.ROLE_ADMIN)))
+				.build();
+	}
+}
@@ -0,0 +1,87 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.event.UserChangedEvent;
+import co.LabsProjects.recipeapi.model.CachedPrincipal;
+import co.LabsProjects.recipeapi.model.CustomUserDetails;
+import co.LabsProjects.recipeapi.model.Role;
+import co.LabsProjects.recipeapi.repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTests {
+
+	CustomUserDetailsService service;
+
+	UserRepo userRepo;
+
+	PrincipalCache principalCache;
+
+	ApplicationEventPublisher eventPublisher;
+
+	@BeforeEach
+	void setUp() {
+		userRepo = mock(UserRepo.class);
+		principalCache = mock(PrincipalCache.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		service = new CustomUserDetailsService();
+		service.userRepo = userRepo;
+		service.principalCache = principalCache;
+		service.eventPublisher = eventPublisher;
+		service.encoder = mock(PasswordEncoder.class);
+	}
+
+	@Test
+	void cachedPrincipalIsUsedWithoutLoadingTheUser() {
+		when(principalCache.get("user1")).thenReturn(CachedPrincipal.from(user()));
+
+		CustomUserDetails loaded = (CustomUserDetails) service.loadUserByUsername("user1");
+
+		assertThat(loaded.getId()).isEqualTo(7L);
+		assertThat(loaded.getPassword()).isEqualTo("hash");
+		verifyNoInteractions(userRepo);
+		verify(principalCache, never()).put(any());
+	}
+
+	@Test
+	void missLoadsTheUserAndCachesIt() {
+		CustomUserDetails user = user();
+		when(userRepo.findByUsername("user1")).thenReturn(user);
+
+		assertThat(service.loadUserByUsername("user1")).isSameAs(user);
+
+		verify(principalCache).put(user);
+	}
+
+	@Test
+	void passwordChangeLeavesTheCacheToTheCommit() {
+		when(userRepo.findByUsername("user1")).thenReturn(user());
+
+		service.changePassword("user1", "new password");
+
+		//invalidated by PrincipalCache's after-commit listener, never inside the transaction
+		verify(principalCache, never()).invalidate(any());
+		ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getUserId()).isEqualTo(7L);
+		assertThat(event.getValue().getUsername()).isEqualTo("user1");
+	}
+
+	private static CustomUserDetails user() {
+		return CustomUserDetails.builder()
+				.id(7L)
+				.username("user1")
+				.password("hash")
+				.authorities(new ArrayList<>(List.of(new Role(Role.Roles.ROLE_USER))))
+				.build();
+	}
+}
@@ -0,0 +1,202 @@
+package co.LabsProjects.recipeapi.service;
+
+import co.LabsProjects.recipeapi.repo.RecipeRepo;
+import com.hazelcast.cluster.Cluster;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReviewRatingAggregatorTests {
+
+	ReviewRatingAggregator aggregator;
+
+	RecipeRepo recipeRepo;
+
+	IMap<String, String> runs;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		recipeRepo = mock(RecipeRepo.class);
+		runs = mock(IMap.class);
+		aggregator = new ReviewRatingAggregator();
+		aggregator.recipeRepo = recipeRepo;
+		aggregator.eventPublisher = mock(ApplicationEventPublisher.class);
+		aggregator.transactionManager = mock(PlatformTransactionManager.class);
+		aggregator.hotThreshold = 2;
+		aggregator.reconcileBatchSize = 1000;
+		aggregator.claimSeconds = 3600;
+		aggregator.runs = runs;
+
+		//a cluster of this node alone, which has paused once it says so
+		HazelcastInstance client = mock(HazelcastInstance.class);
+		Cluster cluster = mock(Cluster.class);
+		when(client.getCluster()).thenReturn(cluster);
+		when(cluster.getMembers()).thenReturn(Set.of(mock(Member.class)));
+		aggregator.hazelcastClient = client;
+		when(runs.keySet(any(Predicate.class)))
+				.thenReturn(Set.of(ReviewRatingAggregator.PAUSED + aggregator.nodeId));
+		when(recipeRepo.findMaxId()).thenReturn(Optional.of(1500L));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void coldRecipeIsWrittenDirectly() {
+		aggregator.apply(1, 7, 1);
+
+		verify(recipeRepo).applyRatingDelta(1, 7, 1);
+	}
+
+	@Test
+	void hotRecipeIsBufferedUntilTheNextFlush() {
+		//two writes in one interval make the recipe hot
+		aggregator.apply(1, 5, 1);
+		aggregator.apply(1, 5, 1);
+		aggregator.flush();
+		clearInvocations(recipeRepo);
+
+		aggregator.apply(1, 4, 1);
+		aggregator.apply(1, 6, 1);
+		aggregator.apply(1, -3, 0);
+		verify(recipeRepo, never()).applyRatingDelta(anyLong(), anyLong(), anyInt());
+
+		aggregator.flush();
+		verify(recipeRepo).applyRatingDelta(1, 7, 2);
+	}
+
+	@Test
+	void rolledBackReviewIsNotBuffered() {
+		makeHot(1);
+
+		TransactionSynchronizationManager.initSynchronization();
+		aggregator.apply(1, 9, 1);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		aggregator.flush();
+		verify(recipeRepo, never()).applyRatingDelta(anyLong(), anyLong(), anyInt());
+	}
+
+	@Test
+	void failedFlushKeepsItsDeltasForTheNext() {
+		makeHot(1);
+		aggregator.apply(1, 9, 1);
+		doThrow(new IllegalStateException("lock wait timeout")).doReturn(1)
+				.when(recipeRepo).applyRatingDelta(1, 9, 1);
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertThatThrownBy(aggregator::flush).isInstanceOf(IllegalStateException.class);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		aggregator.flush();
+		verify(recipeRepo, times(2)).applyRatingDelta(1, 9, 1);
+	}
+
+	@Test
+	void reconcileWaitsForCommittingReviewsAndWritesTheirDeltasFirst() throws Exception {
+		makeHot(1);
+		CountDownLatch buffered = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		CompletableFuture<Void> review = CompletableFuture.runAsync(() -> {
+			TransactionSynchronizationManager.initSynchronization();
+			aggregator.apply(1, 8, 1);
+			buffered.countDown();
+			await(commit);
+			complete(TransactionSynchronization.STATUS_COMMITTED);
+		});
+		assertThat(buffered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		CompletableFuture<Void> reconcile = CompletableFuture.runAsync(aggregator::reconcile);
+		Thread.sleep(100);
+		verify(recipeRepo, never()).reconcileRatingsBetween(anyLong(), anyLong());
+
+		//hot writes go straight to the counters while the reconcile runs
+		aggregator.apply(1, 2, 1);
+		verify(recipeRepo).applyRatingDelta(1, 2, 1);
+
+		commit.countDown();
+		review.get(5, TimeUnit.SECONDS);
+		reconcile.get(5, TimeUnit.SECONDS);
+		InOrder order = inOrder(recipeRepo);
+		order.verify(recipeRepo).applyRatingDelta(1, 8, 1);
+		order.verify(recipeRepo).reconcileRatingsBetween(0, 1000);
+		order.verify(recipeRepo).reconcileRatingsBetween(1000, 2000);
+
+		//nothing is left to be counted a second time
+		clearInvocations(recipeRepo);
+		aggregator.flush();
+		verify(recipeRepo, never()).applyRatingDelta(anyLong(), anyLong(), anyInt());
+	}
+
+	@Test
+	void reconcileIsLeftToTheNodeThatClaimedIt() {
+		when(runs.putIfAbsent(eq(ReviewRatingAggregator.CLAIM), any(), anyLong(), any())).thenReturn("other node");
+
+		aggregator.reconcile();
+
+		verify(recipeRepo, never()).reconcileRatingsBetween(anyLong(), anyLong());
+		verify(runs, never()).set(eq(ReviewRatingAggregator.RUNNING), any(), anyLong(), any());
+	}
+
+	@Test
+	void reconcileSkipsWhenAnotherNodeDoesNotPause() {
+		when(runs.keySet(any(Predicate.class))).thenReturn(Set.of());
+		aggregator.reconcileWaitMs = 100;
+
+		aggregator.reconcile();
+
+		verify(recipeRepo, never()).reconcileRatingsBetween(anyLong(), anyLong());
+		verify(runs).delete(ReviewRatingAggregator.RUNNING);
+	}
+
+	private void makeHot(long recipeId) {
+		aggregator.apply(recipeId, 1, 1);
+		aggregator.apply(recipeId, 1, 1);
+		aggregator.flush();
+		clearInvocations(recipeRepo);
+	}
+
+	//what the transaction manager does once the current thread's transaction is over
+	private static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}